@@ -0,0 +1,82 @@
+package com.webchecker.backend.benchmark;
+
+import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.QueryParam;
+import com.webchecker.backend.entity.Site;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic fixtures shared by the benchmark suites.
+ */
+public final class BenchmarkData {
+    
+    private static final CheckResult.CheckStatus[] STATUSES = CheckResult.CheckStatus.values();
+    
+    private BenchmarkData() {}
+    
+    public static CheckResultDto checkResultDto(long siteId, SplittableRandom random, LocalDateTime timestamp) {
+        CheckResultDto dto = new CheckResultDto();
+        dto.setSiteId(siteId);
+        dto.setTimestamp(timestamp);
+        // Roughly 97% of checks succeed
+        dto.setStatus(random.nextInt(100) < 97 ? CheckResult.CheckStatus.UP : STATUSES[1 + random.nextInt(2)]);
+        dto.setResponseTime(80 + random.nextInt(1200));
+        dto.setStatusCode(dto.getStatus() == CheckResult.CheckStatus.UP ? 200 : 503);
+        dto.setSeoScore(60 + random.nextInt(40));
+        if (dto.getStatus() != CheckResult.CheckStatus.UP) {
+            dto.setError("Connection reset by peer");
+        }
+        return dto;
+    }
+    
+    public static List<CheckResultDto> checkResultDtos(int count, long siteCount, LocalDateTime end, long stepSeconds) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<CheckResultDto> dtos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dtos.add(checkResultDto(1 + (i % siteCount), random, end.minusSeconds(stepSeconds * (count - i))));
+        }
+        return dtos;
+    }
+    
+    public static CheckResult checkResult(CheckResultDto dto, String userId) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setSiteId(dto.getSiteId());
+        checkResult.setTimestamp(dto.getTimestamp());
+        checkResult.setStatus(dto.getStatus());
+        checkResult.setResponseTime(dto.getResponseTime());
+        checkResult.setStatusCode(dto.getStatusCode());
+        checkResult.setError(dto.getError());
+        checkResult.setSeoScore(dto.getSeoScore());
+        checkResult.setUserId(userId);
+        return checkResult;
+    }
+    
+    public static List<CheckResult> checkResults(int count, long siteCount, LocalDateTime end, long stepSeconds, String userId) {
+        List<CheckResult> results = new ArrayList<>(count);
+        for (CheckResultDto dto : checkResultDtos(count, siteCount, end, stepSeconds)) {
+            results.add(checkResult(dto, userId));
+        }
+        return results;
+    }
+    
+    public static Site site(String userId) {
+        Site site = new Site();
+        site.setId(1L);
+        site.setName("Benchmark site");
+        site.setUrl("https://example.com");
+        site.setUserId(userId);
+        site.setHealthEndpoint("/health");
+        site.setQueryParams(new ArrayList<>(List.of(
+            new QueryParam("utm_source", "webchecker"),
+            new QueryParam("lang", "en"),
+            new QueryParam("cache", "bypass"))));
+        site.setCreatedAt(LocalDateTime.now());
+        site.setUpdatedAt(LocalDateTime.now());
+        return site;
+    }
+}
@@ -0,0 +1,76 @@
+package com.webchecker.backend.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.webchecker.backend.dto.CheckResultDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialization cost of worker result batches, with the ObjectMapper
+ * configured the way Spring Boot configures it for MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    
+    private static final TypeReference<List<CheckResultDto>> BATCH_TYPE = new TypeReference<>() {};
+    
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+    
+    private ObjectMapper objectMapper;
+    private List<CheckResultDto> batch;
+    private byte[] jsonArray;
+    private byte[] ndjson;
+    
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        batch = BenchmarkData.checkResultDtos(batchSize, 50, LocalDateTime.now(), 1);
+        jsonArray = objectMapper.writeValueAsBytes(batch);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (CheckResultDto dto : batch) {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+        }
+        ndjson = out.toByteArray();
+    }
+    
+    @Benchmark
+    public byte[] serializeBatch() throws IOException {
+        return objectMapper.writeValueAsBytes(batch);
+    }
+    
+    @Benchmark
+    public List<CheckResultDto> deserializeJsonArray() throws IOException {
+        return objectMapper.readValue(jsonArray, BATCH_TYPE);
+    }
+    
+    @Benchmark
+    public List<CheckResultDto> deserializeNdjson() throws IOException {
+        List<CheckResultDto> result = new ArrayList<>(batchSize);
+        try (MappingIterator<CheckResultDto> it = objectMapper.readerFor(CheckResultDto.class).readValues(ndjson)) {
+            while (it.hasNextValue()) {
+                result.add(it.nextValue());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.webchecker.backend.benchmark;
+
+import com.webchecker.backend.WebCheckerBackendApplication;
+import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.dto.CheckResultPageDto;
+import com.webchecker.backend.dto.LatencyPercentilesDto;
+import com.webchecker.backend.dto.UptimeStatsDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.Site;
+import com.webchecker.backend.repository.SiteRepository;
+import com.webchecker.backend.service.CheckResultService;
+import com.webchecker.backend.service.LatencySketchService;
+import com.webchecker.backend.service.TimeWindow;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end ingestion and query paths through the Spring services against a local
+ * PostgreSQL. Point it at a scratch database with -Dbench.datasource.url,
+ * -Dbench.datasource.username and -Dbench.datasource.password; the seeded site and
+ * its rows are removed again after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryPathBenchmark {
+    
+    private static final String USER_ID = "bench-user";
+    
+    // Number of check rows seeded for the benchmarked site, spread over 30 days
+    @Param({"1000", "40000"})
+    public int historySize;
+    
+    private ConfigurableApplicationContext context;
+    private CheckResultService checkResultService;
+    private Long siteId;
+    private List<CheckResult> ingestBatch;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(WebCheckerBackendApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=" + System.getProperty("bench.datasource.url", "jdbc:postgresql://localhost:5432/webchecker"),
+                "spring.datasource.username=" + System.getProperty("bench.datasource.username", "webchecker"),
+                "spring.datasource.password=" + System.getProperty("bench.datasource.password", "webchecker"),
+                "webchecker.incidents.enabled=false",
+                "logging.level.root=WARN",
+                "logging.level.org.springframework=WARN")
+            .run();
+        checkResultService = context.getBean(CheckResultService.class);
+        
+        Site site = BenchmarkData.site(USER_ID);
+        site.setId(null);
+        siteId = context.getBean(SiteRepository.class).save(site).getId();
+        
+        LocalDateTime now = LocalDateTime.now();
+        long stepSeconds = Math.max(1, 30L * 24 * 3600 / historySize);
+        List<CheckResult> history = BenchmarkData.checkResults(historySize, 1, now, stepSeconds, USER_ID);
+        history.forEach(checkResult -> checkResult.setSiteId(siteId));
+        for (int from = 0; from < history.size(); from += 1000) {
+            checkResultService.saveCheckResults(history.subList(from, Math.min(from + 1000, history.size())));
+        }
+        context.getBean(LatencySketchService.class).flush();
+    }
+    
+    @Setup(Level.Invocation)
+    public void prepareIngestBatch() {
+        ingestBatch = BenchmarkData.checkResults(100, 1, LocalDateTime.now(), 1, USER_ID);
+        ingestBatch.forEach(checkResult -> checkResult.setSiteId(siteId));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM check_results WHERE site_id = ?", siteId);
+        jdbcTemplate.update("DELETE FROM uptime_rollups WHERE site_id = ?", siteId);
+        jdbcTemplate.update("DELETE FROM latency_sketches WHERE site_id = ?", siteId);
+        context.getBean(SiteRepository.class).deleteById(siteId);
+        context.close();
+    }
+    
+    @Benchmark
+    public CheckResultPageDto firstHistoryPage() {
+        return checkResultService.getChecksBySiteId(siteId, USER_ID, null, null, null, 100);
+    }
+    
+    @Benchmark
+    public UptimeStatsDto uptimeThirtyDays() {
+        return checkResultService.getUptimeStats(siteId, USER_ID, TimeWindow.resolve("30d", null, null));
+    }
+    
+    @Benchmark
+    public LatencyPercentilesDto latencyThirtyDays() {
+        return checkResultService.getLatencyPercentiles(siteId, USER_ID, TimeWindow.resolve("30d", null, null));
+    }
+    
+    @Benchmark
+    public List<CheckResultDto> ingestBatchOfHundred() {
+        return checkResultService.saveCheckResults(ingestBatch);
+    }
+}
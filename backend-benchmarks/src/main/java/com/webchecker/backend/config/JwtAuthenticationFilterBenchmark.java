@@ -0,0 +1,48 @@
+package com.webchecker.backend.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs256";
+    
+    private JwtAuthenticationFilter filter;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        filter = new JwtAuthenticationFilter(SECRET);
+        token = Jwts.builder()
+            .subject("3f2b6c1e-7d4a-4b8e-9a51-2c0f6e8d9b17")
+            .claim("email", "bench@example.com")
+            .claim("role", "authenticated")
+            .issuedAt(new Date())
+            .expiration(Date.from(Instant.now().plusSeconds(3600)))
+            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .compact();
+    }
+    
+    @Benchmark
+    public Claims parseClaims() {
+        return filter.parseClaims(token);
+    }
+    
+    @Benchmark
+    public JwtAuthenticationFilter.VerifiedToken resolveCached() {
+        return filter.resolve(token);
+    }
+}
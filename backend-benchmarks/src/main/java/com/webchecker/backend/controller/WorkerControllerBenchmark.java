@@ -0,0 +1,32 @@
+package com.webchecker.backend.controller;
+
+import com.webchecker.backend.benchmark.BenchmarkData;
+import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.entity.CheckResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkerControllerBenchmark {
+    
+    private final WorkerController workerController = new WorkerController();
+    private CheckResultDto checkResultDto;
+    
+    @Setup
+    public void setUp() {
+        checkResultDto = BenchmarkData.checkResultDto(1L, new SplittableRandom(42), LocalDateTime.now());
+    }
+    
+    @Benchmark
+    public CheckResult convertToEntity() {
+        return workerController.convertToEntity(checkResultDto);
+    }
+}
@@ -0,0 +1,81 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.benchmark.BenchmarkData;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.UptimeRollup;
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory aggregation work done per ingested batch and per uptime/percentile query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+    
+    @Param({"100", "1000"})
+    public int batchSize;
+    
+    private List<CheckResult> batch;
+    private List<byte[]> dailySketches;
+    private IncidentDetectionService.SiteState siteState;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        batch = BenchmarkData.checkResults(batchSize, 50, LocalDateTime.now(), 1, "bench-user");
+        
+        // Thirty days of daily sketches, each holding a day of one-minute checks
+        dailySketches = new ArrayList<>();
+        List<CheckResult> day = BenchmarkData.checkResults(1440, 1, LocalDateTime.now(), 60, "bench-user");
+        for (int i = 0; i < 30; i++) {
+            Histogram histogram = LatencySketchService.newHistogram();
+            for (CheckResult checkResult : day) {
+                histogram.recordValue(checkResult.getResponseTime() + i);
+            }
+            dailySketches.add(LatencySketchService.encode(histogram));
+        }
+        
+        siteState = new IncidentDetectionService.SiteState(1L, 60, 5, 3.0);
+        siteState.applySite(BenchmarkData.site("bench-user"));
+    }
+    
+    @Benchmark
+    public List<UptimeRollup> rollupBatch() {
+        return UptimeRollupService.aggregate(batch);
+    }
+    
+    @Benchmark
+    public Histogram recordLatencies() {
+        Histogram histogram = LatencySketchService.newHistogram();
+        for (CheckResult checkResult : batch) {
+            histogram.recordValue(checkResult.getResponseTime());
+        }
+        return histogram;
+    }
+    
+    @Benchmark
+    public long mergeThirtyDailySketches() {
+        Histogram merged = LatencySketchService.newHistogram();
+        for (byte[] sketch : dailySketches) {
+            merged.add(LatencySketchService.decode(sketch));
+        }
+        return merged.getValueAtPercentile(50.0) + merged.getValueAtPercentile(95.0) + merged.getValueAtPercentile(99.0);
+    }
+    
+    @Benchmark
+    public double incidentStateUpdate() {
+        CheckResult checkResult = batch.get(next++ % batch.size());
+        siteState.record(checkResult);
+        return siteState.windowUptime();
+    }
+}
@@ -0,0 +1,42 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.benchmark.BenchmarkData;
+import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.dto.SiteDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.Site;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    
+    private final CheckResultService checkResultService = new CheckResultService();
+    private final SiteService siteService = new SiteService();
+    private CheckResult checkResult;
+    private Site site;
+    
+    @Setup
+    public void setUp() {
+        checkResult = BenchmarkData.checkResults(1, 1, LocalDateTime.now(), 60, "bench-user").get(0);
+        checkResult.setId(1L);
+        site = BenchmarkData.site("bench-user");
+    }
+    
+    @Benchmark
+    public CheckResultDto checkResultToDto() {
+        return checkResultService.convertToDto(checkResult);
+    }
+    
+    @Benchmark
+    public SiteDto siteToDto() {
+        return siteService.convertToDto(site);
+    }
+}
@@ -0,0 +1,148 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.WebCheckerBackendApplication;
+import com.webchecker.backend.benchmark.BenchmarkData;
+import com.webchecker.backend.dto.SiteDto;
+import com.webchecker.backend.dto.SitePageDto;
+import com.webchecker.backend.entity.Site;
+import com.webchecker.backend.repository.SiteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Site listing through the page projection against the entity listing it replaced.
+ * {@code allSitesAsEntitiesBaseline} reproduces the old N+1: entities are read through a
+ * stateless session, which has no persistence context to batch-fetch from, so every
+ * site's query params take their own statement as they did before {@code @BatchSize}.
+ * {@code allSitesAsEntitiesBatchFetched} is today's entity path for comparison. Each
+ * iteration prints the SQL statements per operation from Hibernate's statistics next to
+ * JMH's latency. Needs the same scratch database as {@code QueryPathBenchmark}; the
+ * seeded sites are removed again after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SiteListingBenchmark {
+    
+    private static final String USER_ID = "bench-sites-user";
+    
+    @Param({"10", "500", "5000"})
+    public int siteCount;
+    
+    private ConfigurableApplicationContext context;
+    private SiteService siteService;
+    private SiteRepository siteRepository;
+    private TransactionTemplate transactionTemplate;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private long operations;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(WebCheckerBackendApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=" + System.getProperty("bench.datasource.url", "jdbc:postgresql://localhost:5432/webchecker"),
+                "spring.datasource.username=" + System.getProperty("bench.datasource.username", "webchecker"),
+                "spring.datasource.password=" + System.getProperty("bench.datasource.password", "webchecker"),
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "webchecker.site-cache.enabled=false",
+                "webchecker.incidents.enabled=false",
+                "logging.level.root=WARN",
+                "logging.level.org.springframework=WARN")
+            .run();
+        siteService = context.getBean(SiteService.class);
+        siteRepository = context.getBean(SiteRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        
+        List<Site> sites = new ArrayList<>(siteCount);
+        for (int i = 0; i < siteCount; i++) {
+            Site site = BenchmarkData.site(USER_ID);
+            site.setId(null);
+            site.setName("Benchmark site " + i);
+            sites.add(site);
+        }
+        siteRepository.saveAll(sites);
+    }
+    
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        operations = 0;
+    }
+    
+    @TearDown(Level.Iteration)
+    public void reportStatements(BenchmarkParams params) {
+        if (operations > 0) {
+            System.out.printf("%n%s (%d sites): %.1f statements/op%n", params.getBenchmark(), siteCount,
+                (double) statistics.getPrepareStatementCount() / operations);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM site_query_params WHERE site_id IN (SELECT id FROM sites WHERE user_id = ?)", USER_ID);
+        jdbcTemplate.update("DELETE FROM sites WHERE user_id = ?", USER_ID);
+        context.close();
+    }
+    
+    @Benchmark
+    public List<SiteDto> allSitesProjected() {
+        List<SiteDto> sites = new ArrayList<>(siteCount);
+        for (int page = 0; ; page++) {
+            SitePageDto result = siteService.getSitesByUserId(USER_ID, page, SiteService.MAX_PAGE_SIZE, "createdAt", "desc");
+            sites.addAll(result.getItems());
+            if ((long) (page + 1) * SiteService.MAX_PAGE_SIZE >= result.getTotalElements()) {
+                break;
+            }
+        }
+        operations++;
+        return sites;
+    }
+    
+    @Benchmark
+    public List<SiteDto> allSitesAsEntitiesBaseline() {
+        List<SiteDto> sites = new ArrayList<>(siteCount);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            List<Site> entities = session.createSelectionQuery(
+                    "from Site where userId = :userId order by createdAt desc", Site.class)
+                .setParameter("userId", USER_ID)
+                .getResultList();
+            for (Site site : entities) {
+                session.fetch(site.getQueryParams());
+                sites.add(siteService.convertToDto(site));
+            }
+        }
+        operations++;
+        return sites;
+    }
+    
+    @Benchmark
+    public List<SiteDto> allSitesAsEntitiesBatchFetched() {
+        List<SiteDto> sites = transactionTemplate.execute(status -> siteRepository.findByUserIdOrderByCreatedAtDesc(USER_ID)
+            .stream()
+            .map(siteService::convertToDto)
+            .collect(Collectors.toList()));
+        operations++;
+        return sites;
+    }
+}
@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Compares ingestion throughput and tail latency between platform-thread and
+# virtual-thread mode. Requires `hey` (https://github.com/rakyll/hey) and a
+# running PostgreSQL reachable through SPRING_DATASOURCE_URL. Set AUTH_TOKEN to a
+# JWT signed with SUPABASE_JWT_SECRET if the worker API requires authentication.
+#
+# Usage: scripts/load-test.sh [requests] [concurrency]
+set -euo pipefail
+
+REQUESTS=${1:-20000}
+CONCURRENCY=${2:-400}
+PORT=${PORT:-8080}
+JAR=$(ls target/backend-*-exec.jar | head -n 1)
+AUTH_HEADER=()
+if [ -n "${AUTH_TOKEN:-}" ]; then
+    AUTH_HEADER=(-H "Authorization: Bearer ${AUTH_TOKEN}")
+fi
+PAYLOAD=$(mktemp)
+trap 'rm -f "$PAYLOAD"' EXIT
+
+cat > "$PAYLOAD" <<JSON
+{"siteId": 1, "status": "UP", "responseTime": 123, "statusCode": 200, "seoScore": 90}
+JSON
+
+run_mode() {
+    local mode=$1
+    local virtual=$2
+
+    echo "=== ${mode} threads"
+    VIRTUAL_THREADS_ENABLED=$virtual java -jar "$JAR" --server.port="$PORT" > "target/load-${mode}.log" 2>&1 &
+    local pid=$!
+    until curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; do sleep 1; done
+
+    # Warm up the JIT and connection pool before measuring
+    hey -n 2000 -c 50 -m POST -T application/json "${AUTH_HEADER[@]}" -D "$PAYLOAD" \
+        "http://localhost:${PORT}/api/worker/check-result" > /dev/null
+    hey -n "$REQUESTS" -c "$CONCURRENCY" -m POST -T application/json "${AUTH_HEADER[@]}" -D "$PAYLOAD" \
+        "http://localhost:${PORT}/api/worker/check-result" | tee "target/load-${mode}.txt" \
+        | grep -E "Requests/sec|99%|Status code|\[[0-9]+\]"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+run_mode platform false
+run_mode virtual true
@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Pushes check results into the Redis result stream and waits until the backend's
+# consumer group has acknowledged all of them. Any Redis-protocol server works as the
+# stand-in, e.g. `docker run --rm -p 6379:6379 redis:7-alpine`. Start the backend with
+# RESULT_STREAM_ENABLED=true and REDIS_URL pointing at the same server first.
+#
+# Usage: scripts/result-stream-smoke.sh [results] [siteId]
+set -euo pipefail
+
+COUNT=${1:-1000}
+SITE_ID=${2:-1}
+STREAM=${STREAM:-check_results}
+GROUP=${GROUP:-backend}
+REDIS=(redis-cli -u "${REDIS_URL:-redis://localhost:6379}")
+
+for i in $(seq 1 "$COUNT"); do
+    echo "XADD $STREAM * result {\"siteId\":$SITE_ID,\"status\":\"UP\",\"responseTime\":$((RANDOM % 900 + 50)),\"statusCode\":200,\"seoScore\":90}"
+done | "${REDIS[@]}" > /dev/null
+# One malformed entry to exercise the rejection path
+"${REDIS[@]}" XADD "$STREAM" '*' result 'not-json' > /dev/null
+
+for _ in $(seq 1 30); do
+    pending=$("${REDIS[@]}" XPENDING "$STREAM" "$GROUP" | head -n 1)
+    lag=$("${REDIS[@]}" XINFO GROUPS "$STREAM" | awk 'prev == "lag" { print; exit } { prev = $0 }')
+    echo "pending=${pending} lag=${lag:-?}"
+    if [ "$pending" = "0" ] && [ "${lag:-0}" = "0" ]; then
+        echo "All results acknowledged"
+        exit 0
+    fi
+    sleep 1
+done
+echo "Results still pending after 30s" >&2
+exit 1
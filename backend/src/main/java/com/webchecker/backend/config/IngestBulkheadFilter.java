@@ -0,0 +1,65 @@
+package com.webchecker.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many worker ingestion requests may hold a database connection at once.
+ * With virtual threads the request thread pool no longer bounds concurrency, so
+ * without this an ingest burst would queue on the Hikari pool and starve the
+ * dashboard API of connections. On platform threads Tomcat's pool already bounds
+ * ingestion, so the filter is only registered together with virtual threads.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class IngestBulkheadFilter extends OncePerRequestFilter {
+    
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    
+    public IngestBulkheadFilter(@Value("${webchecker.bulkhead.ingest-permits:12}") int ingestPermits,
+                                @Value("${webchecker.bulkhead.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.permits = new Semaphore(ingestPermits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/worker/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        
+        if (!acquired) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            return;
+        }
+        
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.webchecker.backend.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Schema work that has to happen before Hibernate's {@code ddl-auto: update} runs.
+ */
+@Configuration
+public class JpaSchemaConfig {
+    
+    // check_results must already be partitioned when Hibernate inspects it
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor checkResultPartitionsBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor("checkResultPartitionRepository");
+    }
+}
@@ -1,8 +1,16 @@
 package com.webchecker.backend.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,14 +23,44 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final String jwtSecret;
+    static final long DEFAULT_CACHE_SIZE = 10_000;
+    static final Duration MAX_CACHE_TTL = Duration.ofMinutes(10);
+
+    private final JwtParser jwtParser;
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
+
+    // Verified tokens keyed by SHA-256 of the raw token, evicted at the token's expiry
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     public JwtAuthenticationFilter(String jwtSecret) {
-        this.jwtSecret = jwtSecret;
+        this(jwtSecret, DEFAULT_CACHE_SIZE, new SimpleMeterRegistry());
+    }
+
+    public JwtAuthenticationFilter(String jwtSecret, long cacheSize, MeterRegistry meterRegistry) {
+        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+            .verifyWith(key)
+            .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfter(new UntilTokenExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+        this.validTokenTimer = meterRegistry.timer("webchecker.jwt.verification", "outcome", "valid");
+        this.invalidTokenTimer = meterRegistry.timer("webchecker.jwt.verification", "outcome", "invalid");
     }
 
     @Override
@@ -34,16 +72,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
+            long start = System.nanoTime();
             try {
-                SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-                Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-                String userId = claims.getSubject();
-                String email = claims.get("email", String.class);
+                VerifiedToken verified = resolve(token);
+                validTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+                String userId = verified.userId();
+                String email = verified.email();
                 
                 if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     UsernamePasswordAuthenticationToken authToken = 
@@ -57,10 +92,68 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception e) {
+                invalidTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 logger.error("JWT validation failed", e);
             }
         }
         
         filterChain.doFilter(request, response);
     }
+
+    VerifiedToken resolve(String token) {
+        VerifiedToken verified = verifiedTokens.get(hash(token), key -> verify(token));
+        if (verified.expiresAt() != null && !verified.expiresAt().isAfter(Instant.now())) {
+            // Expired since it was cached but not yet evicted; parsing rejects it
+            verifiedTokens.invalidate(hash(token));
+            return verify(token);
+        }
+        return verified;
+    }
+
+    Claims parseClaims(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    private VerifiedToken verify(String token) {
+        Claims claims = parseClaims(token);
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(
+            claims.getSubject(),
+            claims.get("email", String.class),
+            expiration != null ? expiration.toInstant() : null);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    record VerifiedToken(String userId, String email, Instant expiresAt) {}
+
+    private static class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long maxNanos = MAX_CACHE_TTL.toNanos();
+            if (value.expiresAt() == null) {
+                return maxNanos;
+            }
+            long untilExpiry = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -1,8 +1,11 @@
 package com.webchecker.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -16,7 +19,42 @@ public class SecurityConfig {
     @Value("${supabase.jwt.secret}")
     private String jwtSecret;
 
+    @Value("${supabase.jwt.cache-size:10000}")
+    private long jwtCacheSize;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    // Metrics are only served unauthenticated on the internal management port
+    @Value("${management.server.port:${server.port:8080}}")
+    private int managementPort;
+
+    @Value("${webchecker.scheduler.service-token:}")
+    private String schedulerServiceToken;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The scheduler feed lists every tenant's sites, so it only accepts the scheduler's
+     * service token and never a user JWT.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain schedulerFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/scheduler/**")
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(authz -> authz.anyRequest().hasRole("SCHEDULER"))
+            .addFilterBefore(new ServiceTokenAuthenticationFilter(schedulerServiceToken, "scheduler", "SCHEDULER"),
+                UsernamePasswordAuthenticationFilter.class);
+
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.and())
@@ -25,6 +63,9 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers(request -> managementPort != serverPort
+                    && request.getLocalPort() == managementPort
+                    && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 .anyRequest().authenticated()
             )
@@ -35,6 +76,6 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtSecret);
+        return new JwtAuthenticationFilter(jwtSecret, jwtCacheSize, meterRegistry);
     }
 }
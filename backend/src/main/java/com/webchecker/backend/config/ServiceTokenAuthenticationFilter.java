@@ -0,0 +1,49 @@
+package com.webchecker.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Authenticates internal services by a shared bearer token instead of a Supabase JWT.
+ * A matching token gets {@code ROLE_<role>}; with no token configured nothing is
+ * authenticated, so the endpoints behind this filter stay closed.
+ */
+public class ServiceTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private final byte[] token;
+    private final String principal;
+    private final String role;
+
+    public ServiceTokenAuthenticationFilter(String token, String principal, String role) {
+        this.token = token == null ? new byte[0] : token.getBytes(StandardCharsets.UTF_8);
+        this.principal = principal;
+        this.role = role;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+        String authHeader = request.getHeader("Authorization");
+
+        if (token.length > 0 && authHeader != null && authHeader.startsWith("Bearer ")) {
+            byte[] presented = authHeader.substring(7).getBytes(StandardCharsets.UTF_8);
+            if (MessageDigest.isEqual(token, presented)) {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + role))));
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,13 +1,30 @@
 package com.webchecker.backend.controller;
 
 import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.dto.CheckResultPageDto;
+import com.webchecker.backend.dto.LatencyBaselineDto;
+import com.webchecker.backend.dto.LatencyPercentilesDto;
+import com.webchecker.backend.dto.SloStatusDto;
+import com.webchecker.backend.dto.SparklineDto;
+import com.webchecker.backend.dto.UptimeStatsDto;
+import com.webchecker.backend.exception.ExportLimitExceededException;
+import com.webchecker.backend.exception.SiteNotFoundException;
+import com.webchecker.backend.service.CheckResultExportService;
 import com.webchecker.backend.service.CheckResultService;
+import com.webchecker.backend.service.TimeWindow;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,24 +35,175 @@ public class CheckResultController {
     @Autowired
     private CheckResultService checkResultService;
     
+    @Autowired
+    private CheckResultExportService checkResultExportService;
+    
     @GetMapping("/recent")
-    public ResponseEntity<List<CheckResultDto>> getRecentChecks(Authentication authentication) {
-        String userId = authentication.getName();
-        List<CheckResultDto> checks = checkResultService.getRecentChecksByUserId(userId);
-        return ResponseEntity.ok(checks);
+    public ResponseEntity<CheckResultPageDto> getRecentChecks(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            CheckResultPageDto checks = checkResultService.getRecentChecksByUserId(userId, since, until, cursor, limit);
+            return ResponseEntity.ok(checks);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/site/{siteId}")
-    public ResponseEntity<List<CheckResultDto>> getChecksBySite(@PathVariable Long siteId, Authentication authentication) {
-        String userId = authentication.getName();
-        List<CheckResultDto> checks = checkResultService.getChecksBySiteId(siteId, userId);
-        return ResponseEntity.ok(checks);
+    public ResponseEntity<CheckResultPageDto> getChecksBySite(
+            @PathVariable Long siteId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            CheckResultPageDto checks = checkResultService.getChecksBySiteId(siteId, userId, since, until, cursor, limit);
+            return ResponseEntity.ok(checks);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
     
     @GetMapping("/site/{siteId}/uptime")
-    public ResponseEntity<Double> getUptimePercentage(@PathVariable Long siteId, Authentication authentication) {
-        String userId = authentication.getName();
-        Double uptime = checkResultService.calculateUptimePercentage(siteId, userId);
-        return ResponseEntity.ok(uptime);
+    public ResponseEntity<Double> getUptimePercentage(
+            @PathVariable Long siteId,
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            Double uptime = checkResultService.calculateUptimePercentage(siteId, userId, TimeWindow.resolve(window, since, until));
+            return ResponseEntity.ok(uptime);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/uptime/stats")
+    public ResponseEntity<UptimeStatsDto> getUptimeStats(
+            @PathVariable Long siteId,
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            UptimeStatsDto stats = checkResultService.getUptimeStats(siteId, userId, TimeWindow.resolve(window, since, until));
+            return ResponseEntity.ok(stats);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/latency")
+    public ResponseEntity<LatencyPercentilesDto> getLatencyPercentiles(
+            @PathVariable Long siteId,
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            LatencyPercentilesDto percentiles = checkResultService.getLatencyPercentiles(siteId, userId, TimeWindow.resolve(window, since, until));
+            return ResponseEntity.ok(percentiles);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/baseline")
+    public ResponseEntity<LatencyBaselineDto> getLatencyBaseline(@PathVariable Long siteId,
+                                                                 Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            return ResponseEntity.ok(checkResultService.getLatencyBaseline(siteId, userId));
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/slo")
+    public ResponseEntity<SloStatusDto> getSlo(@PathVariable Long siteId, Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            SloStatusDto slo = checkResultService.getSlo(siteId, userId);
+            return slo != null ? ResponseEntity.ok(slo) : ResponseEntity.notFound().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/recent")
+    public ResponseEntity<List<CheckResultDto>> getLatestChecks(
+            @PathVariable Long siteId,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            return ResponseEntity.ok(checkResultService.getLatestChecks(siteId, userId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/sparkline")
+    public ResponseEntity<SparklineDto> getSparkline(
+            @PathVariable Long siteId,
+            @RequestParam(defaultValue = "100") int points,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            return ResponseEntity.ok(checkResultService.getSparkline(siteId, userId, points));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/site/{siteId}/export")
+    public ResponseEntity<StreamingResponseBody> exportChecks(
+            @PathVariable Long siteId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication,
+            HttpServletRequest request) {
+        try {
+            String userId = authentication.getName();
+            CheckResultExportService.Export export = checkResultExportService.export(
+                siteId, userId, since, until, CheckResultExportService.Format.parse(format), gzip);
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("export", export.lifecycle());
+            return ResponseEntity.ok()
+                .contentType(export.contentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(export.filename()).build().toString())
+                .body(export.body());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ExportLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "5").build();
+        } catch (SiteNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
 }
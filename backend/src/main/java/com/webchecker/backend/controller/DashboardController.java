@@ -0,0 +1,29 @@
+package com.webchecker.backend.controller;
+
+import com.webchecker.backend.dto.DashboardSummaryDto;
+import com.webchecker.backend.service.DashboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "*")
+public class DashboardController {
+    
+    @Autowired
+    private DashboardService dashboardService;
+    
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummaryDto> getSummary(Authentication authentication) {
+        String userId = authentication.getName();
+        DashboardSummaryDto summary = dashboardService.getSummary(userId);
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(dashboardService.getCacheSeconds(), TimeUnit.SECONDS).cachePrivate())
+            .body(summary);
+    }
+}
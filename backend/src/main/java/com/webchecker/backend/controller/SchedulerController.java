@@ -0,0 +1,26 @@
+package com.webchecker.backend.controller;
+
+import com.webchecker.backend.dto.SiteFeedDto;
+import com.webchecker.backend.service.SchedulerFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/scheduler")
+@CrossOrigin(origins = "*")
+public class SchedulerController {
+    
+    @Autowired
+    private SchedulerFeedService schedulerFeedService;
+    
+    @GetMapping("/sites")
+    public ResponseEntity<SiteFeedDto> getSites(@RequestParam(defaultValue = "0") long since,
+                                                @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(schedulerFeedService.getChangesSince(since, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
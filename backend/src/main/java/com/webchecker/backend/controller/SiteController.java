@@ -1,6 +1,7 @@
 package com.webchecker.backend.controller;
 
 import com.webchecker.backend.dto.SiteDto;
+import com.webchecker.backend.dto.SitePageDto;
 import com.webchecker.backend.service.SiteService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,8 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/sites")
 @CrossOrigin(origins = "*")
@@ -20,10 +19,19 @@ public class SiteController {
     private SiteService siteService;
     
     @GetMapping
-    public ResponseEntity<List<SiteDto>> getSites(Authentication authentication) {
-        String userId = authentication.getName();
-        List<SiteDto> sites = siteService.getSitesByUserId(userId);
-        return ResponseEntity.ok(sites);
+    public ResponseEntity<SitePageDto> getSites(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            Authentication authentication) {
+        try {
+            String userId = authentication.getName();
+            SitePageDto sites = siteService.getSitesByUserId(userId, page, size, sort, direction);
+            return ResponseEntity.ok(sites);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/{id}")
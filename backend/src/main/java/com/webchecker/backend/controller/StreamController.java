@@ -0,0 +1,26 @@
+package com.webchecker.backend.controller;
+
+import com.webchecker.backend.service.LiveUpdateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin(origins = "*")
+public class StreamController {
+    
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+    
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+                             @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam,
+                             Authentication authentication) {
+        String userId = authentication.getName();
+        Long lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return liveUpdateService.subscribe(userId, lastEventId);
+    }
+}
@@ -1,43 +1,259 @@
 package com.webchecker.backend.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.dto.BatchItemResultDto;
 import com.webchecker.backend.dto.CheckResultDto;
 import com.webchecker.backend.entity.CheckResult;
 import com.webchecker.backend.service.CheckResultService;
+import com.webchecker.backend.service.IngestQueueService;
+import com.webchecker.backend.service.ResultDeduplicator;
+import com.webchecker.backend.service.ResultSpoolService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/worker")
 @CrossOrigin(origins = "*")
 public class WorkerController {
     
+    static final String NDJSON = "application/x-ndjson";
+    
     @Autowired
     private CheckResultService checkResultService;
     
+    @Autowired
+    private IngestQueueService ingestQueueService;
+    
+    @Autowired
+    private ResultSpoolService resultSpool;
+    
+    @Autowired
+    private ResultDeduplicator resultDeduplicator;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.ingest.max-batch-size:1000}")
+    private int maxBatchSize;
+    
+    private Counter acceptedResults;
+    private Counter rejectedResults;
+    private Counter duplicateResults;
+    private Counter failedResults;
+    private DistributionSummary batchSizes;
+    
+    @PostConstruct
+    void initMetrics() {
+        // webchecker.ingest.results rate() gives the ingest rate in results per second
+        acceptedResults = meterRegistry.counter("webchecker.ingest.results", "outcome", "accepted");
+        rejectedResults = meterRegistry.counter("webchecker.ingest.results", "outcome", "rejected");
+        duplicateResults = meterRegistry.counter("webchecker.ingest.results", "outcome", "duplicate");
+        failedResults = meterRegistry.counter("webchecker.ingest.results", "outcome", "failed");
+        batchSizes = DistributionSummary.builder("webchecker.ingest.batch.size")
+            .baseUnit("results")
+            .register(meterRegistry);
+    }
+    
     @PostMapping("/check-result")
     public ResponseEntity<CheckResultDto> submitCheckResult(@Valid @RequestBody CheckResultDto checkResultDto) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        CheckResult checkResult = convertToEntity(checkResultDto);
+        // A worker retry of a result already admitted gets the same answer as an idempotent replay
+        if (!resultDeduplicator.claim(checkResult)) {
+            duplicateResults.increment();
+            sample.stop(meterRegistry.timer("webchecker.ingest.requests", "endpoint", "single", "outcome", "duplicate"));
+            return ResponseEntity.ok().build();
+        }
         try {
-            CheckResult checkResult = convertToEntity(checkResultDto);
-            CheckResultDto savedResult = checkResultService.saveCheckResult(checkResult);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedResult);
+            if (ingestQueueService.isEnabled()) {
+                if (!ingestQueueService.offerAll(List.of(checkResult))) {
+                    outcome = "queue_full";
+                    resultDeduplicator.release(checkResult);
+                    return queueFull();
+                }
+                acceptedResults.increment();
+                return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+            }
+            if (resultSpool.hasBacklog() && resultSpool.append(List.of(checkResult))) {
+                outcome = "spooled";
+                acceptedResults.increment();
+                return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+            }
+            try {
+                CheckResultDto savedResult = checkResultService.saveCheckResult(checkResult);
+                if (savedResult.getId() == null) {
+                    outcome = "duplicate";
+                    duplicateResults.increment();
+                    return ResponseEntity.ok(savedResult);
+                }
+                acceptedResults.increment();
+                return ResponseEntity.status(HttpStatus.CREATED).body(savedResult);
+            } catch (RuntimeException e) {
+                // Replayed once the database is back, so the worker must not resend it
+                if (ResultSpoolService.isDatabaseUnavailable(e) && resultSpool.append(List.of(checkResult))) {
+                    outcome = "spooled";
+                    acceptedResults.increment();
+                    return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+                }
+                throw e;
+            }
         } catch (Exception e) {
+            outcome = "error";
+            failedResults.increment();
+            resultDeduplicator.release(checkResult);
             return ResponseEntity.badRequest().build();
+        } finally {
+            sample.stop(meterRegistry.timer("webchecker.ingest.requests", "endpoint", "single", "outcome", outcome));
         }
     }
     
-    private CheckResult convertToEntity(CheckResultDto dto) {
-        CheckResult checkResult = new CheckResult();
-        checkResult.setSiteId(dto.getSiteId());
-        checkResult.setStatus(dto.getStatus());
-        checkResult.setResponseTime(dto.getResponseTime());
-        checkResult.setStatusCode(dto.getStatusCode());
-        checkResult.setError(dto.getError());
-        checkResult.setSeoScore(dto.getSeoScore());
-        checkResult.setUserId("worker"); // Worker submissions don't have user context
-        return checkResult;
+    @PostMapping(value = "/check-results:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResultDto>> submitCheckResults(@RequestBody List<CheckResultDto> checkResultDtos) {
+        return submitBatch(checkResultDtos);
+    }
+    
+    @PostMapping(value = "/check-results:batch", consumes = NDJSON)
+    public ResponseEntity<List<BatchItemResultDto>> submitCheckResultStream(InputStream body) {
+        List<CheckResultDto> checkResultDtos = new ArrayList<>();
+        try (MappingIterator<CheckResultDto> it = objectMapper.readerFor(CheckResultDto.class).readValues(body)) {
+            while (it.hasNextValue()) {
+                checkResultDtos.add(it.nextValue());
+            }
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return submitBatch(checkResultDtos);
+    }
+    
+    private ResponseEntity<List<BatchItemResultDto>> submitBatch(List<CheckResultDto> checkResultDtos) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ResponseEntity<List<BatchItemResultDto>> response = doSubmitBatch(checkResultDtos);
+            outcome = response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS ? "queue_full" : "success";
+            return response;
+        } finally {
+            sample.stop(meterRegistry.timer("webchecker.ingest.requests", "endpoint", "batch", "outcome", outcome));
+        }
+    }
+    
+    private ResponseEntity<List<BatchItemResultDto>> doSubmitBatch(List<CheckResultDto> checkResultDtos) {
+        batchSizes.record(checkResultDtos.size());
+        if (checkResultDtos.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        
+        BatchItemResultDto[] results = new BatchItemResultDto[checkResultDtos.size()];
+        List<CheckResult> accepted = new ArrayList<>(checkResultDtos.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(checkResultDtos.size());
+        
+        for (int i = 0; i < checkResultDtos.size(); i++) {
+            CheckResultDto dto = checkResultDtos.get(i);
+            if (dto == null) {
+                results[i] = new BatchItemResultDto(i, null, BatchItemResultDto.ItemStatus.REJECTED, "Empty item");
+                rejectedResults.increment();
+                continue;
+            }
+            CheckResult checkResult = convertToEntity(dto);
+            Set<ConstraintViolation<CheckResult>> violations = validator.validate(checkResult);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .collect(Collectors.joining(", "));
+                results[i] = new BatchItemResultDto(i, null, BatchItemResultDto.ItemStatus.REJECTED, error);
+                rejectedResults.increment();
+                continue;
+            }
+            if (!resultDeduplicator.claim(checkResult)) {
+                results[i] = new BatchItemResultDto(i, null, BatchItemResultDto.ItemStatus.DUPLICATE, null);
+                duplicateResults.increment();
+                continue;
+            }
+            accepted.add(checkResult);
+            acceptedIndexes.add(i);
+        }
+        
+        if (!accepted.isEmpty() && ingestQueueService.isEnabled()) {
+            // All or nothing, so workers can simply resend the whole batch after a 429
+            if (!ingestQueueService.offerAll(accepted)) {
+                resultDeduplicator.releaseAll(accepted);
+                return queueFull();
+            }
+            markQueued(results, acceptedIndexes);
+            acceptedResults.increment(accepted.size());
+        } else if (!accepted.isEmpty() && resultSpool.hasBacklog() && resultSpool.append(accepted)) {
+            markQueued(results, acceptedIndexes);
+            acceptedResults.increment(accepted.size());
+        } else if (!accepted.isEmpty()) {
+            try {
+                List<CheckResultDto> saved = checkResultService.saveCheckResults(accepted);
+                for (int i = 0; i < saved.size(); i++) {
+                    int index = acceptedIndexes.get(i);
+                    Long id = saved.get(i).getId();
+                    if (id == null) {
+                        results[index] = new BatchItemResultDto(index, null, BatchItemResultDto.ItemStatus.DUPLICATE, null);
+                        duplicateResults.increment();
+                    } else {
+                        results[index] = new BatchItemResultDto(index, id, BatchItemResultDto.ItemStatus.ACCEPTED, null);
+                        acceptedResults.increment();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (ResultSpoolService.isDatabaseUnavailable(e) && resultSpool.append(accepted)) {
+                    markQueued(results, acceptedIndexes);
+                    acceptedResults.increment(accepted.size());
+                    return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(List.of(results));
+                }
+                for (int index : acceptedIndexes) {
+                    results[index] = new BatchItemResultDto(index, null, BatchItemResultDto.ItemStatus.FAILED, e.getMessage());
+                }
+                failedResults.increment(acceptedIndexes.size());
+                resultDeduplicator.releaseAll(accepted);
+            }
+        }
+        
+        return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(List.of(results));
+    }
+    
+    private static void markQueued(BatchItemResultDto[] results, List<Integer> indexes) {
+        for (int index : indexes) {
+            results[index] = new BatchItemResultDto(index, null, BatchItemResultDto.ItemStatus.QUEUED, null);
+        }
+    }
+    
+    private static <T> ResponseEntity<T> queueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").build();
+    }
+    
+    CheckResult convertToEntity(CheckResultDto dto) {
+        return CheckResultService.fromWorkerResult(dto);
     }
 }
@@ -0,0 +1,35 @@
+package com.webchecker.backend.dto;
+
+public class BatchItemResultDto {
+    
+    private int index;
+    private Long id;
+    private ItemStatus status;
+    private String error;
+    
+    public enum ItemStatus {
+        ACCEPTED, QUEUED, DUPLICATE, REJECTED, FAILED
+    }
+    
+    public BatchItemResultDto() {}
+    
+    public BatchItemResultDto(int index, Long id, ItemStatus status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+    
+    // Getters and setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public ItemStatus getStatus() { return status; }
+    public void setStatus(ItemStatus status) { this.status = status; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
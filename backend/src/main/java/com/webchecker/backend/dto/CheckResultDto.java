@@ -13,6 +13,8 @@ public class CheckResultDto {
     private Integer statusCode;
     private String error;
     private Integer seoScore;
+    private Double anomalyScore;
+    private String jobId;
     
     // Getters and setters
     public Long getId() { return id; }
@@ -38,4 +40,10 @@ public class CheckResultDto {
     
     public Integer getSeoScore() { return seoScore; }
     public void setSeoScore(Integer seoScore) { this.seoScore = seoScore; }
+    
+    public Double getAnomalyScore() { return anomalyScore; }
+    public void setAnomalyScore(Double anomalyScore) { this.anomalyScore = anomalyScore; }
+    
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
 }
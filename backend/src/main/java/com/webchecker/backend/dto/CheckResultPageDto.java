@@ -0,0 +1,23 @@
+package com.webchecker.backend.dto;
+
+import java.util.List;
+
+public class CheckResultPageDto {
+    
+    private List<CheckResultDto> items;
+    private String nextCursor; // null when there are no further results
+    
+    public CheckResultPageDto() {}
+    
+    public CheckResultPageDto(List<CheckResultDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and setters
+    public List<CheckResultDto> getItems() { return items; }
+    public void setItems(List<CheckResultDto> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,41 @@
+package com.webchecker.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class DashboardSummaryDto {
+    
+    private LocalDateTime generatedAt;
+    private int totalSites;
+    private int activeSites;
+    private long totalChecks; // last 24 hours, all sites
+    private Double averageResponseTime;
+    private Double uptime;
+    private long activeIncidents;
+    private List<SiteSummaryDto> sites;
+    
+    // Getters and setters
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    
+    public int getTotalSites() { return totalSites; }
+    public void setTotalSites(int totalSites) { this.totalSites = totalSites; }
+    
+    public int getActiveSites() { return activeSites; }
+    public void setActiveSites(int activeSites) { this.activeSites = activeSites; }
+    
+    public long getTotalChecks() { return totalChecks; }
+    public void setTotalChecks(long totalChecks) { this.totalChecks = totalChecks; }
+    
+    public Double getAverageResponseTime() { return averageResponseTime; }
+    public void setAverageResponseTime(Double averageResponseTime) { this.averageResponseTime = averageResponseTime; }
+    
+    public Double getUptime() { return uptime; }
+    public void setUptime(Double uptime) { this.uptime = uptime; }
+    
+    public long getActiveIncidents() { return activeIncidents; }
+    public void setActiveIncidents(long activeIncidents) { this.activeIncidents = activeIncidents; }
+    
+    public List<SiteSummaryDto> getSites() { return sites; }
+    public void setSites(List<SiteSummaryDto> sites) { this.sites = sites; }
+}
@@ -0,0 +1,40 @@
+package com.webchecker.backend.dto;
+
+import java.time.LocalDateTime;
+
+public class LatencyBaselineDto {
+    
+    private Long siteId;
+    private long samples;
+    private boolean scoring;
+    private Double mean;
+    private Double stddev;
+    private double threshold;
+    private Double lastScore;
+    private LocalDateTime updatedAt;
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public long getSamples() { return samples; }
+    public void setSamples(long samples) { this.samples = samples; }
+    
+    public boolean isScoring() { return scoring; }
+    public void setScoring(boolean scoring) { this.scoring = scoring; }
+    
+    public Double getMean() { return mean; }
+    public void setMean(Double mean) { this.mean = mean; }
+    
+    public Double getStddev() { return stddev; }
+    public void setStddev(Double stddev) { this.stddev = stddev; }
+    
+    public double getThreshold() { return threshold; }
+    public void setThreshold(double threshold) { this.threshold = threshold; }
+    
+    public Double getLastScore() { return lastScore; }
+    public void setLastScore(Double lastScore) { this.lastScore = lastScore; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,44 @@
+package com.webchecker.backend.dto;
+
+import java.time.LocalDateTime;
+
+public class LatencyPercentilesDto {
+    
+    private Long siteId;
+    private LocalDateTime since;
+    private LocalDateTime until;
+    private long count;
+    private Long p50;
+    private Long p90;
+    private Long p95;
+    private Long p99;
+    private Long max;
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public LocalDateTime getSince() { return since; }
+    public void setSince(LocalDateTime since) { this.since = since; }
+    
+    public LocalDateTime getUntil() { return until; }
+    public void setUntil(LocalDateTime until) { this.until = until; }
+    
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    
+    public Long getP50() { return p50; }
+    public void setP50(Long p50) { this.p50 = p50; }
+    
+    public Long getP90() { return p90; }
+    public void setP90(Long p90) { this.p90 = p90; }
+    
+    public Long getP95() { return p95; }
+    public void setP95(Long p95) { this.p95 = p95; }
+    
+    public Long getP99() { return p99; }
+    public void setP99(Long p99) { this.p99 = p99; }
+    
+    public Long getMax() { return max; }
+    public void setMax(Long max) { this.max = max; }
+}
@@ -0,0 +1,52 @@
+package com.webchecker.backend.dto;
+
+public class SchedulerSiteDto {
+    
+    private Long id;
+    private String name;
+    private String url;
+    private Integer checkInterval;
+    private Integer timeout;
+    private Boolean enabled;
+    private String userId;
+    private Long changeVersion;
+    
+    public SchedulerSiteDto() {}
+    
+    public SchedulerSiteDto(Long id, String name, String url, Integer checkInterval, Integer timeout,
+                            Boolean enabled, String userId, Long changeVersion) {
+        this.id = id;
+        this.name = name;
+        this.url = url;
+        this.checkInterval = checkInterval;
+        this.timeout = timeout;
+        this.enabled = enabled;
+        this.userId = userId;
+        this.changeVersion = changeVersion;
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    
+    public Integer getCheckInterval() { return checkInterval; }
+    public void setCheckInterval(Integer checkInterval) { this.checkInterval = checkInterval; }
+    
+    public Integer getTimeout() { return timeout; }
+    public void setTimeout(Integer timeout) { this.timeout = timeout; }
+    
+    public Boolean getEnabled() { return enabled; }
+    public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+    
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
+}
@@ -35,6 +35,23 @@ public class SiteDto {
     
     private Boolean enabled = true;
     
+    public SiteDto() {}
+    
+    // Listing projection; query params are attached separately
+    public SiteDto(Long id, String name, String url, Integer checkInterval, Integer timeout, String healthEndpoint,
+                   Boolean enabled, Integer uptimePercent, Integer maxLatency, Integer seoScore) {
+        this.id = id;
+        this.name = name;
+        this.url = url;
+        this.checkInterval = checkInterval;
+        this.timeout = timeout;
+        this.healthEndpoint = healthEndpoint;
+        this.enabled = enabled;
+        this.thresholds.setUptimePercent(uptimePercent);
+        this.thresholds.setMaxLatency(maxLatency);
+        this.thresholds.setSeoScore(seoScore);
+    }
+    
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
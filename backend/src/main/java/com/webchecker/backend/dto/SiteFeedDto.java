@@ -0,0 +1,33 @@
+package com.webchecker.backend.dto;
+
+import java.util.List;
+
+public class SiteFeedDto {
+    
+    private long version; // pass back as "since" on the next call
+    private List<SchedulerSiteDto> sites; // enabled sites created or changed after "since"
+    private List<Long> removed; // sites deleted or disabled after "since"
+    private boolean hasMore;
+    
+    public SiteFeedDto() {}
+    
+    public SiteFeedDto(long version, List<SchedulerSiteDto> sites, List<Long> removed, boolean hasMore) {
+        this.version = version;
+        this.sites = sites;
+        this.removed = removed;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and setters
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    
+    public List<SchedulerSiteDto> getSites() { return sites; }
+    public void setSites(List<SchedulerSiteDto> sites) { this.sites = sites; }
+    
+    public List<Long> getRemoved() { return removed; }
+    public void setRemoved(List<Long> removed) { this.removed = removed; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,33 @@
+package com.webchecker.backend.dto;
+
+import java.util.List;
+
+public class SitePageDto {
+    
+    private List<SiteDto> items;
+    private int page;
+    private int size;
+    private long totalElements;
+    
+    public SitePageDto() {}
+    
+    public SitePageDto(List<SiteDto> items, int page, int size, long totalElements) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+    
+    // Getters and setters
+    public List<SiteDto> getItems() { return items; }
+    public void setItems(List<SiteDto> items) { this.items = items; }
+    
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    
+    public long getTotalElements() { return totalElements; }
+    public void setTotalElements(long totalElements) { this.totalElements = totalElements; }
+}
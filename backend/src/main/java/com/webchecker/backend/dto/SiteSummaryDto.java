@@ -0,0 +1,54 @@
+package com.webchecker.backend.dto;
+
+import com.webchecker.backend.entity.CheckResult;
+
+import java.time.LocalDateTime;
+
+public class SiteSummaryDto {
+    
+    private Long siteId;
+    private String name;
+    private String url;
+    private Boolean enabled;
+    private CheckResult.CheckStatus lastStatus; // null without a check in the last two days
+    private Integer lastResponseTime;
+    private LocalDateTime lastCheckedAt;
+    private long checks24h;
+    private Double uptime24h; // null without checks in the window
+    private Long p95Latency24h;
+    private long activeIncidents;
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    
+    public Boolean getEnabled() { return enabled; }
+    public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+    
+    public CheckResult.CheckStatus getLastStatus() { return lastStatus; }
+    public void setLastStatus(CheckResult.CheckStatus lastStatus) { this.lastStatus = lastStatus; }
+    
+    public Integer getLastResponseTime() { return lastResponseTime; }
+    public void setLastResponseTime(Integer lastResponseTime) { this.lastResponseTime = lastResponseTime; }
+    
+    public LocalDateTime getLastCheckedAt() { return lastCheckedAt; }
+    public void setLastCheckedAt(LocalDateTime lastCheckedAt) { this.lastCheckedAt = lastCheckedAt; }
+    
+    public long getChecks24h() { return checks24h; }
+    public void setChecks24h(long checks24h) { this.checks24h = checks24h; }
+    
+    public Double getUptime24h() { return uptime24h; }
+    public void setUptime24h(Double uptime24h) { this.uptime24h = uptime24h; }
+    
+    public Long getP95Latency24h() { return p95Latency24h; }
+    public void setP95Latency24h(Long p95Latency24h) { this.p95Latency24h = p95Latency24h; }
+    
+    public long getActiveIncidents() { return activeIncidents; }
+    public void setActiveIncidents(long activeIncidents) { this.activeIncidents = activeIncidents; }
+}
@@ -0,0 +1,49 @@
+package com.webchecker.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SloStatusDto {
+    
+    private Long siteId;
+    private int targetPercent;
+    private int periodDays;
+    private long totalChecks;
+    private long failedChecks;
+    private Double uptimePercent;
+    private Double budgetRemaining;
+    private List<SloWindowDto> windows;
+    private List<String> alerts;
+    private LocalDateTime evaluatedAt;
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public int getTargetPercent() { return targetPercent; }
+    public void setTargetPercent(int targetPercent) { this.targetPercent = targetPercent; }
+    
+    public int getPeriodDays() { return periodDays; }
+    public void setPeriodDays(int periodDays) { this.periodDays = periodDays; }
+    
+    public long getTotalChecks() { return totalChecks; }
+    public void setTotalChecks(long totalChecks) { this.totalChecks = totalChecks; }
+    
+    public long getFailedChecks() { return failedChecks; }
+    public void setFailedChecks(long failedChecks) { this.failedChecks = failedChecks; }
+    
+    public Double getUptimePercent() { return uptimePercent; }
+    public void setUptimePercent(Double uptimePercent) { this.uptimePercent = uptimePercent; }
+    
+    public Double getBudgetRemaining() { return budgetRemaining; }
+    public void setBudgetRemaining(Double budgetRemaining) { this.budgetRemaining = budgetRemaining; }
+    
+    public List<SloWindowDto> getWindows() { return windows; }
+    public void setWindows(List<SloWindowDto> windows) { this.windows = windows; }
+    
+    public List<String> getAlerts() { return alerts; }
+    public void setAlerts(List<String> alerts) { this.alerts = alerts; }
+    
+    public LocalDateTime getEvaluatedAt() { return evaluatedAt; }
+    public void setEvaluatedAt(LocalDateTime evaluatedAt) { this.evaluatedAt = evaluatedAt; }
+}
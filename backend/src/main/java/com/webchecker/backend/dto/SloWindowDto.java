@@ -0,0 +1,31 @@
+package com.webchecker.backend.dto;
+
+public class SloWindowDto {
+    
+    private String window;
+    private long totalChecks;
+    private long failedChecks;
+    private Double burnRate;
+    
+    public SloWindowDto() {}
+    
+    public SloWindowDto(String window, long totalChecks, long failedChecks, Double burnRate) {
+        this.window = window;
+        this.totalChecks = totalChecks;
+        this.failedChecks = failedChecks;
+        this.burnRate = burnRate;
+    }
+    
+    // Getters and setters
+    public String getWindow() { return window; }
+    public void setWindow(String window) { this.window = window; }
+    
+    public long getTotalChecks() { return totalChecks; }
+    public void setTotalChecks(long totalChecks) { this.totalChecks = totalChecks; }
+    
+    public long getFailedChecks() { return failedChecks; }
+    public void setFailedChecks(long failedChecks) { this.failedChecks = failedChecks; }
+    
+    public Double getBurnRate() { return burnRate; }
+    public void setBurnRate(Double burnRate) { this.burnRate = burnRate; }
+}
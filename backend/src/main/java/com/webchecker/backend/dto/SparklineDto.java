@@ -0,0 +1,31 @@
+package com.webchecker.backend.dto;
+
+import com.webchecker.backend.entity.CheckResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A site's most recent checks as parallel columns, oldest first, for drawing
+ * response-time sparklines without a full result per point.
+ */
+public class SparklineDto {
+    
+    private Long siteId;
+    private List<LocalDateTime> timestamps;
+    private int[] responseTimes;
+    private List<CheckResult.CheckStatus> statuses;
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public List<LocalDateTime> getTimestamps() { return timestamps; }
+    public void setTimestamps(List<LocalDateTime> timestamps) { this.timestamps = timestamps; }
+    
+    public int[] getResponseTimes() { return responseTimes; }
+    public void setResponseTimes(int[] responseTimes) { this.responseTimes = responseTimes; }
+    
+    public List<CheckResult.CheckStatus> getStatuses() { return statuses; }
+    public void setStatuses(List<CheckResult.CheckStatus> statuses) { this.statuses = statuses; }
+}
@@ -0,0 +1,52 @@
+package com.webchecker.backend.dto;
+
+import java.time.LocalDateTime;
+
+public class UptimeStatsDto {
+    
+    private Long siteId;
+    private LocalDateTime since;
+    private LocalDateTime until;
+    private long totalChecks;
+    private long upChecks;
+    private long downChecks;
+    private long timeoutChecks;
+    private double uptimePercent;
+    private Double avgLatency;
+    private Integer minLatency;
+    private Integer maxLatency;
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public LocalDateTime getSince() { return since; }
+    public void setSince(LocalDateTime since) { this.since = since; }
+    
+    public LocalDateTime getUntil() { return until; }
+    public void setUntil(LocalDateTime until) { this.until = until; }
+    
+    public long getTotalChecks() { return totalChecks; }
+    public void setTotalChecks(long totalChecks) { this.totalChecks = totalChecks; }
+    
+    public long getUpChecks() { return upChecks; }
+    public void setUpChecks(long upChecks) { this.upChecks = upChecks; }
+    
+    public long getDownChecks() { return downChecks; }
+    public void setDownChecks(long downChecks) { this.downChecks = downChecks; }
+    
+    public long getTimeoutChecks() { return timeoutChecks; }
+    public void setTimeoutChecks(long timeoutChecks) { this.timeoutChecks = timeoutChecks; }
+    
+    public double getUptimePercent() { return uptimePercent; }
+    public void setUptimePercent(double uptimePercent) { this.uptimePercent = uptimePercent; }
+    
+    public Double getAvgLatency() { return avgLatency; }
+    public void setAvgLatency(Double avgLatency) { this.avgLatency = avgLatency; }
+    
+    public Integer getMinLatency() { return minLatency; }
+    public void setMinLatency(Integer minLatency) { this.minLatency = minLatency; }
+    
+    public Integer getMaxLatency() { return maxLatency; }
+    public void setMaxLatency(Integer maxLatency) { this.maxLatency = maxLatency; }
+}
@@ -2,10 +2,16 @@ package com.webchecker.backend.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "check_results")
+@Table(name = "check_results", indexes = {
+    @Index(name = "idx_check_results_site_timestamp", columnList = "site_id, timestamp DESC, id DESC"),
+    @Index(name = "idx_check_results_user_timestamp", columnList = "user_id, timestamp DESC, id DESC"),
+    // Unique indexes on a partitioned table must include the partition key
+    @Index(name = "uk_check_results_job_id_timestamp", columnList = "job_id, timestamp", unique = true)
+})
 public class CheckResult {
     
     @Id
@@ -37,9 +43,16 @@ public class CheckResult {
     @Column(name = "seo_score")
     private Integer seoScore;
     
+    @Column(name = "anomaly_score")
+    private Double anomalyScore; // response time z-score against the site's baseline; null when not scored
+    
     @Column(name = "user_id")
     private String userId; // Supabase user ID
     
+    @Size(max = 64)
+    @Column(name = "job_id", length = 64)
+    private String jobId; // Redis id of the check job; null for results without one
+    
     public enum CheckStatus {
         UP, DOWN, TIMEOUT
     }
@@ -80,6 +93,12 @@ public class CheckResult {
     public Integer getSeoScore() { return seoScore; }
     public void setSeoScore(Integer seoScore) { this.seoScore = seoScore; }
     
+    public Double getAnomalyScore() { return anomalyScore; }
+    public void setAnomalyScore(Double anomalyScore) { this.anomalyScore = anomalyScore; }
+    
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
+    
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
 }
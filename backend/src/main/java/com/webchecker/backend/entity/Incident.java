@@ -38,7 +38,7 @@ public class Incident {
     private String userId; // Supabase user ID
     
     public enum IncidentType {
-        PAGE_DOWN, HEALTH_FAIL, SLOW_3G, SLOW_4G, SEO_DROP
+        PAGE_DOWN, HEALTH_FAIL, SLOW_3G, SLOW_4G, SEO_DROP, SLOW_ANOMALY, UPTIME_BREACH
     }
     
     public enum IncidentStatus {
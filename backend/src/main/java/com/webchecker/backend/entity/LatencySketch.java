@@ -0,0 +1,57 @@
+package com.webchecker.backend.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "latency_sketches", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_latency_sketches_bucket", columnNames = {"site_id", "resolution", "bucket_start"})
+})
+public class LatencySketch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull
+    @Column(name = "site_id")
+    private Long siteId;
+    
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private UptimeRollup.Resolution resolution;
+    
+    @NotNull
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    @NotNull
+    @Column(name = "histogram", columnDefinition = "bytea")
+    private byte[] histogram; // compressed HdrHistogram of response times in milliseconds
+    
+    // Constructors
+    public LatencySketch() {}
+    
+    public LatencySketch(Long siteId, UptimeRollup.Resolution resolution, LocalDateTime bucketStart) {
+        this.siteId = siteId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public UptimeRollup.Resolution getResolution() { return resolution; }
+    public void setResolution(UptimeRollup.Resolution resolution) { this.resolution = resolution; }
+    
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+    
+    public byte[] getHistogram() { return histogram; }
+    public void setHistogram(byte[] histogram) { this.histogram = histogram; }
+}
@@ -0,0 +1,32 @@
+package com.webchecker.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One row per scheduling partition; the owning backend node keeps the lease alive.
+ * Claims and renewals go through SchedulerLeaseRepository.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+    
+    @Id
+    @Column(name = "partition_id")
+    private Integer partitionId;
+    
+    private String owner;
+    
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
+    // Getters and setters
+    public Integer getPartitionId() { return partitionId; }
+    public void setPartitionId(Integer partitionId) { this.partitionId = partitionId; }
+    
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,27 @@
+package com.webchecker.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Heartbeat of a backend node running the check scheduler, used to size each
+ * node's fair share of partitions.
+ */
+@Entity
+@Table(name = "scheduler_nodes")
+public class SchedulerNode {
+    
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+    
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
+    // Getters and setters
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -2,11 +2,15 @@ package com.webchecker.backend.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "sites")
+@Table(name = "sites", indexes = {
+    @Index(name = "idx_sites_change_version", columnList = "change_version"),
+    @Index(name = "idx_sites_user_created", columnList = "user_id, created_at")
+})
 public class Site {
     
     @Id
@@ -39,6 +43,7 @@ public class Site {
         @AttributeOverride(name = "value", column = @Column(name = "param_value"))
     })
     @Size(max = 3, message = "Maximum 3 query parameters allowed")
+    @BatchSize(size = 100)
     private List<QueryParam> queryParams;
     
     @Size(max = 255)
@@ -55,6 +60,10 @@ public class Site {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Assigned from site_change_version_seq on every write; drives the scheduler feed
+    @Column(name = "change_version")
+    private Long changeVersion;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -102,4 +111,7 @@ public class Site {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
 }
@@ -0,0 +1,45 @@
+package com.webchecker.backend.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Records a deleted site so incremental scheduler feeds can tell callers to drop it.
+ */
+@Entity
+@Table(name = "site_tombstones", indexes = {
+    @Index(name = "idx_site_tombstones_change_version", columnList = "change_version")
+})
+public class SiteTombstone {
+    
+    @Id
+    @Column(name = "site_id")
+    private Long siteId;
+    
+    @NotNull
+    @Column(name = "change_version")
+    private Long changeVersion;
+    
+    @NotNull
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
+    public SiteTombstone() {}
+    
+    public SiteTombstone(Long siteId, Long changeVersion) {
+        this.siteId = siteId;
+        this.changeVersion = changeVersion;
+        this.deletedAt = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
+    
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
@@ -0,0 +1,125 @@
+package com.webchecker.backend.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Entity
+@Table(name = "uptime_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_uptime_rollups_bucket", columnNames = {"site_id", "resolution", "bucket_start"})
+})
+public class UptimeRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull
+    @Column(name = "site_id")
+    private Long siteId;
+    
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private Resolution resolution;
+    
+    @NotNull
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    @Column(name = "total_count")
+    private long totalCount;
+    
+    @Column(name = "up_count")
+    private long upCount;
+    
+    @Column(name = "down_count")
+    private long downCount;
+    
+    @Column(name = "timeout_count")
+    private long timeoutCount;
+    
+    @Column(name = "latency_sum")
+    private long latencySum; // in milliseconds
+    
+    @Column(name = "latency_min")
+    private Integer latencyMin;
+    
+    @Column(name = "latency_max")
+    private Integer latencyMax;
+    
+    public enum Resolution {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+        
+        private final ChronoUnit unit;
+        
+        Resolution(ChronoUnit unit) {
+            this.unit = unit;
+        }
+        
+        public LocalDateTime bucketStart(LocalDateTime timestamp) {
+            return timestamp.truncatedTo(unit);
+        }
+        
+        public LocalDateTime ceil(LocalDateTime timestamp) {
+            LocalDateTime start = timestamp.truncatedTo(unit);
+            return start.equals(timestamp) ? start : start.plus(1, unit);
+        }
+    }
+    
+    // Constructors
+    public UptimeRollup() {}
+    
+    public UptimeRollup(Long siteId, Resolution resolution, LocalDateTime bucketStart) {
+        this.siteId = siteId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+    }
+    
+    public void add(CheckResult checkResult) {
+        totalCount++;
+        switch (checkResult.getStatus()) {
+            case UP -> upCount++;
+            case DOWN -> downCount++;
+            case TIMEOUT -> timeoutCount++;
+        }
+        int latency = checkResult.getResponseTime();
+        latencySum += latency;
+        latencyMin = latencyMin == null ? latency : Math.min(latencyMin, latency);
+        latencyMax = latencyMax == null ? latency : Math.max(latencyMax, latency);
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getSiteId() { return siteId; }
+    public void setSiteId(Long siteId) { this.siteId = siteId; }
+    
+    public Resolution getResolution() { return resolution; }
+    public void setResolution(Resolution resolution) { this.resolution = resolution; }
+    
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+    
+    public long getTotalCount() { return totalCount; }
+    public void setTotalCount(long totalCount) { this.totalCount = totalCount; }
+    
+    public long getUpCount() { return upCount; }
+    public void setUpCount(long upCount) { this.upCount = upCount; }
+    
+    public long getDownCount() { return downCount; }
+    public void setDownCount(long downCount) { this.downCount = downCount; }
+    
+    public long getTimeoutCount() { return timeoutCount; }
+    public void setTimeoutCount(long timeoutCount) { this.timeoutCount = timeoutCount; }
+    
+    public long getLatencySum() { return latencySum; }
+    public void setLatencySum(long latencySum) { this.latencySum = latencySum; }
+    
+    public Integer getLatencyMin() { return latencyMin; }
+    public void setLatencyMin(Integer latencyMin) { this.latencyMin = latencyMin; }
+    
+    public Integer getLatencyMax() { return latencyMax; }
+    public void setLatencyMax(Integer latencyMax) { this.latencyMax = latencyMax; }
+}
@@ -0,0 +1,21 @@
+package com.webchecker.backend.event;
+
+import com.webchecker.backend.entity.CheckResult;
+
+import java.util.List;
+
+/**
+ * Published by CheckResultService for every persisted batch of results. Listeners
+ * maintaining in-memory state should use {@code @TransactionalEventListener} so
+ * they only observe committed rows.
+ */
+public class CheckResultsSavedEvent {
+    
+    private final List<CheckResult> checkResults;
+    
+    public CheckResultsSavedEvent(List<CheckResult> checkResults) {
+        this.checkResults = checkResults;
+    }
+    
+    public List<CheckResult> getCheckResults() { return checkResults; }
+}
@@ -0,0 +1,17 @@
+package com.webchecker.backend.event;
+
+import com.webchecker.backend.entity.Incident;
+
+/**
+ * Published once an incident has been opened or resolved and committed.
+ */
+public class IncidentChangedEvent {
+    
+    private final Incident incident;
+    
+    public IncidentChangedEvent(Incident incident) {
+        this.incident = incident;
+    }
+    
+    public Incident getIncident() { return incident; }
+}
@@ -0,0 +1,26 @@
+package com.webchecker.backend.event;
+
+import com.webchecker.backend.entity.Site;
+
+/**
+ * Published by SiteService after a site is created, updated or deleted. For
+ * deletions the site is the last persisted state.
+ */
+public class SiteChangedEvent {
+    
+    private final Site site;
+    private final ChangeType changeType;
+    
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+    
+    public SiteChangedEvent(Site site, ChangeType changeType) {
+        this.site = site;
+        this.changeType = changeType;
+    }
+    
+    public Site getSite() { return site; }
+    
+    public ChangeType getChangeType() { return changeType; }
+}
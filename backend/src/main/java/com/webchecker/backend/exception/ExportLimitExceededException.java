@@ -0,0 +1,12 @@
+package com.webchecker.backend.exception;
+
+/**
+ * Too many exports are already streaming. Controllers answer it with 429 so the client
+ * retries; any other exception during an export keeps its own status.
+ */
+public class ExportLimitExceededException extends RuntimeException {
+    
+    public ExportLimitExceededException(int limit) {
+        super("Too many concurrent exports (limit " + limit + ")");
+    }
+}
@@ -0,0 +1,12 @@
+package com.webchecker.backend.exception;
+
+/**
+ * The site does not exist or belongs to another user. Controllers answer it with 404;
+ * any other exception is a server error and propagates as such.
+ */
+public class SiteNotFoundException extends RuntimeException {
+    
+    public SiteNotFoundException(Long siteId) {
+        super("Site not found: " + siteId);
+    }
+}
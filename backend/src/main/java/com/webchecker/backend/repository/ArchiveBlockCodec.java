@@ -0,0 +1,272 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Columnar encoding of one site's check results from one partition, in (timestamp, id)
+ * order. Each column is stored separately with an encoding suited to how it changes
+ * between consecutive checks:
+ * <ul>
+ *   <li>id - zigzag varint deltas</li>
+ *   <li>timestamp - microseconds as delta-of-delta zigzag varints; a fixed check
+ *       interval costs about one byte per row</li>
+ *   <li>responseTime - varint of the XOR with the previous value</li>
+ *   <li>status, statusCode, seoScore, userId - run-length (value, run) pairs</li>
+ *   <li>error - sparse (row gap, text) pairs, since most checks have none</li>
+ * </ul>
+ * Job ids are not kept; deduplication does not reach this far back.
+ */
+final class ArchiveBlockCodec {
+    
+    private static final CheckResult.CheckStatus[] STATUSES = CheckResult.CheckStatus.values();
+    
+    private ArchiveBlockCodec() {}
+    
+    static byte[] encode(List<CheckResult> rows) {
+        Writer out = new Writer(rows.size() * 6 + 16);
+        int n = rows.size();
+        out.varint(n);
+        
+        long previousId = 0;
+        for (CheckResult row : rows) {
+            out.zigzag(row.getId() - previousId);
+            previousId = row.getId();
+        }
+        
+        long previousTime = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < n; i++) {
+            long time = toMicros(rows.get(i).getTimestamp());
+            long delta = time - previousTime;
+            out.zigzag(i < 2 ? delta : delta - previousDelta);
+            previousDelta = delta;
+            previousTime = time;
+        }
+        
+        int previousLatency = 0;
+        for (CheckResult row : rows) {
+            int latency = row.getResponseTime();
+            out.varint(Integer.toUnsignedLong(latency ^ previousLatency));
+            previousLatency = latency;
+        }
+        
+        List<Long> statuses = new ArrayList<>(n);
+        List<Long> statusCodes = new ArrayList<>(n);
+        List<Long> seoScores = new ArrayList<>(n);
+        List<String> userIds = new ArrayList<>(n);
+        for (CheckResult row : rows) {
+            statuses.add((long) row.getStatus().ordinal());
+            statusCodes.add(nullableCode(row.getStatusCode()));
+            seoScores.add(nullableCode(row.getSeoScore()));
+            userIds.add(row.getUserId());
+        }
+        runLengths(out, statuses);
+        runLengths(out, statusCodes);
+        runLengths(out, seoScores);
+        
+        int start = 0;
+        while (start < n) {
+            int end = start;
+            while (end < n && Objects.equals(userIds.get(end), userIds.get(start))) {
+                end++;
+            }
+            out.string(userIds.get(start));
+            out.varint(end - start);
+            start = end;
+        }
+        
+        int errors = 0;
+        for (CheckResult row : rows) {
+            if (row.getError() != null) {
+                errors++;
+            }
+        }
+        out.varint(errors);
+        int previousIndex = 0;
+        for (int i = 0; i < n; i++) {
+            String error = rows.get(i).getError();
+            if (error != null) {
+                out.varint(i - previousIndex);
+                out.string(error);
+                previousIndex = i;
+            }
+        }
+        return out.toByteArray();
+    }
+    
+    static List<CheckResult> decode(ByteBuffer block, long siteId) {
+        Reader in = new Reader(block);
+        int n = (int) in.varint();
+        
+        List<CheckResult> rows = new ArrayList<>(n);
+        long id = 0;
+        for (int i = 0; i < n; i++) {
+            id += in.zigzag();
+            CheckResult row = new CheckResult();
+            row.setId(id);
+            row.setSiteId(siteId);
+            rows.add(row);
+        }
+        
+        long time = 0;
+        long delta = 0;
+        for (int i = 0; i < n; i++) {
+            long value = in.zigzag();
+            delta = i < 2 ? value : delta + value;
+            time += delta;
+            rows.get(i).setTimestamp(fromMicros(time));
+        }
+        
+        int latency = 0;
+        for (CheckResult row : rows) {
+            latency ^= (int) in.varint();
+            row.setResponseTime(latency);
+        }
+        
+        long[] statuses = runLengths(in, n);
+        long[] statusCodes = runLengths(in, n);
+        long[] seoScores = runLengths(in, n);
+        for (int i = 0; i < n; i++) {
+            CheckResult row = rows.get(i);
+            row.setStatus(STATUSES[(int) statuses[i]]);
+            row.setStatusCode(nullableValue(statusCodes[i]));
+            row.setSeoScore(nullableValue(seoScores[i]));
+        }
+        
+        int filled = 0;
+        while (filled < n) {
+            String userId = in.string();
+            int run = (int) in.varint();
+            for (int i = 0; i < run; i++) {
+                rows.get(filled++).setUserId(userId);
+            }
+        }
+        
+        int errors = (int) in.varint();
+        int index = 0;
+        for (int i = 0; i < errors; i++) {
+            index += (int) in.varint();
+            rows.get(index).setError(in.string());
+        }
+        return rows;
+    }
+    
+    static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+    
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+    
+    // 0 stands for null so the common nullable small ints stay one byte
+    private static long nullableCode(Integer value) {
+        return value == null ? 0 : Integer.toUnsignedLong(value) + 1;
+    }
+    
+    private static Integer nullableValue(long code) {
+        return code == 0 ? null : (int) (code - 1);
+    }
+    
+    private static void runLengths(Writer out, List<Long> values) {
+        int start = 0;
+        while (start < values.size()) {
+            int end = start;
+            while (end < values.size() && values.get(end).equals(values.get(start))) {
+                end++;
+            }
+            out.varint(values.get(start));
+            out.varint(end - start);
+            start = end;
+        }
+    }
+    
+    private static long[] runLengths(Reader in, int n) {
+        long[] values = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            long value = in.varint();
+            int run = (int) in.varint();
+            for (int i = 0; i < run; i++) {
+                values[filled++] = value;
+            }
+        }
+        return values;
+    }
+    
+    private static final class Writer extends ByteArrayOutputStream {
+        
+        Writer(int size) {
+            super(size);
+        }
+        
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+        
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+        
+        // Length + 1 so that 0 can stand for null
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+    }
+    
+    private static final class Reader {
+        
+        private final ByteBuffer buffer;
+        
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+        
+        long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+        
+        String string() {
+            int length = (int) varint();
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length - 1];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.repository.CheckResultPartitionRepository.Partition;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for check results of retired partitions. Each partition becomes one
+ * file of per-site columnar blocks (see {@link ArchiveBlockCodec}) followed by an
+ * index of the blocks, and is memory-mapped for reads. Archived partitions are
+ * strictly older than every live one, so history reads continue into the archive
+ * where the database runs out.
+ * <p>
+ * A file is written before the partition is dropped, so if the drop fails or is deferred the
+ * rows exist in both places. Reads therefore skip files that overlap a partition still
+ * attached, and the next retirement of that partition simply rewrites the file. The
+ * directory is rescanned every {@code rescan-interval-ms}, so with shared storage
+ * every replica picks up files another one wrote or deleted.
+ * <p>
+ * File layout: {@code "WCA1"}, partition from/to (epoch micros), blocks, then one
+ * index entry per block (site id, offset, length, rows, first/last timestamp) and
+ * finally the entry count and index offset.
+ */
+@Repository
+public class CheckResultArchiveRepository {
+    
+    private static final Logger log = LoggerFactory.getLogger(CheckResultArchiveRepository.class);
+    
+    private static final byte[] MAGIC = "WCA1".getBytes(StandardCharsets.US_ASCII);
+    private static final String SUFFIX = ".wca";
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4 + 4 + 8 + 8;
+    
+    static final Comparator<CheckResult> NEWEST_FIRST = Comparator
+        .comparing(CheckResult::getTimestamp)
+        .thenComparing(CheckResult::getId)
+        .reversed();
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private CheckResultPartitionRepository partitionRepository;
+    
+    @Value("${webchecker.archive.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${webchecker.archive.directory:./archive}")
+    private String directory;
+    
+    private Path archiveDir;
+    // Keyed by partition start; partitions never overlap
+    private final ConcurrentNavigableMap<LocalDateTime, ArchiveFile> files = new ConcurrentSkipListMap<>();
+    private final AtomicLong archivedBytes = new AtomicLong();
+    // Start of the oldest attached partition; files reaching past it are not served
+    private volatile LocalDateTime liveFrom;
+    
+    private record Block(long siteId, long offset, int length, int rows, LocalDateTime first, LocalDateTime last) {}
+    
+    private record ArchiveFile(Path path, FileTime modified, LocalDateTime from, LocalDateTime to,
+                               MappedByteBuffer buffer, List<Block> blocks, Map<Long, Block> blocksBySite) {}
+    
+    /**
+     * Receives a partition's rows ordered by site, timestamp and id.
+     */
+    public interface Writer extends CheckResultPartitionRepository.RowSink, AutoCloseable {
+        @Override
+        void close() throws IOException;
+    }
+    
+    @PostConstruct
+    void init() throws IOException {
+        meterRegistry.gauge("webchecker.archive.bytes", archivedBytes);
+        meterRegistry.gauge("webchecker.archive.files", files, Map::size);
+        if (!enabled) {
+            return;
+        }
+        archiveDir = Paths.get(directory).toAbsolutePath();
+        Files.createDirectories(archiveDir);
+        refresh();
+        if (!files.isEmpty()) {
+            log.info("Loaded {} archived partitions from {}", files.size(), archiveDir);
+        }
+    }
+    
+    /**
+     * Loads files that are new or were rewritten since the last scan, forgets deleted
+     * ones, and rereads where the live partitions start.
+     */
+    @Scheduled(fixedDelayString = "${webchecker.archive.rescan-interval-ms:60000}",
+        initialDelayString = "${webchecker.archive.rescan-interval-ms:60000}")
+    public void refresh() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (partitionRepository.isEnabled()) {
+            liveFrom = partitionRepository.listPartitions().stream().findFirst().map(Partition::from).orElse(null);
+        }
+        Set<Path> present = new HashSet<>();
+        try (Stream<Path> paths = Files.list(archiveDir)) {
+            for (Path path : paths.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                present.add(path);
+                try {
+                    FileTime modified = Files.getLastModifiedTime(path);
+                    boolean loaded = files.values().stream()
+                        .anyMatch(file -> file.path().equals(path) && file.modified().equals(modified));
+                    if (!loaded) {
+                        load(path);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.error("Skipping unreadable archive file {}", path, e);
+                }
+            }
+        }
+        for (ArchiveFile file : files.values()) {
+            if (!present.contains(file.path()) && files.remove(file.from(), file)) {
+                archivedBytes.addAndGet(-file.buffer().capacity());
+            }
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public Writer openWriter(Partition partition) throws IOException {
+        return new PartitionWriter(partition);
+    }
+    
+    /**
+     * Archived rows of the given sites, at or after since and strictly before
+     * (beforeTimestamp, beforeId), newest first, at most limit of them. A beforeId of 0
+     * excludes beforeTimestamp itself. Only the blocks of those sites are decoded; the
+     * caller has already checked that they belong to the user.
+     */
+    public List<CheckResult> findPage(Collection<Long> siteIds, LocalDateTime since,
+                                      LocalDateTime beforeTimestamp, long beforeId, int limit) {
+        List<CheckResult> page = new ArrayList<>();
+        if (!enabled) {
+            return page;
+        }
+        for (ArchiveFile file : files.headMap(beforeTimestamp, true).descendingMap().values()) {
+            if (!file.to().isAfter(since)) {
+                break;
+            }
+            if (isStillLive(file)) {
+                continue;
+            }
+            List<Block> blocks = new ArrayList<>();
+            for (Long siteId : siteIds) {
+                Block block = file.blocksBySite().get(siteId);
+                if (block != null) {
+                    blocks.add(block);
+                }
+            }
+            List<CheckResult> matches = new ArrayList<>();
+            for (Block block : blocks) {
+                if (block.last().isBefore(since) || block.first().isAfter(beforeTimestamp)) {
+                    continue;
+                }
+                ByteBuffer slice = file.buffer().slice((int) block.offset(), block.length());
+                for (CheckResult row : ArchiveBlockCodec.decode(slice, block.siteId())) {
+                    if (!row.getTimestamp().isBefore(since) && isBefore(row, beforeTimestamp, beforeId)) {
+                        matches.add(row);
+                    }
+                }
+            }
+            matches.sort(NEWEST_FIRST);
+            for (CheckResult row : matches) {
+                if (page.size() == limit) {
+                    return page;
+                }
+                page.add(row);
+            }
+        }
+        return page;
+    }
+    
+    /**
+     * Hands one site's archived rows from since (inclusive) to until (exclusive) to the
+     * consumer, oldest first, decoding one block at a time.
+     */
+    public void scan(Long siteId, LocalDateTime since, LocalDateTime until,
+                     CheckResultExportRepository.RowConsumer consumer) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        for (ArchiveFile file : files.headMap(until).values()) {
+            Block block = file.blocksBySite().get(siteId);
+            if (block == null || isStillLive(file) || block.last().isBefore(since) || !block.first().isBefore(until)) {
+                continue;
+            }
+            ByteBuffer slice = file.buffer().slice((int) block.offset(), block.length());
+            for (CheckResult row : ArchiveBlockCodec.decode(slice, siteId)) {
+                if (!row.getTimestamp().isBefore(since) && row.getTimestamp().isBefore(until)) {
+                    consumer.accept(row);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Deletes archived partitions that ended before the cutoff.
+     */
+    public int deleteOlderThan(LocalDateTime cutoff) throws IOException {
+        int deleted = 0;
+        for (ArchiveFile file : files.headMap(cutoff).values()) {
+            if (file.to().isAfter(cutoff)) {
+                continue;
+            }
+            files.remove(file.from());
+            archivedBytes.addAndGet(-file.buffer().capacity());
+            Files.deleteIfExists(file.path());
+            deleted++;
+        }
+        return deleted;
+    }
+    
+    private boolean isStillLive(ArchiveFile file) {
+        LocalDateTime from = liveFrom;
+        return from != null && file.to().isAfter(from);
+    }
+    
+    private static boolean isBefore(CheckResult row, LocalDateTime beforeTimestamp, long beforeId) {
+        int cmp = row.getTimestamp().compareTo(beforeTimestamp);
+        return cmp < 0 || (cmp == 0 && row.getId() < beforeId);
+    }
+    
+    private void load(Path path) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(path);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not an archive file");
+        }
+        LocalDateTime from = ArchiveBlockCodec.fromMicros(buffer.getLong(MAGIC.length));
+        LocalDateTime to = ArchiveBlockCodec.fromMicros(buffer.getLong(MAGIC.length + 8));
+        int count = buffer.getInt(buffer.capacity() - 12);
+        long indexOffset = buffer.getLong(buffer.capacity() - 8);
+        
+        List<Block> blocks = new ArrayList<>(count);
+        Map<Long, Block> blocksBySite = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int at = (int) (indexOffset + (long) i * INDEX_ENTRY_BYTES);
+            Block block = new Block(buffer.getLong(at), buffer.getLong(at + 8), buffer.getInt(at + 16),
+                buffer.getInt(at + 20), ArchiveBlockCodec.fromMicros(buffer.getLong(at + 24)),
+                ArchiveBlockCodec.fromMicros(buffer.getLong(at + 32)));
+            blocks.add(block);
+            blocksBySite.put(block.siteId(), block);
+        }
+        ArchiveFile replaced = files.put(from, new ArchiveFile(path, modified, from, to, buffer, blocks, blocksBySite));
+        if (replaced != null) {
+            archivedBytes.addAndGet(-replaced.buffer().capacity());
+        }
+        archivedBytes.addAndGet(buffer.capacity());
+    }
+    
+    private final class PartitionWriter implements Writer {
+        
+        private final Partition partition;
+        private final Path target;
+        private final Path tmp;
+        private final DataOutputStream out;
+        private final List<Block> blocks = new ArrayList<>();
+        private final List<CheckResult> site = new ArrayList<>();
+        private long offset;
+        private long rows;
+        private boolean finished;
+        
+        PartitionWriter(Partition partition) throws IOException {
+            this.partition = partition;
+            this.target = archiveDir.resolve(partition.name() + SUFFIX);
+            this.tmp = archiveDir.resolve(partition.name() + SUFFIX + ".tmp");
+            OutputStream file = Files.newOutputStream(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+            out.write(MAGIC);
+            out.writeLong(ArchiveBlockCodec.toMicros(partition.from()));
+            out.writeLong(ArchiveBlockCodec.toMicros(partition.to()));
+            offset = MAGIC.length + 16;
+        }
+        
+        @Override
+        public void accept(CheckResult checkResult) throws IOException {
+            if (!site.isEmpty() && !site.get(0).getSiteId().equals(checkResult.getSiteId())) {
+                flushSite();
+            }
+            site.add(checkResult);
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            flushSite();
+            long indexOffset = offset;
+            for (Block block : blocks) {
+                out.writeLong(block.siteId());
+                out.writeLong(block.offset());
+                out.writeInt(block.length());
+                out.writeInt(block.rows());
+                out.writeLong(ArchiveBlockCodec.toMicros(block.first()));
+                out.writeLong(ArchiveBlockCodec.toMicros(block.last()));
+            }
+            out.writeInt(blocks.size());
+            out.writeLong(indexOffset);
+            out.close();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            
+            load(target);
+            meterRegistry.counter("webchecker.archive.rows").increment(rows);
+            log.info("Archived {} rows of {} into {} bytes", rows, partition.name(), Files.size(target));
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+                Files.deleteIfExists(tmp);
+            }
+        }
+        
+        private void flushSite() throws IOException {
+            if (site.isEmpty()) {
+                return;
+            }
+            byte[] block = ArchiveBlockCodec.encode(site);
+            out.write(block);
+            blocks.add(new Block(site.get(0).getSiteId(), offset, block.length, site.size(),
+                site.get(0).getTimestamp(), site.get(site.size() - 1).getTimestamp()));
+            offset += block.length;
+            rows += site.size();
+            site.clear();
+        }
+    }
+}
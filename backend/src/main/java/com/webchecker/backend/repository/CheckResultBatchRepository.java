@@ -0,0 +1,140 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC insert path for check results. CheckResult uses IDENTITY ids, which
+ * prevents Hibernate from batching inserts, so rows are written here as multi-row
+ * INSERT statements, one round trip per chunk.
+ * <p>
+ * A row with a job id is only inserted if the same statement claims that job id in
+ * {@code check_result_jobs}, a ledger keyed by job id alone. A redelivered job is
+ * therefore skipped even when the worker checked it again and it carries a new
+ * timestamp, which the {@code (job_id, timestamp)} index on the partitioned table
+ * cannot catch. Claims are pruned after {@code ledger-retention-hours}.
+ * <p>
+ * Each row is sent with its position in the chunk and gets its id from the identity
+ * sequence before the insert, so the ids coming back map to inputs by position even
+ * when job ids repeat within a chunk or are null.
+ */
+@Repository
+public class CheckResultBatchRepository {
+    
+    // 11 bind parameters per row keeps a full chunk well below the 32767 parameter limit
+    static final int CHUNK_SIZE = 500;
+    
+    private static final String COLUMNS =
+        "site_id, timestamp, status, response_time, status_code, error, seo_score, anomaly_score, user_id, job_id";
+    // The first row carries the casts; the other rows' parameters take the same column types
+    private static final String FIRST_ROW_PLACEHOLDER =
+        "(?::int, ?::bigint, ?::timestamp, ?::varchar, ?::int, ?::int, ?::text, ?::int, ?::float8, ?::varchar, ?::varchar)";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PREFIX = "WITH input (ord, " + COLUMNS + ") AS (VALUES ";
+    private static final String INSERT_SUFFIX = "), " +
+        // nextval is volatile, so the CTE is evaluated once and each row keeps the id drawn for it
+        "numbered AS (SELECT nextval(pg_get_serial_sequence('check_results', 'id')) AS id, * FROM input), " +
+        // A concurrent claim of the same job id waits for the other transaction and then yields nothing
+        "claimed AS (INSERT INTO check_result_jobs (job_id) SELECT DISTINCT job_id FROM numbered " +
+        "WHERE job_id IS NOT NULL ON CONFLICT DO NOTHING RETURNING job_id), " +
+        "inserted AS (INSERT INTO check_results (id, " + COLUMNS + ") SELECT id, " + COLUMNS + " FROM numbered " +
+        "WHERE job_id IS NULL OR (job_id IN (SELECT job_id FROM claimed) " +
+        "AND ord = (SELECT min(ord) FROM numbered earlier WHERE earlier.job_id = numbered.job_id)) " +
+        "ON CONFLICT (job_id, timestamp) DO NOTHING RETURNING id) " +
+        "SELECT numbered.ord, numbered.id FROM numbered JOIN inserted ON inserted.id = numbered.id";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @PostConstruct
+    void initJobLedger() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS check_result_jobs (" +
+            "job_id varchar(64) PRIMARY KEY, claimed_at timestamp NOT NULL DEFAULT now())");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_check_result_jobs_claimed_at ON check_result_jobs (claimed_at)");
+    }
+    
+    /**
+     * Forgets job ids claimed before the given time; redeliveries arrive within minutes,
+     * so the ledger only needs to outlive the job stream's retry window.
+     */
+    public int pruneJobLedger(LocalDateTime claimedBefore) {
+        return jdbcTemplate.update("DELETE FROM check_result_jobs WHERE claimed_at < ?", Timestamp.valueOf(claimedBefore));
+    }
+    
+    /**
+     * Inserts the results and assigns the generated ids back onto the given entities.
+     * Returns the inserted ones; duplicates of a claimed job id are left with a null id.
+     */
+    public List<CheckResult> insertAll(List<CheckResult> checkResults) {
+        List<CheckResult> inserted = new ArrayList<>(checkResults.size());
+        for (int from = 0; from < checkResults.size(); from += CHUNK_SIZE) {
+            List<CheckResult> chunk = checkResults.subList(from, Math.min(from + CHUNK_SIZE, checkResults.size()));
+            Long[] ids = insertChunk(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                CheckResult cr = chunk.get(i);
+                cr.setId(ids[i]);
+                if (ids[i] != null) {
+                    inserted.add(cr);
+                }
+            }
+        }
+        return inserted;
+    }
+    
+    /**
+     * Ids of the inserted rows by position in the chunk; null where a row was skipped.
+     */
+    private Long[] insertChunk(List<CheckResult> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + INSERT_SUFFIX.length()
+            + FIRST_ROW_PLACEHOLDER.length() + chunk.size() * (ROW_PLACEHOLDER.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(i == 0 ? FIRST_ROW_PLACEHOLDER : ROW_PLACEHOLDER);
+        }
+        sql.append(INSERT_SUFFIX);
+        
+        Long[] ids = new Long[chunk.size()];
+        PreparedStatementSetter setter = ps -> {
+            int p = 1;
+            for (int i = 0; i < chunk.size(); i++) {
+                CheckResult cr = chunk.get(i);
+                ps.setInt(p++, i);
+                ps.setLong(p++, cr.getSiteId());
+                ps.setTimestamp(p++, Timestamp.valueOf(cr.getTimestamp()));
+                ps.setString(p++, cr.getStatus().name());
+                ps.setInt(p++, cr.getResponseTime());
+                ps.setObject(p++, cr.getStatusCode(), Types.INTEGER);
+                ps.setString(p++, cr.getError());
+                ps.setObject(p++, cr.getSeoScore(), Types.INTEGER);
+                ps.setObject(p++, cr.getAnomalyScore(), Types.DOUBLE);
+                ps.setString(p++, cr.getUserId());
+                ps.setString(p++, cr.getJobId());
+            }
+        };
+        RowCallbackHandler idCollector = rs -> ids[rs.getInt(1)] = rs.getLong(2);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        jdbcTemplate.query(sql.toString(), setter, idCollector);
+        sample.stop(meterRegistry.timer("webchecker.db.batch", "operation", "insert_check_results"));
+        meterRegistry.summary("webchecker.db.batch.rows", "operation", "insert_check_results").record(chunk.size());
+        return ids;
+    }
+}
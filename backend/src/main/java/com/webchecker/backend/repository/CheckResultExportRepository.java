@@ -0,0 +1,65 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Reads a site's history for export without holding it in memory. The statement runs
+ * with a fetch size, which the PostgreSQL driver turns into a server-side cursor as
+ * long as the caller has a transaction open.
+ */
+@Repository
+public class CheckResultExportRepository {
+    
+    static final int FETCH_SIZE = 1000;
+    
+    private static final String SITE_HISTORY =
+        "SELECT id, site_id, timestamp, status, response_time, status_code, error, seo_score, anomaly_score FROM check_results " +
+        "WHERE site_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp, id";
+    
+    public interface RowConsumer {
+        void accept(CheckResult checkResult) throws IOException;
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Hands the site's rows from since (inclusive) to until (exclusive) to the consumer,
+     * oldest first, one fetch at a time. Must be called inside a transaction.
+     */
+    public void scan(Long siteId, LocalDateTime since, LocalDateTime until, RowConsumer consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SITE_HISTORY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, siteId);
+            ps.setTimestamp(2, Timestamp.valueOf(since));
+            ps.setTimestamp(3, Timestamp.valueOf(until));
+            return ps;
+        }, rs -> {
+            CheckResult checkResult = new CheckResult();
+            checkResult.setId(rs.getLong(1));
+            checkResult.setSiteId(rs.getLong(2));
+            checkResult.setTimestamp(rs.getTimestamp(3).toLocalDateTime());
+            checkResult.setStatus(CheckResult.CheckStatus.valueOf(rs.getString(4)));
+            checkResult.setResponseTime(rs.getInt(5));
+            checkResult.setStatusCode(rs.getObject(6, Integer.class));
+            checkResult.setError(rs.getString(7));
+            checkResult.setSeoScore(rs.getObject(8, Integer.class));
+            checkResult.setAnomalyScore(rs.getObject(9, Double.class));
+            try {
+                consumer.accept(checkResult);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most recent check results of many sites in one statement. A LATERAL subquery per
+ * site walks idx_check_results_site_timestamp from the newest row, so the cost grows
+ * with the number of sites, not with their history; since bounds the partitions each
+ * probe may touch.
+ */
+@Repository
+public class CheckResultLatestRepository {
+    
+    private static final String RECENT =
+        "SELECT s.site_id, c.id, c.timestamp, c.status, c.response_time, c.status_code, c.seo_score " +
+        "FROM unnest(?::bigint[]) AS s(site_id) CROSS JOIN LATERAL (" +
+        "SELECT cr.id, cr.timestamp, cr.status, cr.response_time, cr.status_code, cr.seo_score FROM check_results cr " +
+        "WHERE cr.site_id = s.site_id AND cr.timestamp >= ? ORDER BY cr.timestamp DESC, cr.id DESC LIMIT ?) c " +
+        "ORDER BY s.site_id, c.timestamp, c.id";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Latest result per site at or after since, keyed by site id; sites without one are
+     * absent. Only id, timestamp, status, response time, status code and SEO score are
+     * filled in.
+     */
+    public Map<Long, CheckResult> findLatest(Collection<Long> siteIds, LocalDateTime since) {
+        Map<Long, CheckResult> latest = new HashMap<>();
+        for (CheckResult checkResult : findRecent(siteIds, since, 1)) {
+            latest.put(checkResult.getSiteId(), checkResult);
+        }
+        return latest;
+    }
+    
+    /**
+     * Up to perSite latest results of each site at or after since, ordered by site and
+     * then oldest first, with the same columns as {@link #findLatest}.
+     */
+    public List<CheckResult> findRecent(Collection<Long> siteIds, LocalDateTime since, int perSite) {
+        if (siteIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RECENT);
+            ps.setArray(1, con.createArrayOf("bigint", siteIds.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(since));
+            ps.setInt(3, perSite);
+            return ps;
+        }, (rs, rowNum) -> toCheckResult(rs));
+    }
+    
+    private static CheckResult toCheckResult(ResultSet rs) throws SQLException {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setSiteId(rs.getLong(1));
+        checkResult.setId(rs.getLong(2));
+        checkResult.setTimestamp(rs.getTimestamp(3).toLocalDateTime());
+        checkResult.setStatus(CheckResult.CheckStatus.valueOf(rs.getString(4)));
+        checkResult.setResponseTime(rs.getInt(5));
+        checkResult.setStatusCode(rs.getObject(6, Integer.class));
+        checkResult.setSeoScore(rs.getObject(7, Integer.class));
+        return checkResult;
+    }
+}
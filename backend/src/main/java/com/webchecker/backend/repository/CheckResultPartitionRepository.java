@@ -0,0 +1,557 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Owns the physical layout of check_results: a table range-partitioned on
+ * {@code timestamp} by day or week. It runs before Hibernate's schema update (see
+ * JpaSchemaConfig), so Hibernate finds the partitioned table and only adds indexes
+ * and new columns to it. An existing unpartitioned table is converted on start: it is
+ * renamed out of the way in a short transaction and its rows are then moved over in
+ * chunks by a background thread, resuming after a restart until the old table is empty.
+ * <p>
+ * Rows outside every range partition, e.g. from a worker with a skewed clock, land in
+ * {@code check_results_default} instead of failing the insert, and are moved into their
+ * range partition when it is created.
+ * <p>
+ * All DDL runs in transactions under an advisory lock, so replicas starting or
+ * running maintenance together do not race on the same partitions.
+ */
+@Repository
+public class CheckResultPartitionRepository {
+    
+    private static final Logger log = LoggerFactory.getLogger(CheckResultPartitionRepository.class);
+    
+    private static final long ADVISORY_LOCK_KEY = 0x5173_0002L;
+    private static final String TABLE = "check_results";
+    private static final String LEGACY_TABLE = "check_results_unpartitioned";
+    private static final String DEFAULT_PARTITION = "check_results_default";
+    private static final Set<String> LEGACY_COLUMNS = Set.of("id", "site_id", "timestamp", "status",
+        "response_time", "status_code", "error", "seo_score", "anomaly_score", "user_id", "job_id");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int ARCHIVE_FETCH_SIZE = 5000;
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+    
+    private static final String CREATE_TABLE =
+        "CREATE TABLE check_results (" +
+        "id bigint GENERATED BY DEFAULT AS IDENTITY, " +
+        "site_id bigint NOT NULL, " +
+        "timestamp timestamp(6) NOT NULL, " +
+        "status varchar(255) NOT NULL, " +
+        "response_time integer NOT NULL, " +
+        "status_code integer, " +
+        "error text, " +
+        "seo_score integer, " +
+        "anomaly_score double precision, " +
+        "user_id varchar(255), " +
+        "job_id varchar(64), " +
+        "PRIMARY KEY (id, timestamp)" +
+        ") PARTITION BY RANGE (timestamp)";
+    
+    private static final String LIST_PARTITIONS =
+        "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+        "WHERE p.relname = 'check_results' AND p.relnamespace = 'public'::regnamespace";
+    
+    // Fills only buckets the ingest-time rollups are missing, e.g. rows older than the rollups
+    private static final String DOWNSAMPLE =
+        "INSERT INTO uptime_rollups (site_id, resolution, bucket_start, total_count, up_count, down_count, " +
+        "timeout_count, latency_sum, latency_min, latency_max) " +
+        "SELECT site_id, ?, date_trunc(?, timestamp) AS bucket_start, count(*), " +
+        "count(*) FILTER (WHERE status = 'UP'), count(*) FILTER (WHERE status = 'DOWN'), " +
+        "count(*) FILTER (WHERE status = 'TIMEOUT'), sum(response_time), min(response_time), max(response_time) " +
+        "FROM %s WHERE timestamp >= ? GROUP BY site_id, date_trunc(?, timestamp) " +
+        "ON CONFLICT (site_id, resolution, bucket_start) DO NOTHING";
+    
+    public enum Interval {
+        DAY, WEEK;
+        
+        public LocalDateTime start(LocalDateTime timestamp) {
+            LocalDate day = timestamp.toLocalDate();
+            if (this == WEEK) {
+                day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            }
+            return day.atStartOfDay();
+        }
+        
+        public LocalDateTime next(LocalDateTime start) {
+            return this == WEEK ? start.plusWeeks(1) : start.plusDays(1);
+        }
+    }
+    
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {}
+    
+    /**
+     * Receives the rows of a partition being retired; {@link #finish} must make them
+     * durable, since the partition is dropped right after it returns.
+     */
+    public interface RowSink {
+        void accept(CheckResult checkResult) throws IOException;
+        
+        void finish() throws IOException;
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${webchecker.partitions.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${webchecker.partitions.interval:day}")
+    private String intervalName;
+    
+    @Value("${webchecker.partitions.premake:7}")
+    private int premake;
+    
+    @Value("${webchecker.partitions.migration-chunk-size:10000}")
+    private int migrationChunkSize;
+    
+    // Longest wait for the lock that dropping or detaching a partition takes on check_results
+    @Value("${webchecker.partitions.ddl-lock-timeout-ms:5000}")
+    private long ddlLockTimeoutMs;
+    
+    private Interval interval;
+    private volatile boolean running = true;
+    private volatile boolean migrating;
+    
+    @PostConstruct
+    void initTable() {
+        interval = Interval.valueOf(intervalName.trim().toUpperCase(Locale.ROOT));
+        inLockedTransaction(con -> {
+            try (Statement st = con.createStatement()) {
+                // Unique on job_id alone cannot exist on a partitioned table; replaced by (job_id, timestamp)
+                st.execute("DROP INDEX IF EXISTS uk_check_results_job_id");
+            }
+            if (!enabled) {
+                return null;
+            }
+            String kind = relkind(con, TABLE);
+            if (kind == null) {
+                createParent(con);
+                log.info("Created check_results partitioned by {}", interval.name().toLowerCase(Locale.ROOT));
+            } else if ("r".equals(kind)) {
+                convertLegacyTable(con);
+            } else {
+                createDefaultPartition(con);
+            }
+            createPartitions(con, LocalDateTime.now());
+            return null;
+        });
+        if (enabled && inLockedTransaction(con -> relkind(con, LEGACY_TABLE)) != null) {
+            migrating = true;
+            Thread migration = new Thread(this::moveLegacyRows, "check-results-migration");
+            migration.setDaemon(true);
+            migration.start();
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        running = false;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public Interval getInterval() {
+        return interval;
+    }
+    
+    /**
+     * Whether rows of the old unpartitioned table are still being moved into partitions.
+     */
+    public boolean isMigrating() {
+        return migrating;
+    }
+    
+    /**
+     * Creates partitions through {@code premake} intervals past the given time.
+     */
+    public int createPartitions(LocalDateTime now) {
+        return inLockedTransaction(con -> createPartitions(con, now));
+    }
+    
+    public List<Partition> listPartitions() {
+        return inLockedTransaction(this::listPartitions);
+    }
+    
+    /**
+     * The tables that may hold check results older than the given time: the partitions
+     * starting before it and the default partition, or check_results itself when
+     * partitioning is off.
+     */
+    public List<String> listTablesBefore(LocalDateTime time) {
+        if (!enabled) {
+            return List.of(TABLE);
+        }
+        List<String> tables = new ArrayList<>();
+        for (Partition partition : listPartitions()) {
+            if (partition.from().isBefore(time)) {
+                tables.add(partition.name());
+            }
+        }
+        tables.add(DEFAULT_PARTITION);
+        return tables;
+    }
+    
+    /**
+     * Deletes rows of the default partition older than the cutoff. They never had a range
+     * partition, so they are not downsampled or archived when their time is up.
+     */
+    public int deleteDefaultRowsBefore(LocalDateTime cutoff) {
+        return inLockedTransaction(con -> {
+            try (PreparedStatement ps = con.prepareStatement(
+                    "DELETE FROM " + quote(DEFAULT_PARTITION) + " WHERE timestamp < ?")) {
+                ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                return ps.executeUpdate();
+            }
+        });
+    }
+    
+    /**
+     * Downsamples the partition into the hour and day rollups it would produce that are
+     * not stored yet, hands its rows to {@code archive} if given, then drops it, or with
+     * {@code keep} only detaches it and leaves a standalone table of the same name.
+     * Hour buckets are only filled from {@code hourCutoff} on, matching how long hour
+     * rollups are retained anyway. Returns the number of rollup buckets written, or -1
+     * if another replica already retired the partition.
+     * <p>
+     * Each step runs in its own transaction and the first two can be repeated, so only
+     * the DROP or DETACH holds the ACCESS EXCLUSIVE lock on check_results, and only for
+     * {@code ddl-lock-timeout-ms}. If it cannot get the lock in time, e.g. behind a long
+     * export cursor, a {@link org.springframework.dao.CannotAcquireLockException} is
+     * thrown rather than queueing every insert behind it, and the partition is retired
+     * on the next run.
+     */
+    public int retire(Partition partition, LocalDateTime hourCutoff, boolean keep, RowSink archive) {
+        Integer buckets = inLockedTransaction(con -> {
+            if (!isAttached(con, partition)) {
+                return null;
+            }
+            try (PreparedStatement ps = con.prepareStatement(String.format(DOWNSAMPLE, quote(partition.name())))) {
+                return downsample(ps, "HOUR", "hour", hourCutoff) + downsample(ps, "DAY", "day", partition.from());
+            }
+        });
+        if (buckets == null) {
+            return -1;
+        }
+        if (archive != null) {
+            // Reads skip the file until the partition is gone, so it may be written early
+            boolean archived = inLockedTransaction(con -> {
+                if (!isAttached(con, partition)) {
+                    return false;
+                }
+                copyRows(con, partition, archive);
+                return true;
+            });
+            if (!archived) {
+                return -1;
+            }
+        }
+        boolean retired = inLockedTransaction(con -> {
+            if (!isAttached(con, partition)) {
+                return false;
+            }
+            try (Statement st = con.createStatement()) {
+                st.execute("SET LOCAL lock_timeout = " + ddlLockTimeoutMs);
+                if (keep) {
+                    st.execute("ALTER TABLE check_results DETACH PARTITION " + quote(partition.name()));
+                } else {
+                    st.execute("DROP TABLE " + quote(partition.name()));
+                }
+            }
+            return true;
+        });
+        return retired ? buckets : -1;
+    }
+    
+    private boolean isAttached(Connection con, Partition partition) throws SQLException {
+        return listPartitions(con).stream().anyMatch(existing -> existing.name().equals(partition.name()));
+    }
+    
+    private static void copyRows(Connection con, Partition partition, RowSink archive) throws SQLException {
+        // Inside a transaction the fetch size makes the driver stream through a cursor
+        try (Statement st = con.createStatement()) {
+            st.setFetchSize(ARCHIVE_FETCH_SIZE);
+            try (ResultSet rs = st.executeQuery("SELECT id, site_id, timestamp, status, response_time, status_code, " +
+                    "error, seo_score, user_id FROM " + quote(partition.name()) + " ORDER BY site_id, timestamp, id")) {
+                while (rs.next()) {
+                    CheckResult checkResult = new CheckResult();
+                    checkResult.setId(rs.getLong(1));
+                    checkResult.setSiteId(rs.getLong(2));
+                    checkResult.setTimestamp(rs.getTimestamp(3).toLocalDateTime());
+                    checkResult.setStatus(CheckResult.CheckStatus.valueOf(rs.getString(4)));
+                    checkResult.setResponseTime(rs.getInt(5));
+                    checkResult.setStatusCode(rs.getObject(6, Integer.class));
+                    checkResult.setError(rs.getString(7));
+                    checkResult.setSeoScore(rs.getObject(8, Integer.class));
+                    checkResult.setUserId(rs.getString(9));
+                    archive.accept(checkResult);
+                }
+            }
+            archive.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archiving " + partition.name() + " failed", e);
+        }
+    }
+    
+    private static int downsample(PreparedStatement ps, String resolution, String unit, LocalDateTime since)
+            throws SQLException {
+        ps.setString(1, resolution);
+        ps.setString(2, unit);
+        ps.setTimestamp(3, Timestamp.valueOf(since));
+        ps.setString(4, unit);
+        return ps.executeUpdate();
+    }
+    
+    private int createPartitions(Connection con, LocalDateTime now) throws SQLException {
+        LocalDateTime until = interval.start(now);
+        for (int i = 0; i <= premake; i++) {
+            until = interval.next(until);
+        }
+        return createPartitions(con, interval.start(now), until);
+    }
+    
+    /**
+     * Covers [from, until) with partitions, starting after the newest existing one so a
+     * changed interval never produces overlapping bounds.
+     */
+    private int createPartitions(Connection con, LocalDateTime from, LocalDateTime until) throws SQLException {
+        LocalDateTime start = from;
+        for (Partition existing : listPartitions(con)) {
+            if (existing.to().isAfter(start) && !existing.from().isAfter(start)) {
+                start = existing.to();
+            }
+        }
+        int created = 0;
+        try (Statement st = con.createStatement()) {
+            while (start.isBefore(until)) {
+                LocalDateTime end = interval.next(interval.start(start));
+                String name = TABLE + "_p" + start.format(SUFFIX);
+                String bounds = "FROM ('" + Timestamp.valueOf(start) + "') TO ('" + Timestamp.valueOf(end) + "')";
+                String range = "timestamp >= '" + Timestamp.valueOf(start) + "' AND timestamp < '" + Timestamp.valueOf(end) + "'";
+                boolean inDefault;
+                try (ResultSet rs = st.executeQuery("SELECT EXISTS (SELECT 1 FROM " + quote(DEFAULT_PARTITION) +
+                        " WHERE " + range + ")")) {
+                    inDefault = rs.next() && rs.getBoolean(1);
+                }
+                if (inDefault) {
+                    // Attaching over rows the default partition still holds would fail, so they move first
+                    st.execute("CREATE TABLE " + quote(name) + " (LIKE check_results INCLUDING DEFAULTS)");
+                    int moved = st.executeUpdate("WITH moved AS (DELETE FROM " + quote(DEFAULT_PARTITION) +
+                        " WHERE " + range + " RETURNING *) INSERT INTO " + quote(name) + " SELECT * FROM moved");
+                    st.execute("ALTER TABLE check_results ATTACH PARTITION " + quote(name) + " FOR VALUES " + bounds);
+                    log.info("Moved {} rows from the default partition into {}", moved, name);
+                } else {
+                    st.execute("CREATE TABLE IF NOT EXISTS " + quote(name) + " PARTITION OF check_results " +
+                        "FOR VALUES " + bounds);
+                }
+                start = end;
+                created++;
+            }
+        }
+        return created;
+    }
+    
+    private List<Partition> listPartitions(Connection con) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(LIST_PARTITIONS)) {
+            while (rs.next()) {
+                Matcher bounds = BOUNDS.matcher(rs.getString(2));
+                if (bounds.find()) {
+                    partitions.add(new Partition(rs.getString(1),
+                        Timestamp.valueOf(bounds.group(1)).toLocalDateTime(),
+                        Timestamp.valueOf(bounds.group(2)).toLocalDateTime()));
+                }
+            }
+        }
+        partitions.sort((a, b) -> a.from().compareTo(b.from()));
+        return partitions;
+    }
+    
+    private void createParent(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute(CREATE_TABLE);
+        }
+        createDefaultPartition(con);
+    }
+    
+    private static void createDefaultPartition(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + quote(DEFAULT_PARTITION) + " PARTITION OF check_results DEFAULT");
+        }
+    }
+    
+    /**
+     * Start of the conversion of a table created by Hibernate: the old table and its
+     * indexes are renamed, partitions created back to its oldest row and the identity
+     * sequence moved past its ids. No rows are copied here, so the exclusive lock the
+     * rename takes is held only briefly; {@link #moveLegacyRows} moves them afterwards.
+     */
+    private void convertLegacyTable(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            // Read before the rename, while concurrent writers are still only sharing the table
+            LocalDateTime oldest = null;
+            long maxId = 0;
+            try (ResultSet rs = st.executeQuery("SELECT min(timestamp), coalesce(max(id), 0) FROM check_results")) {
+                if (rs.next()) {
+                    if (rs.getTimestamp(1) != null) {
+                        oldest = rs.getTimestamp(1).toLocalDateTime();
+                    }
+                    maxId = rs.getLong(2);
+                }
+            }
+            st.execute("ALTER TABLE check_results RENAME TO " + LEGACY_TABLE);
+            // Index names are schema-wide; Hibernate recreates them on the partitioned table
+            List<String> indexes = new ArrayList<>();
+            try (ResultSet rs = st.executeQuery("SELECT indexname FROM pg_indexes " +
+                    "WHERE schemaname = 'public' AND tablename = '" + LEGACY_TABLE + "'")) {
+                while (rs.next()) {
+                    indexes.add(rs.getString(1));
+                }
+            }
+            for (String index : indexes) {
+                st.execute("ALTER INDEX " + quote(index) + " RENAME TO " + quote(LEGACY_TABLE + "_" + index));
+            }
+            createParent(con);
+            if (oldest != null) {
+                createPartitions(con, interval.start(oldest), interval.next(interval.start(LocalDateTime.now())));
+            }
+            st.execute("SELECT setval(pg_get_serial_sequence('check_results', 'id'), " + (maxId + 1) + ", false)");
+        }
+        log.info("Converted check_results to a partitioned table; existing rows move over in the background " +
+            "and history before this start is incomplete until they have");
+    }
+    
+    /**
+     * Moves the rows of the old unpartitioned table into check_results in chunks of
+     * {@code migration-chunk-size}, each in its own short transaction, then drops it.
+     * Moved rows are deleted from the old table in the same transaction, so a restart
+     * resumes where the previous run stopped.
+     */
+    private void moveLegacyRows() {
+        long moved = 0;
+        while (running) {
+            try {
+                Integer chunk = inLockedTransaction(this::moveLegacyChunk);
+                if (chunk == null) {
+                    migrating = false;
+                    log.info("Moved {} check results into partitions and dropped {}", moved, LEGACY_TABLE);
+                    return;
+                }
+                moved += chunk;
+            } catch (RuntimeException e) {
+                log.error("Moving check results out of {} failed; retrying", LEGACY_TABLE, e);
+                try {
+                    Thread.sleep(30_000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Moves one chunk and returns its size, or drops the old table and returns null
+     * once it is empty.
+     */
+    private Integer moveLegacyChunk(Connection con) throws SQLException {
+        if (relkind(con, LEGACY_TABLE) == null) {
+            return null;
+        }
+        Set<String> columns = new LinkedHashSet<>();
+        try (Statement st = con.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT column_name FROM information_schema.columns " +
+                    "WHERE table_schema = 'public' AND table_name = '" + LEGACY_TABLE + "' ORDER BY ordinal_position")) {
+                while (rs.next()) {
+                    columns.add(rs.getString(1));
+                }
+            }
+            // Columns Hibernate added after the partitioned layout was defined are added back later by its update
+            columns.retainAll(LEGACY_COLUMNS);
+            String columnList = String.join(", ", columns);
+            int copied = st.executeUpdate("WITH moved AS (DELETE FROM " + LEGACY_TABLE + " WHERE id IN " +
+                "(SELECT id FROM " + LEGACY_TABLE + " ORDER BY id LIMIT " + migrationChunkSize + ") " +
+                "RETURNING " + columnList + ") INSERT INTO check_results (" + columnList + ") SELECT " + columnList +
+                " FROM moved WHERE timestamp IS NOT NULL ON CONFLICT DO NOTHING");
+            if (copied > 0) {
+                return copied;
+            }
+            try (ResultSet rs = st.executeQuery("SELECT EXISTS (SELECT 1 FROM " + LEGACY_TABLE + ")")) {
+                if (rs.next() && rs.getBoolean(1)) {
+                    // The chunk only held rows without a timestamp or rows already in check_results
+                    return 0;
+                }
+            }
+            st.execute("DROP TABLE " + LEGACY_TABLE);
+            return null;
+        }
+    }
+    
+    private static String relkind(Connection con, String table) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT relkind FROM pg_class WHERE relname = ? AND relnamespace = 'public'::regnamespace")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+    
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+    
+    private <T> T inLockedTransaction(ConnectionCallback<T> work) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_xact_lock(?)")) {
+                    ps.setLong(1, ADVISORY_LOCK_KEY);
+                    ps.execute();
+                }
+                T result = work.doInConnection(con);
+                con.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        });
+    }
+}
@@ -1,31 +1,41 @@
 package com.webchecker.backend.repository;
 
 import com.webchecker.backend.entity.CheckResult;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CheckResultRepository extends JpaRepository<CheckResult, Long> {
     
-    List<CheckResult> findByUserIdOrderByTimestampDesc(String userId);
+    // check_results is range-partitioned on timestamp: every query here must bound the
+    // timestamp so the planner only visits the partitions of the requested window.
     
-    @Query("SELECT cr FROM CheckResult cr WHERE cr.userId = :userId ORDER BY cr.timestamp DESC")
-    List<CheckResult> findRecentByUserId(@Param("userId") String userId);
+    // Keyset pages: rows strictly before (beforeTimestamp, beforeId) and at or after since.
+    // A first page passes the window's upper bound with beforeId = 0. Rows are selected
+    // by site; check_results.user_id holds "worker" for worker-submitted rows, so callers
+    // resolve the user's sites and check ownership first.
+    @Query("SELECT cr FROM CheckResult cr WHERE cr.siteId IN :siteIds AND cr.timestamp >= :since " +
+           "AND (cr.timestamp < :beforeTimestamp OR (cr.timestamp = :beforeTimestamp AND cr.id < :beforeId)) " +
+           "ORDER BY cr.timestamp DESC, cr.id DESC")
+    List<CheckResult> findPageBySiteIds(@Param("siteIds") Collection<Long> siteIds,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                        @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
     
-    @Query("SELECT cr FROM CheckResult cr WHERE cr.siteId = :siteId AND cr.userId = :userId ORDER BY cr.timestamp DESC")
-    List<CheckResult> findBySiteIdAndUserId(@Param("siteId") Long siteId, @Param("userId") String userId);
-    
-    @Query("SELECT cr FROM CheckResult cr WHERE cr.userId = :userId AND cr.timestamp >= :since ORDER BY cr.timestamp DESC")
-    List<CheckResult> findByUserIdAndTimestampAfter(@Param("userId") String userId, @Param("since") LocalDateTime since);
-    
-    @Query("SELECT COUNT(cr) FROM CheckResult cr WHERE cr.siteId = :siteId AND cr.userId = :userId AND cr.status = 'UP'")
-    Long countSuccessfulChecks(@Param("siteId") Long siteId, @Param("userId") String userId);
-    
-    @Query("SELECT COUNT(cr) FROM CheckResult cr WHERE cr.siteId = :siteId AND cr.userId = :userId")
-    Long countTotalChecks(@Param("siteId") Long siteId, @Param("userId") String userId);
+    @Query("SELECT cr FROM CheckResult cr WHERE cr.siteId = :siteId AND cr.timestamp >= :since " +
+           "AND (cr.timestamp < :beforeTimestamp OR (cr.timestamp = :beforeTimestamp AND cr.id < :beforeId)) " +
+           "ORDER BY cr.timestamp DESC, cr.id DESC")
+    List<CheckResult> findPageBySiteId(@Param("siteId") Long siteId,
+                                       @Param("since") LocalDateTime since,
+                                       @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                       @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
 }
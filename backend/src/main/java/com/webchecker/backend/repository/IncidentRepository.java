@@ -19,6 +19,13 @@ public interface IncidentRepository extends JpaRepository<Incident, Long> {
     @Query("SELECT i FROM Incident i WHERE i.siteId = :siteId AND i.userId = :userId ORDER BY i.startedAt DESC")
     List<Incident> findBySiteIdAndUserId(@Param("siteId") Long siteId, @Param("userId") String userId);
     
+    @Query("SELECT i FROM Incident i WHERE i.siteId = :siteId AND i.status = 'ACTIVE'")
+    List<Incident> findActiveBySiteId(@Param("siteId") Long siteId);
+    
     @Query("SELECT i FROM Incident i WHERE i.siteId = :siteId AND i.userId = :userId AND i.status = 'ACTIVE'")
     List<Incident> findActiveBySiteIdAndUserId(@Param("siteId") Long siteId, @Param("userId") String userId);
+    
+    // Rows of (siteId, count) for the user's sites with active incidents
+    @Query("SELECT i.siteId, COUNT(i) FROM Incident i WHERE i.userId = :userId AND i.status = 'ACTIVE' GROUP BY i.siteId")
+    List<Object[]> countActiveBySite(@Param("userId") String userId);
 }
@@ -0,0 +1,50 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.LatencySketch;
+import com.webchecker.backend.entity.UptimeRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LatencySketchRepository extends JpaRepository<LatencySketch, Long> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM LatencySketch s WHERE s.siteId = :siteId AND s.resolution = :resolution AND s.bucketStart = :bucketStart")
+    LatencySketch findForUpdate(@Param("siteId") Long siteId,
+                                @Param("resolution") UptimeRollup.Resolution resolution,
+                                @Param("bucketStart") LocalDateTime bucketStart);
+    
+    // Hour edges [from, dayFrom) and [dayTo, to) plus whole days [dayFrom, dayTo)
+    @Query("SELECT s FROM LatencySketch s WHERE s.siteId = :siteId AND (" +
+           "(s.resolution = 'HOUR' AND ((s.bucketStart >= :from AND s.bucketStart < :dayFrom) " +
+           "  OR (s.bucketStart >= :dayTo AND s.bucketStart < :to))) " +
+           "OR (s.resolution = 'DAY' AND s.bucketStart >= :dayFrom AND s.bucketStart < :dayTo))")
+    List<LatencySketch> findWindow(@Param("siteId") Long siteId,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("dayFrom") LocalDateTime dayFrom,
+                                   @Param("dayTo") LocalDateTime dayTo,
+                                   @Param("to") LocalDateTime to);
+    
+    @Query("SELECT s FROM LatencySketch s WHERE s.siteId IN :siteIds AND (" +
+           "(s.resolution = 'HOUR' AND ((s.bucketStart >= :from AND s.bucketStart < :dayFrom) " +
+           "  OR (s.bucketStart >= :dayTo AND s.bucketStart < :to))) " +
+           "OR (s.resolution = 'DAY' AND s.bucketStart >= :dayFrom AND s.bucketStart < :dayTo))")
+    List<LatencySketch> findWindowForSites(@Param("siteIds") Collection<Long> siteIds,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("dayFrom") LocalDateTime dayFrom,
+                                           @Param("dayTo") LocalDateTime dayTo,
+                                           @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query("DELETE FROM LatencySketch s WHERE s.resolution = :resolution AND s.bucketStart < :before")
+    int deleteOlderThan(@Param("resolution") UptimeRollup.Resolution resolution, @Param("before") LocalDateTime before);
+}
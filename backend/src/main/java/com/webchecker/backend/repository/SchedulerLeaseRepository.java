@@ -0,0 +1,60 @@
+package com.webchecker.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Partition leases for the in-process check scheduler. All expiry checks use the
+ * database clock so backend nodes with skewed clocks still agree on ownership.
+ */
+@Repository
+public class SchedulerLeaseRepository {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public void ensurePartitions(int partitions) {
+        jdbcTemplate.update("INSERT INTO scheduler_leases (partition_id) " +
+            "SELECT g FROM generate_series(0, ?) g ON CONFLICT DO NOTHING", partitions - 1);
+    }
+    
+    /**
+     * Refreshes this node's heartbeat and returns how many nodes are alive, including it.
+     */
+    public int heartbeat(String nodeId, long ttlMs) {
+        jdbcTemplate.update("INSERT INTO scheduler_nodes (node_id, expires_at) " +
+            "VALUES (?, now() + ? * interval '1 millisecond') " +
+            "ON CONFLICT (node_id) DO UPDATE SET expires_at = EXCLUDED.expires_at", nodeId, ttlMs);
+        jdbcTemplate.update("DELETE FROM scheduler_nodes WHERE expires_at < now() - interval '1 hour'");
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scheduler_nodes WHERE expires_at > now()", Integer.class);
+    }
+    
+    /**
+     * Extends every lease this node still owns and returns those partitions.
+     */
+    public List<Integer> renew(String nodeId, long ttlMs) {
+        return jdbcTemplate.queryForList("UPDATE scheduler_leases SET expires_at = now() + ? * interval '1 millisecond' " +
+            "WHERE owner = ? RETURNING partition_id", Integer.class, ttlMs, nodeId);
+    }
+    
+    /**
+     * Takes up to {@code count} partitions that are unowned or whose lease lapsed.
+     */
+    public List<Integer> claim(String nodeId, int count, long ttlMs) {
+        return jdbcTemplate.queryForList("UPDATE scheduler_leases SET owner = ?, " +
+            "expires_at = now() + ? * interval '1 millisecond' WHERE partition_id IN (" +
+            "SELECT partition_id FROM scheduler_leases WHERE owner IS NULL OR expires_at <= now() " +
+            "ORDER BY partition_id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING partition_id",
+            Integer.class, nodeId, ttlMs, count);
+    }
+    
+    public void release(String nodeId, List<Integer> partitionIds) {
+        for (Integer partitionId : partitionIds) {
+            jdbcTemplate.update("UPDATE scheduler_leases SET owner = NULL, expires_at = NULL " +
+                "WHERE partition_id = ? AND owner = ?", partitionId, nodeId);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.webchecker.backend.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Hands out site change versions. Versions are taken under a transaction-scoped
+ * advisory lock, so they become visible in the order they were assigned and a feed
+ * reader that has seen version N can never later observe a commit below N.
+ */
+@Repository
+@DependsOn("entityManagerFactory")
+public class SiteChangeVersionRepository {
+    
+    private static final long ADVISORY_LOCK_KEY = 0x5173_0001L;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PostConstruct
+    void initSequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS site_change_version_seq");
+        // Sites created before change versions existed join the feed on first start
+        jdbcTemplate.update("UPDATE sites SET change_version = nextval('site_change_version_seq') " +
+            "WHERE change_version IS NULL");
+    }
+    
+    /**
+     * Must be called inside the transaction that writes the site; the lock is held
+     * until that transaction ends. Site writes are user-driven, so serializing them
+     * costs nothing measurable.
+     */
+    public long nextVersion() {
+        RowCallbackHandler ignore = rs -> {};
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", ignore, ADVISORY_LOCK_KEY);
+        return jdbcTemplate.queryForObject("SELECT nextval('site_change_version_seq')", Long.class);
+    }
+    
+    /**
+     * Highest committed change version. Versions commit in order, so a feed reader
+     * starting here sees every later change.
+     */
+    public long currentVersion() {
+        return jdbcTemplate.queryForObject(
+            "SELECT GREATEST((SELECT COALESCE(MAX(change_version), 0) FROM sites), " +
+            "(SELECT COALESCE(MAX(change_version), 0) FROM site_tombstones))", Long.class);
+    }
+}
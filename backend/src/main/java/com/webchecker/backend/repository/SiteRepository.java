@@ -1,11 +1,16 @@
 package com.webchecker.backend.repository;
 
+import com.webchecker.backend.dto.SchedulerSiteDto;
+import com.webchecker.backend.dto.SiteDto;
 import com.webchecker.backend.entity.Site;
+import com.webchecker.backend.service.SiteSnapshot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,11 +18,45 @@ public interface SiteRepository extends JpaRepository<Site, Long> {
     
     List<Site> findByUserIdOrderByCreatedAtDesc(String userId);
     
+    // Constructor projection for listing; the caller adds query params for the page in one query
+    @Query("SELECT new com.webchecker.backend.dto.SiteDto(s.id, s.name, s.url, s.checkInterval, s.timeout, " +
+           "s.healthEndpoint, s.enabled, s.thresholds.uptimePercent, s.thresholds.maxLatency, s.thresholds.seoScore) " +
+           "FROM Site s WHERE s.userId = :userId")
+    List<SiteDto> findPageByUserId(@Param("userId") String userId, Pageable pageable);
+    
+    // Site cache loads; like the listing, query params follow in one query for all sites
+    @Query("SELECT new com.webchecker.backend.service.SiteSnapshot(s.id, s.userId, s.name, s.url, s.checkInterval, " +
+           "s.timeout, s.healthEndpoint, s.enabled, s.thresholds.uptimePercent, s.thresholds.maxLatency, " +
+           "s.thresholds.seoScore, s.createdAt) FROM Site s WHERE s.userId = :userId ORDER BY s.createdAt DESC, s.id DESC")
+    List<SiteSnapshot> findSnapshotsByUserId(@Param("userId") String userId);
+    
+    @Query("SELECT new com.webchecker.backend.service.SiteSnapshot(s.id, s.userId, s.name, s.url, s.checkInterval, " +
+           "s.timeout, s.healthEndpoint, s.enabled, s.thresholds.uptimePercent, s.thresholds.maxLatency, " +
+           "s.thresholds.seoScore, s.createdAt) FROM Site s WHERE s.id = :siteId")
+    List<SiteSnapshot> findSnapshotById(@Param("siteId") Long siteId);
+    
+    @Query(value = "SELECT site_id, param_key, param_value FROM site_query_params WHERE site_id IN (:siteIds)",
+           nativeQuery = true)
+    List<Object[]> findQueryParamsBySiteIds(@Param("siteIds") Collection<Long> siteIds);
+    
     List<Site> findByUserIdAndEnabledTrueOrderByCreatedAtDesc(String userId);
     
     @Query("SELECT s FROM Site s WHERE s.userId = :userId AND s.id = :siteId")
     Site findByUserIdAndId(@Param("userId") String userId, @Param("siteId") Long siteId);
     
+    // Constructor projection keeps the feed off the query-params collection
+    @Query("SELECT new com.webchecker.backend.dto.SchedulerSiteDto(s.id, s.name, s.url, s.checkInterval, s.timeout, " +
+           "s.enabled, s.userId, s.changeVersion) FROM Site s WHERE s.changeVersion > :since ORDER BY s.changeVersion ASC")
+    List<SchedulerSiteDto> findChangedSince(@Param("since") Long since, Pageable pageable);
+    
+    @Query("SELECT new com.webchecker.backend.dto.SchedulerSiteDto(s.id, s.name, s.url, s.checkInterval, s.timeout, " +
+           "s.enabled, s.userId, s.changeVersion) FROM Site s WHERE s.enabled = true AND MOD(s.id, :partitions) IN :partitionIds")
+    List<SchedulerSiteDto> findEnabledInPartitions(@Param("partitions") long partitions,
+                                                   @Param("partitionIds") Collection<Long> partitionIds);
+    
     @Query("SELECT COUNT(s) FROM Site s WHERE s.userId = :userId")
     Long countByUserId(@Param("userId") String userId);
+    
+    @Query("SELECT s.id FROM Site s ORDER BY s.id")
+    List<Long> findAllIds(Pageable pageable);
 }
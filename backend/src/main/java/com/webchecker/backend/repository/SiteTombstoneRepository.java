@@ -0,0 +1,14 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.SiteTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SiteTombstoneRepository extends JpaRepository<SiteTombstone, Long> {
+    
+    List<SiteTombstone> findByChangeVersionGreaterThanOrderByChangeVersionAsc(Long changeVersion, Pageable pageable);
+}
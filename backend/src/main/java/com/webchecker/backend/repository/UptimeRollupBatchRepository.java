@@ -0,0 +1,160 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.UptimeRollup;
+import com.webchecker.backend.entity.UptimeRollup.Resolution;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Applies partial rollup buckets as additive upserts, so concurrent ingesters can
+ * contribute to the same bucket without reading it first.
+ * <p>
+ * Also backfills the buckets of check results stored before rollups were kept. The
+ * backfill covers rows before a cutoff fixed on its first run: the start of the oldest
+ * minute bucket, i.e. roughly when ingest started writing rollups. Buckets wholly
+ * before the cutoff are only inserted where missing. Only the hour and day buckets
+ * containing the cutoff already hold ingested rows, so the older rows are added to
+ * them, and only if the minute rollups still reach back to the cutoff. Otherwise the
+ * cutoff is not when ingest started and those buckets are left alone. Progress is
+ * recorded per source table in the same transaction as its buckets, so the backfill
+ * resumes after a restart and never counts a table twice.
+ */
+@Repository
+public class UptimeRollupBatchRepository {
+    
+    private static final String UPSERT_SQL =
+        "INSERT INTO uptime_rollups (site_id, resolution, bucket_start, total_count, up_count, down_count, " +
+        "timeout_count, latency_sum, latency_min, latency_max) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (site_id, resolution, bucket_start) DO UPDATE SET " +
+        "total_count = uptime_rollups.total_count + EXCLUDED.total_count, " +
+        "up_count = uptime_rollups.up_count + EXCLUDED.up_count, " +
+        "down_count = uptime_rollups.down_count + EXCLUDED.down_count, " +
+        "timeout_count = uptime_rollups.timeout_count + EXCLUDED.timeout_count, " +
+        "latency_sum = uptime_rollups.latency_sum + EXCLUDED.latency_sum, " +
+        "latency_min = LEAST(uptime_rollups.latency_min, EXCLUDED.latency_min), " +
+        "latency_max = GREATEST(uptime_rollups.latency_max, EXCLUDED.latency_max)";
+    
+    private static final String BACKFILL_SELECT =
+        "INSERT INTO uptime_rollups (site_id, resolution, bucket_start, total_count, up_count, down_count, " +
+        "timeout_count, latency_sum, latency_min, latency_max) " +
+        "SELECT site_id, ?, date_trunc(?, timestamp) AS bucket_start, count(*), " +
+        "count(*) FILTER (WHERE status = 'UP'), count(*) FILTER (WHERE status = 'DOWN'), " +
+        "count(*) FILTER (WHERE status = 'TIMEOUT'), sum(response_time), min(response_time), max(response_time) " +
+        "FROM %s WHERE timestamp >= ? AND timestamp < ? GROUP BY site_id, date_trunc(?, timestamp) ";
+    private static final String BACKFILL_MISSING = BACKFILL_SELECT +
+        "ON CONFLICT (site_id, resolution, bucket_start) DO NOTHING";
+    private static final String BACKFILL_ADD = BACKFILL_SELECT + UPSERT_SQL.substring(UPSERT_SQL.indexOf("ON CONFLICT"));
+    
+    /**
+     * The backfill's fixed cutoff, and whether rows before it are added to the buckets
+     * containing it.
+     */
+    public record Backfill(LocalDateTime cutoff, boolean addToBoundary) {}
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @PostConstruct
+    void initBackfill() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS uptime_rollup_backfill (" +
+            "id int PRIMARY KEY, cutoff timestamp NOT NULL, add_to_boundary boolean NOT NULL, finished_at timestamp)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS uptime_rollup_backfill_sources (" +
+            "source varchar(63) PRIMARY KEY, backfilled_at timestamp NOT NULL DEFAULT now())");
+    }
+    
+    /**
+     * Callers should pass buckets in a stable order to avoid lock-order deadlocks
+     * between concurrent batches.
+     */
+    public void upsertAll(List<UptimeRollup> rollups) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rollups, rollups.size(), (ps, rollup) -> {
+            ps.setLong(1, rollup.getSiteId());
+            ps.setString(2, rollup.getResolution().name());
+            ps.setTimestamp(3, Timestamp.valueOf(rollup.getBucketStart()));
+            ps.setLong(4, rollup.getTotalCount());
+            ps.setLong(5, rollup.getUpCount());
+            ps.setLong(6, rollup.getDownCount());
+            ps.setLong(7, rollup.getTimeoutCount());
+            ps.setLong(8, rollup.getLatencySum());
+            ps.setObject(9, rollup.getLatencyMin(), Types.INTEGER);
+            ps.setObject(10, rollup.getLatencyMax(), Types.INTEGER);
+        });
+        sample.stop(meterRegistry.timer("webchecker.db.batch", "operation", "upsert_uptime_rollups"));
+        meterRegistry.summary("webchecker.db.batch.rows", "operation", "upsert_uptime_rollups").record(rollups.size());
+    }
+    
+    /**
+     * Fixes the cutoff on the first call and returns it, or empty once the backfill has
+     * finished. Minute rollups starting after minuteHorizon have not been pruned yet,
+     * so they still start where ingest began writing rollups.
+     */
+    public Optional<Backfill> beginBackfill(LocalDateTime minuteHorizon) {
+        jdbcTemplate.update("INSERT INTO uptime_rollup_backfill (id, cutoff, add_to_boundary) " +
+            "SELECT 1, coalesce(min(bucket_start), date_trunc('minute', now()::timestamp)), " +
+            "min(bucket_start) IS NULL OR min(bucket_start) > ? " +
+            "FROM uptime_rollups WHERE resolution = 'MINUTE' ON CONFLICT (id) DO NOTHING",
+            Timestamp.valueOf(minuteHorizon));
+        return jdbcTemplate.query("SELECT cutoff, add_to_boundary FROM uptime_rollup_backfill " +
+                "WHERE id = 1 AND finished_at IS NULL",
+            (rs, rowNum) -> new Backfill(rs.getTimestamp(1).toLocalDateTime(), rs.getBoolean(2))).stream().findFirst();
+    }
+    
+    /**
+     * Fills the buckets of one table's rows before the cutoff, skipping minute and hour
+     * buckets past their retention. Returns false if the table was already backfilled,
+     * possibly by another replica; a replica backfilling it concurrently holds the claim
+     * until it commits. Must run in a transaction.
+     */
+    public boolean backfillSource(String table, Backfill backfill, LocalDateTime minuteHorizon,
+                                  LocalDateTime hourHorizon) {
+        int claimed = jdbcTemplate.update("INSERT INTO uptime_rollup_backfill_sources (source) VALUES (?) " +
+            "ON CONFLICT (source) DO NOTHING", table);
+        if (claimed == 0) {
+            return false;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime cutoff = backfill.cutoff();
+        for (Resolution resolution : Resolution.values()) {
+            LocalDateTime from = switch (resolution) {
+                case MINUTE -> minuteHorizon;
+                case HOUR -> hourHorizon;
+                case DAY -> LocalDateTime.of(1970, 1, 1, 0, 0);
+            };
+            LocalDateTime boundary = resolution.bucketStart(cutoff);
+            backfillRange(BACKFILL_MISSING, table, resolution, from, boundary);
+            if (backfill.addToBoundary()) {
+                backfillRange(BACKFILL_ADD, table, resolution, from.isAfter(boundary) ? from : boundary, cutoff);
+            }
+        }
+        sample.stop(meterRegistry.timer("webchecker.db.batch", "operation", "backfill_uptime_rollups"));
+        return true;
+    }
+    
+    public void finishBackfill() {
+        jdbcTemplate.update("UPDATE uptime_rollup_backfill SET finished_at = now() WHERE id = 1");
+    }
+    
+    private void backfillRange(String sql, String table, Resolution resolution, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        String unit = resolution.name().toLowerCase(Locale.ROOT);
+        jdbcTemplate.update(String.format(sql, "\"" + table.replace("\"", "\"\"") + "\""),
+            resolution.name(), unit, Timestamp.valueOf(from), Timestamp.valueOf(to), unit);
+    }
+}
@@ -0,0 +1,87 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.UptimeRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UptimeRollupRepository extends JpaRepository<UptimeRollup, Long> {
+    
+    interface Totals {
+        Long getTotalCount();
+        Long getUpCount();
+        Long getDownCount();
+        Long getTimeoutCount();
+        Long getLatencySum();
+        Integer getLatencyMin();
+        Integer getLatencyMax();
+    }
+    
+    interface SiteTotals extends Totals {
+        Long getSiteId();
+    }
+    
+    interface SiteBucket {
+        Long getSiteId();
+        LocalDateTime getBucketStart();
+        long getTotalCount();
+        long getUpCount();
+    }
+    
+    // Sums a window decomposed into minute edges [from, hourFrom) and [hourTo, to),
+    // hour edges [hourFrom, dayFrom) and [dayTo, hourTo), and whole days [dayFrom, dayTo).
+    @Query("SELECT SUM(r.totalCount) AS totalCount, SUM(r.upCount) AS upCount, SUM(r.downCount) AS downCount, " +
+           "SUM(r.timeoutCount) AS timeoutCount, SUM(r.latencySum) AS latencySum, " +
+           "MIN(r.latencyMin) AS latencyMin, MAX(r.latencyMax) AS latencyMax " +
+           "FROM UptimeRollup r WHERE r.siteId = :siteId AND (" +
+           "(r.resolution = 'MINUTE' AND ((r.bucketStart >= :from AND r.bucketStart < :hourFrom) " +
+           "  OR (r.bucketStart >= :hourTo AND r.bucketStart < :to))) " +
+           "OR (r.resolution = 'HOUR' AND ((r.bucketStart >= :hourFrom AND r.bucketStart < :dayFrom) " +
+           "  OR (r.bucketStart >= :dayTo AND r.bucketStart < :hourTo))) " +
+           "OR (r.resolution = 'DAY' AND r.bucketStart >= :dayFrom AND r.bucketStart < :dayTo))")
+    Totals sumWindow(@Param("siteId") Long siteId,
+                     @Param("from") LocalDateTime from,
+                     @Param("hourFrom") LocalDateTime hourFrom,
+                     @Param("dayFrom") LocalDateTime dayFrom,
+                     @Param("dayTo") LocalDateTime dayTo,
+                     @Param("hourTo") LocalDateTime hourTo,
+                     @Param("to") LocalDateTime to);
+    
+    // sumWindow for many sites at once, one row per site with any buckets
+    @Query("SELECT r.siteId AS siteId, SUM(r.totalCount) AS totalCount, SUM(r.upCount) AS upCount, " +
+           "SUM(r.downCount) AS downCount, SUM(r.timeoutCount) AS timeoutCount, SUM(r.latencySum) AS latencySum, " +
+           "MIN(r.latencyMin) AS latencyMin, MAX(r.latencyMax) AS latencyMax " +
+           "FROM UptimeRollup r WHERE r.siteId IN :siteIds AND (" +
+           "(r.resolution = 'MINUTE' AND ((r.bucketStart >= :from AND r.bucketStart < :hourFrom) " +
+           "  OR (r.bucketStart >= :hourTo AND r.bucketStart < :to))) " +
+           "OR (r.resolution = 'HOUR' AND ((r.bucketStart >= :hourFrom AND r.bucketStart < :dayFrom) " +
+           "  OR (r.bucketStart >= :dayTo AND r.bucketStart < :hourTo))) " +
+           "OR (r.resolution = 'DAY' AND r.bucketStart >= :dayFrom AND r.bucketStart < :dayTo)) " +
+           "GROUP BY r.siteId")
+    List<SiteTotals> sumWindowBySite(@Param("siteIds") Collection<Long> siteIds,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("hourFrom") LocalDateTime hourFrom,
+                                     @Param("dayFrom") LocalDateTime dayFrom,
+                                     @Param("dayTo") LocalDateTime dayTo,
+                                     @Param("hourTo") LocalDateTime hourTo,
+                                     @Param("to") LocalDateTime to);
+    
+    List<UptimeRollup> findBySiteIdAndResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+        Long siteId, UptimeRollup.Resolution resolution, LocalDateTime from);
+    
+    @Query("SELECT r.siteId AS siteId, r.bucketStart AS bucketStart, r.totalCount AS totalCount, " +
+           "r.upCount AS upCount FROM UptimeRollup r WHERE r.resolution = :resolution AND r.bucketStart >= :from")
+    List<SiteBucket> findBuckets(@Param("resolution") UptimeRollup.Resolution resolution,
+                                 @Param("from") LocalDateTime from);
+    
+    @Modifying
+    @Query("DELETE FROM UptimeRollup r WHERE r.resolution = :resolution AND r.bucketStart < :before")
+    int deleteOlderThan(@Param("resolution") UptimeRollup.Resolution resolution, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,313 @@
+package com.webchecker.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.exception.ExportLimitExceededException;
+import com.webchecker.backend.exception.SiteNotFoundException;
+import com.webchecker.backend.repository.CheckResultArchiveRepository;
+import com.webchecker.backend.repository.CheckResultExportRepository;
+import com.webchecker.backend.repository.CheckResultExportRepository.RowConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a site's check history as CSV or NDJSON, optionally gzipped, in constant
+ * memory: archived rows are decoded one block at a time, live rows are read through a
+ * cursor, and each row is written out as soon as it is read. Every running export
+ * holds a database connection, so at most {@code max-concurrent} run at once.
+ * <p>
+ * Exports are the only long-running async responses, so their timeout,
+ * {@code timeout-minutes}, is applied to the export request alone rather than through
+ * {@code spring.mvc.async.request-timeout}.
+ */
+@Service
+public class CheckResultExportService {
+    
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    
+    @Autowired
+    private CheckResultExportRepository exportRepository;
+    
+    @Autowired
+    private CheckResultArchiveRepository archiveRepository;
+    
+    @Autowired
+    private SiteCache siteCache;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.export.max-concurrent:4}")
+    private int maxConcurrent;
+    
+    @Value("${webchecker.export.timeout-minutes:60}")
+    private long timeoutMinutes;
+    
+    private Semaphore permits;
+    private TransactionTemplate readTransaction;
+    
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+        
+        private final String contentType;
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public static Format parse(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+    
+    /**
+     * A started export. It holds one of the {@code max-concurrent} permits until the
+     * body has been written, or until the request completes if the body never ran.
+     * {@code lifecycle} must be registered with the request's WebAsyncManager; it sets
+     * the export timeout and returns the permit of a body that never ran.
+     */
+    public record Export(String filename, MediaType contentType, StreamingResponseBody body,
+                         CallableProcessingInterceptor lifecycle) {}
+    
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrent);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Exports the site's results from since (inclusive, default 30 days before until) to
+     * until (exclusive, default now), oldest first. Throws ExportLimitExceededException
+     * when the concurrent export limit is reached.
+     */
+    public Export export(Long siteId, String userId, LocalDateTime since, LocalDateTime until,
+                         Format format, boolean gzip) {
+        LocalDateTime upper = until != null ? until : LocalDateTime.now();
+        LocalDateTime lower = since != null ? since : upper.minusDays(CheckResultService.DEFAULT_WINDOW_DAYS);
+        if (!lower.isBefore(upper)) {
+            throw new IllegalArgumentException("since must be before until");
+        }
+        if (siteCache.getOwned(userId, siteId).isEmpty()) {
+            throw new SiteNotFoundException(siteId);
+        }
+        if (!permits.tryAcquire()) {
+            throw new ExportLimitExceededException(maxConcurrent);
+        }
+        String filename = String.format("site-%d-checks-%s-%s.%s%s", siteId, lower.toLocalDate(),
+            upper.toLocalDate(), format.extension, gzip ? ".gz" : "");
+        MediaType contentType = MediaType.parseMediaType(gzip ? "application/gzip" : format.contentType);
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        StreamingResponseBody body = out -> {
+            started.set(true);
+            try {
+                write(siteId, lower, upper, format, gzip, out);
+            } finally {
+                release.run();
+            }
+        };
+        long timeoutMillis = Duration.ofMinutes(timeoutMinutes).toMillis();
+        CallableProcessingInterceptor lifecycle = new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Called before the async request starts, while its timeout can still be changed
+                if (request instanceof AsyncWebRequest asyncRequest) {
+                    asyncRequest.setTimeout(timeoutMillis);
+                }
+            }
+            
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                // A body that started releases when it returns, after its connection is back
+                if (!started.get()) {
+                    release.run();
+                }
+            }
+        };
+        return new Export(filename, contentType, body, lifecycle);
+    }
+    
+    private void write(Long siteId, LocalDateTime since, LocalDateTime until, Format format, boolean gzip,
+                       OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_BYTES) : null;
+        OutputStream target = compressed != null ? compressed : out;
+        Counter rows = meterRegistry.counter("webchecker.export.rows", "format", format.extension);
+        RowWriter writer = format == Format.CSV ? new CsvWriter(target, rows) : new NdjsonWriter(target, rows);
+        // Archived partitions are all older than live ones
+        archiveRepository.scan(siteId, since, until, writer);
+        try {
+            readTransaction.executeWithoutResult(status -> exportRepository.scan(siteId, since, until, writer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+    }
+    
+    private interface RowWriter extends RowConsumer {
+        void finish() throws IOException;
+    }
+    
+    private static final class CsvWriter implements RowWriter {
+        
+        private final Writer out;
+        private final Counter rows;
+        
+        CsvWriter(OutputStream target, Counter rows) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_BYTES);
+            this.rows = rows;
+            out.write("id,site_id,timestamp,status,response_time,status_code,error,seo_score,anomaly_score\n");
+        }
+        
+        @Override
+        public void accept(CheckResult checkResult) throws IOException {
+            out.write(String.valueOf(checkResult.getId()));
+            out.write(',');
+            out.write(String.valueOf(checkResult.getSiteId()));
+            out.write(',');
+            out.write(TIMESTAMP.format(checkResult.getTimestamp()));
+            out.write(',');
+            out.write(checkResult.getStatus().name());
+            out.write(',');
+            out.write(String.valueOf(checkResult.getResponseTime()));
+            out.write(',');
+            if (checkResult.getStatusCode() != null) {
+                out.write(String.valueOf(checkResult.getStatusCode()));
+            }
+            out.write(',');
+            out.write(quote(checkResult.getError()));
+            out.write(',');
+            if (checkResult.getSeoScore() != null) {
+                out.write(String.valueOf(checkResult.getSeoScore()));
+            }
+            out.write(',');
+            if (checkResult.getAnomalyScore() != null) {
+                out.write(String.valueOf(checkResult.getAnomalyScore()));
+            }
+            out.write('\n');
+            rows.increment();
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+        
+        private static String quote(String value) {
+            if (value == null || value.isEmpty()) {
+                return "";
+            }
+            // Errors echo remote responses; keep spreadsheets from evaluating them as formulas
+            String text = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+    
+    private final class NdjsonWriter implements RowWriter {
+        
+        private final JsonGenerator json;
+        private final Counter rows;
+        private boolean written;
+        
+        NdjsonWriter(OutputStream target, Counter rows) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(target);
+            this.rows = rows;
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(new SerializedString("\n"));
+        }
+        
+        @Override
+        public void accept(CheckResult checkResult) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", checkResult.getId());
+            json.writeNumberField("siteId", checkResult.getSiteId());
+            json.writeStringField("timestamp", TIMESTAMP.format(checkResult.getTimestamp()));
+            json.writeStringField("status", checkResult.getStatus().name());
+            json.writeNumberField("responseTime", checkResult.getResponseTime());
+            writeNullableNumber("statusCode", checkResult.getStatusCode());
+            json.writeStringField("error", checkResult.getError());
+            writeNullableNumber("seoScore", checkResult.getSeoScore());
+            writeNullableNumber("anomalyScore", checkResult.getAnomalyScore());
+            json.writeEndObject();
+            written = true;
+            rows.increment();
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            if (written) {
+                json.writeRaw('\n');
+            }
+            json.flush();
+        }
+        
+        private void writeNullableNumber(String field, Integer value) throws IOException {
+            json.writeFieldName(field);
+            if (value != null) {
+                json.writeNumber(value);
+            } else {
+                json.writeNull();
+            }
+        }
+        
+        private void writeNullableNumber(String field, Double value) throws IOException {
+            json.writeFieldName(field);
+            if (value != null) {
+                json.writeNumber(value);
+            } else {
+                json.writeNull();
+            }
+        }
+    }
+}
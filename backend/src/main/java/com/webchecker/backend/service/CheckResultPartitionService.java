@@ -0,0 +1,140 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.repository.CheckResultArchiveRepository;
+import com.webchecker.backend.repository.CheckResultBatchRepository;
+import com.webchecker.backend.repository.CheckResultPartitionRepository;
+import com.webchecker.backend.repository.CheckResultPartitionRepository.Partition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Keeps check_results partitions ahead of ingestion and behind the retention period.
+ * Raw rows live for {@code retention-days}; an expired partition is first downsampled
+ * into uptime rollups, so uptime history survives it. With the default
+ * {@code expired-action: archive} its rows are then written to the compressed cold
+ * archive, where history reads still find them until {@code archive.retention-days},
+ * and the partition is dropped; {@code drop} discards the rows and {@code detach}
+ * leaves the table in the database for external archiving instead. A partition whose
+ * drop cannot get its lock in time is retried on the next run.
+ */
+@Service
+public class CheckResultPartitionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CheckResultPartitionService.class);
+    
+    @Autowired
+    private CheckResultPartitionRepository partitionRepository;
+    
+    @Autowired
+    private CheckResultArchiveRepository archiveRepository;
+    
+    @Autowired
+    private CheckResultBatchRepository batchRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.partitions.retention-days:30}")
+    private int retentionDays;
+    
+    @Value("${webchecker.partitions.expired-action:archive}")
+    private String expiredAction;
+    
+    @Value("${webchecker.archive.retention-days:365}")
+    private int archiveRetentionDays;
+    
+    @Value("${webchecker.rollups.hour-retention-days:90}")
+    private int hourRetentionDays;
+    
+    @Value("${webchecker.ingest.dedup.ledger-retention-hours:48}")
+    private int ledgerRetentionHours;
+    
+    private Counter createdPartitions;
+    private Counter retiredPartitions;
+    
+    @PostConstruct
+    void init() {
+        createdPartitions = meterRegistry.counter("webchecker.partitions", "operation", "created");
+        retiredPartitions = meterRegistry.counter("webchecker.partitions", "operation", "retired");
+    }
+    
+    @Scheduled(cron = "${webchecker.partitions.maintenance-cron:0 7 * * * *}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            batchRepository.pruneJobLedger(now.minusHours(ledgerRetentionHours));
+        } catch (RuntimeException e) {
+            log.error("Failed to prune the check result job ledger", e);
+        }
+        if (!partitionRepository.isEnabled()) {
+            return;
+        }
+        int created = partitionRepository.createPartitions(now);
+        if (created > 0) {
+            createdPartitions.increment(created);
+            log.info("Created {} check_results partitions", created);
+        }
+        retireExpired(now);
+    }
+    
+    private void retireExpired(LocalDateTime now) {
+        // Whole partitions only: one expires once its newest possible row is past retention
+        LocalDateTime cutoff = now.toLocalDate().minusDays(retentionDays).atStartOfDay();
+        LocalDateTime hourCutoff = now.minusDays(hourRetentionDays);
+        int strays = partitionRepository.deleteDefaultRowsBefore(cutoff);
+        if (strays > 0) {
+            log.warn("Deleted {} check results past retention from the default partition", strays);
+        }
+        String action = expiredAction.trim().toLowerCase(Locale.ROOT);
+        boolean keep = "detach".equals(action);
+        boolean archive = "archive".equals(action) && archiveRepository.isEnabled();
+        for (Partition partition : partitionRepository.listPartitions()) {
+            if (partition.to().isAfter(cutoff)) {
+                continue;
+            }
+            try {
+                int buckets;
+                if (archive) {
+                    try (CheckResultArchiveRepository.Writer writer = archiveRepository.openWriter(partition)) {
+                        buckets = partitionRepository.retire(partition, hourCutoff, false, writer);
+                    }
+                } else {
+                    buckets = partitionRepository.retire(partition, hourCutoff, keep, null);
+                }
+                if (buckets >= 0) {
+                    retiredPartitions.increment();
+                    log.info("{} partition {} after filling {} rollup buckets",
+                        keep ? "Detached" : archive ? "Archived" : "Dropped", partition.name(), buckets);
+                }
+            } catch (CannotAcquireLockException e) {
+                log.warn("Partition {} is in use; retiring it on the next run", partition.name());
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to retire partition {}", partition.name(), e);
+            }
+        }
+        if (archiveRepository.isEnabled()) {
+            try {
+                int deleted = archiveRepository.deleteOlderThan(now.toLocalDate().minusDays(archiveRetentionDays).atStartOfDay());
+                if (deleted > 0) {
+                    log.info("Deleted {} archived partitions past retention", deleted);
+                }
+                // Serves the files of the partitions just dropped without waiting for the next rescan
+                archiveRepository.refresh();
+            } catch (IOException e) {
+                log.error("Failed to prune or rescan the check result archive", e);
+            }
+        }
+    }
+}
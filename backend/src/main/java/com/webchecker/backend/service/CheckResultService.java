@@ -1,54 +1,299 @@
 package com.webchecker.backend.service;
 
 import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.dto.CheckResultPageDto;
+import com.webchecker.backend.dto.LatencyBaselineDto;
+import com.webchecker.backend.dto.LatencyPercentilesDto;
+import com.webchecker.backend.dto.SloStatusDto;
+import com.webchecker.backend.dto.SparklineDto;
+import com.webchecker.backend.dto.UptimeStatsDto;
 import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.exception.SiteNotFoundException;
+import com.webchecker.backend.repository.CheckResultArchiveRepository;
+import com.webchecker.backend.repository.CheckResultBatchRepository;
+import com.webchecker.backend.repository.CheckResultLatestRepository;
 import com.webchecker.backend.repository.CheckResultRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CheckResultService {
     
+    static final int DEFAULT_WINDOW_DAYS = 30;
+    static final int MAX_PAGE_SIZE = 500;
+    
     @Autowired
     private CheckResultRepository checkResultRepository;
     
-    public List<CheckResultDto> getRecentChecksByUserId(String userId) {
-        return checkResultRepository.findRecentByUserId(userId)
-            .stream()
+    @Autowired
+    private CheckResultBatchRepository checkResultBatchRepository;
+    
+    @Autowired
+    private CheckResultArchiveRepository archiveRepository;
+    
+    @Autowired
+    private CheckResultLatestRepository checkResultLatestRepository;
+    
+    @Autowired
+    private RecentCheckBuffer recentCheckBuffer;
+    
+    @Autowired
+    private SiteCache siteCache;
+    
+    @Autowired
+    private UptimeRollupService uptimeRollupService;
+    
+    @Autowired
+    private LatencySketchService latencySketchService;
+    
+    @Autowired
+    private LatencyBaselineService latencyBaselineService;
+    
+    @Autowired
+    private SloService sloService;
+    
+    @Autowired
+    private ResultDeduplicator resultDeduplicator;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    public CheckResultPageDto getRecentChecksByUserId(String userId, LocalDateTime since, LocalDateTime until,
+                                                      String cursor, int limit) {
+        HistoryWindow window = new HistoryWindow(since, until, cursor, limit);
+        List<Long> siteIds = siteCache.getByUser(userId).stream().map(SiteSnapshot::id).toList();
+        if (siteIds.isEmpty()) {
+            return new CheckResultPageDto(List.of(), null);
+        }
+        List<CheckResult> rows = timed("history.user", () -> checkResultRepository.findPageBySiteIds(
+            siteIds, window.since, window.beforeTimestamp, window.beforeId, window.pageable()));
+        return toPage(withArchived(rows, siteIds, window), window.limit);
+    }
+    
+    public CheckResultPageDto getChecksBySiteId(Long siteId, String userId, LocalDateTime since, LocalDateTime until,
+                                                String cursor, int limit) {
+        HistoryWindow window = new HistoryWindow(since, until, cursor, limit);
+        requireOwnedSite(siteId, userId);
+        List<CheckResult> rows = timed("history.site", () -> checkResultRepository.findPageBySiteId(
+            siteId, window.since, window.beforeTimestamp, window.beforeId, window.pageable()));
+        return toPage(withArchived(rows, List.of(siteId), window), window.limit);
+    }
+    
+    public CheckResultDto saveCheckResult(CheckResult checkResult) {
+        return saveCheckResults(List.of(checkResult)).get(0);
+    }
+    
+    /**
+     * Saves the results in one transaction. The returned list is aligned with the input;
+     * results whose job id was already stored are skipped and come back with a null id.
+     */
+    public List<CheckResultDto> saveCheckResults(List<CheckResult> checkResults) {
+        latencyBaselineService.score(checkResults);
+        List<CheckResult> saved = checkResultBatchRepository.insertAll(checkResults);
+        resultDeduplicator.recordDatabaseDuplicates(checkResults.size() - saved.size());
+        if (!saved.isEmpty()) {
+            uptimeRollupService.record(saved);
+            eventPublisher.publishEvent(new CheckResultsSavedEvent(saved));
+        }
+        return checkResults.stream()
+            .map(this::convertToDto)
+            .collect(Collectors.toList());
+    }
+    
+    public Double calculateUptimePercentage(Long siteId, String userId, TimeWindow window) {
+        return getUptimeStats(siteId, userId, window).getUptimePercent();
+    }
+    
+    public UptimeStatsDto getUptimeStats(Long siteId, String userId, TimeWindow window) {
+        requireOwnedSite(siteId, userId);
+        return timed("uptime", () -> uptimeRollupService.getStats(siteId, window));
+    }
+    
+    public LatencyPercentilesDto getLatencyPercentiles(Long siteId, String userId, TimeWindow window) {
+        requireOwnedSite(siteId, userId);
+        return timed("latency", () -> latencySketchService.getPercentiles(siteId, window));
+    }
+    
+    public LatencyBaselineDto getLatencyBaseline(Long siteId, String userId) {
+        requireOwnedSite(siteId, userId);
+        return latencyBaselineService.getBaseline(siteId);
+    }
+    
+    /**
+     * The site's SLO status, or null when SLO evaluation is disabled.
+     */
+    public SloStatusDto getSlo(Long siteId, String userId) {
+        requireOwnedSite(siteId, userId);
+        return sloService.getStatus(siteId);
+    }
+    
+    /**
+     * The site's latest results, newest first. Served from the recent check buffer;
+     * runs without a transaction so the buffered path never takes a connection.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CheckResultDto> getLatestChecks(Long siteId, String userId, int limit) {
+        List<CheckResult> rows = new ArrayList<>(recentChecks(siteId, userId, limit));
+        Collections.reverse(rows);
+        return rows.stream()
             .map(this::convertToDto)
             .collect(Collectors.toList());
     }
     
-    public List<CheckResultDto> getChecksBySiteId(Long siteId, String userId) {
-        return checkResultRepository.findBySiteIdAndUserId(siteId, userId)
-            .stream()
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SparklineDto getSparkline(Long siteId, String userId, int points) {
+        List<CheckResult> rows = recentChecks(siteId, userId, points);
+        SparklineDto sparkline = new SparklineDto();
+        sparkline.setSiteId(siteId);
+        sparkline.setTimestamps(rows.stream().map(CheckResult::getTimestamp).toList());
+        sparkline.setResponseTimes(rows.stream().mapToInt(CheckResult::getResponseTime).toArray());
+        sparkline.setStatuses(rows.stream().map(CheckResult::getStatus).toList());
+        return sparkline;
+    }
+    
+    // Oldest first; the database answers only until the buffer is warm or for sites it cannot hold
+    private List<CheckResult> recentChecks(Long siteId, String userId, int limit) {
+        if (limit < 1 || limit > recentCheckBuffer.getCapacity()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + recentCheckBuffer.getCapacity());
+        }
+        requireOwnedSite(siteId, userId);
+        return recentCheckBuffer.getRecent(siteId, limit).orElseGet(() ->
+            timed("recent.site", () -> checkResultLatestRepository.findRecent(
+                List.of(siteId), LocalDateTime.now().minus(recentCheckBuffer.getLookback()), limit)));
+    }
+    
+    private void requireOwnedSite(Long siteId, String userId) {
+        if (siteCache.getOwned(userId, siteId).isEmpty()) {
+            throw new SiteNotFoundException(siteId);
+        }
+    }
+    
+    public static CheckResult fromWorkerResult(CheckResultDto dto) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setSiteId(dto.getSiteId());
+        checkResult.setTimestamp(dto.getTimestamp() != null ? dto.getTimestamp() : LocalDateTime.now());
+        checkResult.setStatus(dto.getStatus());
+        checkResult.setResponseTime(dto.getResponseTime());
+        checkResult.setStatusCode(dto.getStatusCode());
+        checkResult.setError(dto.getError());
+        checkResult.setSeoScore(dto.getSeoScore());
+        checkResult.setJobId(dto.getJobId() == null || dto.getJobId().isBlank() ? null : dto.getJobId());
+        checkResult.setUserId("worker"); // Worker submissions don't have user context
+        return checkResult;
+    }
+    
+    // Query metrics are tagged by query shape only; user ids would explode cardinality
+    private <T> T timed(String query, Supplier<T> call) {
+        T result = meterRegistry.timer("webchecker.query", "query", query).record(call);
+        if (result instanceof List<?> rows) {
+            meterRegistry.summary("webchecker.query.rows", "query", query).record(rows.size());
+        }
+        return result;
+    }
+    
+    /**
+     * Continues a short page from the database into the cold archive. Archived rows are
+     * all older than live ones, so they simply follow the last live row.
+     */
+    private List<CheckResult> withArchived(List<CheckResult> rows, List<Long> siteIds, HistoryWindow window) {
+        if (rows.size() > window.limit || !archiveRepository.isEnabled()) {
+            return rows;
+        }
+        LocalDateTime beforeTimestamp = window.beforeTimestamp;
+        long beforeId = window.beforeId;
+        if (!rows.isEmpty()) {
+            CheckResult last = rows.get(rows.size() - 1);
+            beforeTimestamp = last.getTimestamp();
+            beforeId = last.getId();
+        }
+        LocalDateTime archiveBefore = beforeTimestamp;
+        long archiveBeforeId = beforeId;
+        List<CheckResult> archived = timed("history.archive", () -> archiveRepository.findPage(
+            siteIds, window.since, archiveBefore, archiveBeforeId, window.limit + 1 - rows.size()));
+        if (archived.isEmpty()) {
+            return rows;
+        }
+        List<CheckResult> merged = new ArrayList<>(rows);
+        merged.addAll(archived);
+        return merged;
+    }
+    
+    private CheckResultPageDto toPage(List<CheckResult> rows, int limit) {
+        // One extra row is fetched to tell whether another page exists
+        boolean hasMore = rows.size() > limit;
+        List<CheckResult> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            CheckResult last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getTimestamp(), last.getId());
+        }
+        List<CheckResultDto> items = page.stream()
             .map(this::convertToDto)
             .collect(Collectors.toList());
+        return new CheckResultPageDto(items, nextCursor);
     }
     
-    public CheckResultDto saveCheckResult(CheckResult checkResult) {
-        CheckResult saved = checkResultRepository.save(checkResult);
-        return convertToDto(saved);
+    static String encodeCursor(LocalDateTime timestamp, Long id) {
+        String raw = timestamp + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
     
-    public Double calculateUptimePercentage(Long siteId, String userId) {
-        Long successfulChecks = checkResultRepository.countSuccessfulChecks(siteId, userId);
-        Long totalChecks = checkResultRepository.countTotalChecks(siteId, userId);
+    /**
+     * Resolved bounds of a history request. Without an explicit since the window
+     * covers the last DEFAULT_WINDOW_DAYS days, so every query carries a time bound.
+     */
+    private static class HistoryWindow {
         
-        if (totalChecks == 0) {
-            return 0.0;
+        final LocalDateTime since;
+        final LocalDateTime beforeTimestamp;
+        final long beforeId;
+        final int limit;
+        
+        HistoryWindow(LocalDateTime since, LocalDateTime until, String cursor, int limit) {
+            LocalDateTime upper = until != null ? until : LocalDateTime.now();
+            this.since = since != null ? since : upper.minusDays(DEFAULT_WINDOW_DAYS);
+            this.limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            if (cursor == null || cursor.isEmpty()) {
+                this.beforeTimestamp = upper;
+                this.beforeId = 0L;
+            } else {
+                try {
+                    String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                    int separator = raw.lastIndexOf(',');
+                    this.beforeTimestamp = LocalDateTime.parse(raw.substring(0, separator));
+                    this.beforeId = Long.parseLong(raw.substring(separator + 1));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid cursor", e);
+                }
+            }
         }
         
-        return (successfulChecks.doubleValue() / totalChecks.doubleValue()) * 100.0;
+        Pageable pageable() {
+            return PageRequest.of(0, limit + 1);
+        }
     }
     
-    private CheckResultDto convertToDto(CheckResult checkResult) {
+    CheckResultDto convertToDto(CheckResult checkResult) {
         CheckResultDto dto = new CheckResultDto();
         dto.setId(checkResult.getId());
         dto.setSiteId(checkResult.getSiteId());
@@ -58,6 +303,8 @@ public class CheckResultService {
         dto.setStatusCode(checkResult.getStatusCode());
         dto.setError(checkResult.getError());
         dto.setSeoScore(checkResult.getSeoScore());
+        dto.setAnomalyScore(checkResult.getAnomalyScore());
+        dto.setJobId(checkResult.getJobId());
         return dto;
     }
 }
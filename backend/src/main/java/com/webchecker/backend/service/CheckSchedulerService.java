@@ -0,0 +1,424 @@
+package com.webchecker.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.dto.SchedulerSiteDto;
+import com.webchecker.backend.dto.SiteFeedDto;
+import com.webchecker.backend.entity.Site;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.SchedulerLeaseRepository;
+import com.webchecker.backend.repository.SiteChangeVersionRepository;
+import com.webchecker.backend.repository.SiteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional replacement for the Go scheduler's per-site polling loop. Sites are
+ * split into a fixed number of partitions (site id modulo partitions) leased from
+ * Postgres, so each backend replica schedules only its share. Owned sites sit in
+ * a timing wheel and due checks are published to the Redis job stream in one
+ * pipelined round trip per tick.
+ *
+ * Each site fires on a fixed phase within its interval derived from its id, so a
+ * partition moving between replicas keeps its schedule and checks stay spread out
+ * instead of bunching at the top of the minute.
+ *
+ * Site writes on this replica are applied right away; writes on other replicas are
+ * picked up by following the scheduler change feed every {@code sync-interval-ms}.
+ * After a gap in ticks (a lease lapse or a long pause) slots older than
+ * {@code max-catch-up-seconds} are skipped rather than published in one burst; those
+ * sites resume on their next phase.
+ *
+ * Ticks, lease renewals and feed syncs run on this service's own threads rather than
+ * the shared {@code @Scheduled} pool, so hourly maintenance there can neither stall
+ * the wheel nor let the leases lapse while this node still publishes.
+ */
+@Service
+public class CheckSchedulerService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CheckSchedulerService.class);
+    
+    @Autowired
+    private SiteRepository siteRepository;
+    
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+    
+    @Autowired
+    private SchedulerFeedService schedulerFeedService;
+    
+    @Autowired
+    private SiteChangeVersionRepository siteChangeVersionRepository;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.scheduler.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${webchecker.scheduler.partitions:64}")
+    private int partitions;
+    
+    @Value("${webchecker.scheduler.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+    
+    @Value("${webchecker.scheduler.lease-renew-interval-ms:10000}")
+    private long leaseRenewIntervalMs;
+    
+    @Value("${webchecker.scheduler.sync-interval-ms:5000}")
+    private long syncIntervalMs;
+    
+    @Value("${webchecker.scheduler.stream-key:check_jobs}")
+    private String streamKey;
+    
+    @Value("${webchecker.scheduler.node-id:}")
+    private String nodeId;
+    
+    @Value("${webchecker.scheduler.max-catch-up-seconds:5}")
+    private long maxCatchUpSeconds;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, TimingWheel.Entry<SchedulerSiteDto>> scheduled = new HashMap<>();
+    private final Set<Integer> ownedPartitions = new HashSet<>();
+    private TimingWheel<SchedulerSiteDto> wheel;
+    // Local deadline for the leases; past it another node may own our partitions
+    private volatile long leasesValidUntilNanos;
+    // Change feed position applied to the wheel; -1 until the first lease renewal
+    private volatile long syncedVersion = -1;
+    private Counter publishedJobs;
+    private Counter publishFailures;
+    private Counter skippedJobs;
+    private ScheduledExecutorService executor;
+    
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        wheel = new TimingWheel<>(epochSecond());
+        leasesValidUntilNanos = System.nanoTime();
+        publishedJobs = meterRegistry.counter("webchecker.scheduler.jobs", "outcome", "published");
+        publishFailures = meterRegistry.counter("webchecker.scheduler.jobs", "outcome", "failed");
+        skippedJobs = meterRegistry.counter("webchecker.scheduler.jobs", "outcome", "skipped");
+        meterRegistry.gauge("webchecker.scheduler.sites", scheduled, Map::size);
+        meterRegistry.gauge("webchecker.scheduler.partitions", ownedPartitions, Set::size);
+    }
+    
+    /**
+     * One thread per task, so a slow lease renewal or feed sync never delays a tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "check-scheduler-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(guarded(this::renewLeases), 0, leaseRenewIntervalMs, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(guarded(this::tick), 1000, 1000, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(guarded(this::syncChanges), syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    // An exception escaping a task would cancel its later runs
+    private static Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Check scheduler task failed", e);
+            }
+        };
+    }
+    
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        lock.lock();
+        try {
+            schedulerLeaseRepository.release(nodeId, new ArrayList<>(ownedPartitions));
+            ownedPartitions.clear();
+        } catch (RuntimeException e) {
+            log.warn("Failed to release scheduler leases; they will lapse after {} ms", leaseTtlMs, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    void renewLeases() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            // Taken before any partition is loaded, so the feed covers every later write
+            if (syncedVersion < 0) {
+                syncedVersion = siteChangeVersionRepository.currentVersion();
+            }
+            schedulerLeaseRepository.ensurePartitions(partitions);
+            int liveNodes = Math.max(1, schedulerLeaseRepository.heartbeat(nodeId, leaseTtlMs));
+            int fairShare = (partitions + liveNodes - 1) / liveNodes;
+            
+            List<Integer> owned = new ArrayList<>(schedulerLeaseRepository.renew(nodeId, leaseTtlMs));
+            if (owned.size() < fairShare) {
+                owned.addAll(schedulerLeaseRepository.claim(nodeId, fairShare - owned.size(), leaseTtlMs));
+            }
+            List<Integer> surplus = new ArrayList<>();
+            if (owned.size() > fairShare) {
+                owned.sort(null);
+                surplus.addAll(owned.subList(fairShare, owned.size()));
+                owned.removeAll(surplus);
+            }
+            
+            applyOwnership(new HashSet<>(owned));
+            leasesValidUntilNanos = startedAt + TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+            // Stop scheduling surplus partitions before another node can claim them
+            if (!surplus.isEmpty()) {
+                schedulerLeaseRepository.release(nodeId, surplus);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to renew scheduler leases", e);
+        }
+    }
+    
+    void tick() {
+        if (!enabled || System.nanoTime() - leasesValidUntilNanos > 0) {
+            return;
+        }
+        long now = epochSecond();
+        List<SchedulerSiteDto> due = new ArrayList<>();
+        lock.lock();
+        try {
+            long lag = now - wheel.currentTick();
+            if (lag > maxCatchUpSeconds) {
+                List<SchedulerSiteDto> stale = new ArrayList<>();
+                wheel.advanceTo(now - maxCatchUpSeconds, site -> {
+                    stale.add(site);
+                    scheduled.put(site.getId(), wheel.schedule(site, nextDeadline(site, now)));
+                });
+                if (!stale.isEmpty()) {
+                    skippedJobs.increment(stale.size());
+                    log.warn("Scheduler fell {} s behind; skipped {} stale checks until their next phase",
+                        lag, stale.size());
+                }
+            }
+            wheel.advanceTo(now, site -> {
+                due.add(site);
+                scheduled.put(site.getId(), wheel.schedule(site, nextDeadline(site, wheel.currentTick())));
+            });
+        } finally {
+            lock.unlock();
+        }
+        if (!due.isEmpty()) {
+            publish(due);
+        }
+    }
+    
+    /**
+     * Applies site writes made on other replicas, read from the scheduler change feed.
+     */
+    void syncChanges() {
+        if (!enabled || syncedVersion < 0) {
+            return;
+        }
+        try {
+            SiteFeedDto feed;
+            do {
+                feed = schedulerFeedService.getChangesSince(syncedVersion, SchedulerFeedService.MAX_LIMIT);
+                applyFeed(feed);
+                syncedVersion = feed.getVersion();
+            } while (feed.isHasMore());
+        } catch (RuntimeException e) {
+            log.error("Failed to sync site changes from version {}", syncedVersion, e);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Site site = event.getSite();
+        lock.lock();
+        try {
+            if (!ownedPartitions.contains(partitionOf(site.getId()))) {
+                return;
+            }
+            unschedule(site.getId());
+            if (event.getChangeType() != SiteChangedEvent.ChangeType.DELETED && Boolean.TRUE.equals(site.getEnabled())) {
+                SchedulerSiteDto job = new SchedulerSiteDto(site.getId(), site.getName(), site.getUrl(),
+                    site.getCheckInterval(), site.getTimeout(), site.getEnabled(), site.getUserId(), site.getChangeVersion());
+                // New sites get their first check right away, later ones follow the phase
+                long deadline = event.getChangeType() == SiteChangedEvent.ChangeType.CREATED
+                    ? wheel.currentTick() + 1
+                    : nextDeadline(job, wheel.currentTick());
+                scheduled.put(site.getId(), wheel.schedule(job, deadline));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void applyFeed(SiteFeedDto feed) {
+        lock.lock();
+        try {
+            for (Long siteId : feed.getRemoved()) {
+                unschedule(siteId);
+            }
+            for (SchedulerSiteDto site : feed.getSites()) {
+                if (!ownedPartitions.contains(partitionOf(site.getId()))) {
+                    continue;
+                }
+                TimingWheel.Entry<SchedulerSiteDto> current = scheduled.get(site.getId());
+                if (current == null) {
+                    // New or re-enabled elsewhere: check right away, as for local creates
+                    scheduled.put(site.getId(), wheel.schedule(site, wheel.currentTick() + 1));
+                } else if (isNewer(site, current.value)) {
+                    unschedule(site.getId());
+                    scheduled.put(site.getId(), wheel.schedule(site, nextDeadline(site, wheel.currentTick())));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Local events and partition loads may already have applied this version
+    private static boolean isNewer(SchedulerSiteDto site, SchedulerSiteDto scheduled) {
+        return site.getChangeVersion() == null || scheduled.getChangeVersion() == null
+            || site.getChangeVersion() > scheduled.getChangeVersion();
+    }
+    
+    private void applyOwnership(Set<Integer> owned) {
+        List<Long> gained = new ArrayList<>();
+        for (Integer partition : owned) {
+            if (!ownedPartitions.contains(partition)) {
+                gained.add(partition.longValue());
+            }
+        }
+        // Load outside the lock so ticks keep firing while a large partition loads
+        List<SchedulerSiteDto> gainedSites = gained.isEmpty()
+            ? List.of()
+            : siteRepository.findEnabledInPartitions(partitions, gained);
+            
+        boolean changed;
+        lock.lock();
+        try {
+            Set<Integer> lost = new HashSet<>(ownedPartitions);
+            lost.removeAll(owned);
+            if (!lost.isEmpty()) {
+                for (Long siteId : new ArrayList<>(scheduled.keySet())) {
+                    if (lost.contains(partitionOf(siteId))) {
+                        unschedule(siteId);
+                    }
+                }
+            }
+            for (SchedulerSiteDto site : gainedSites) {
+                unschedule(site.getId());
+                scheduled.put(site.getId(), wheel.schedule(site, nextDeadline(site, wheel.currentTick())));
+            }
+            changed = !lost.isEmpty() || !gained.isEmpty();
+            ownedPartitions.clear();
+            ownedPartitions.addAll(owned);
+        } finally {
+            lock.unlock();
+        }
+        if (changed) {
+            log.info("Scheduler node {} now owns {} partitions ({} sites scheduled)", nodeId, owned.size(), scheduled.size());
+        }
+    }
+    
+    private void publish(List<SchedulerSiteDto> due) {
+        List<String> payloads = new ArrayList<>(due.size());
+        for (SchedulerSiteDto site : due) {
+            Map<String, Object> job = new LinkedHashMap<>();
+            job.put("siteId", site.getId());
+            job.put("userId", site.getUserId());
+            job.put("url", site.getUrl());
+            job.put("timeout", site.getTimeout());
+            try {
+                payloads.add(objectMapper.writeValueAsString(job));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize check job for site {}", site.getId(), e);
+            }
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (String payload : payloads) {
+                    redis.xAdd(streamKey, Map.of("job", payload));
+                }
+                return null;
+            });
+            publishedJobs.increment(payloads.size());
+        } catch (RuntimeException e) {
+            // The sites stay scheduled and are picked up again on their next interval
+            publishFailures.increment(payloads.size());
+            log.error("Failed to publish {} check jobs", payloads.size(), e);
+        }
+    }
+    
+    private void unschedule(Long siteId) {
+        TimingWheel.Entry<SchedulerSiteDto> entry = scheduled.remove(siteId);
+        if (entry != null) {
+            wheel.cancel(entry);
+        }
+    }
+    
+    private int partitionOf(Long siteId) {
+        return (int) Math.floorMod(siteId, (long) partitions);
+    }
+    
+    // Next second after "now" that falls on the site's phase within its interval
+    static long nextDeadline(SchedulerSiteDto site, long now) {
+        long interval = Math.max(1, site.getCheckInterval() != null ? site.getCheckInterval() : 300);
+        long phase = Math.floorMod(site.getId() * 0x9E3779B97F4A7C15L, interval);
+        return now + interval - Math.floorMod(now - phase, interval);
+    }
+    
+    private static long epochSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
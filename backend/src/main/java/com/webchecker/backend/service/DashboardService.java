@@ -0,0 +1,150 @@
+package com.webchecker.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webchecker.backend.dto.DashboardSummaryDto;
+import com.webchecker.backend.dto.LatencyPercentilesDto;
+import com.webchecker.backend.dto.SiteSummaryDto;
+import com.webchecker.backend.dto.UptimeStatsDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.CheckResultLatestRepository;
+import com.webchecker.backend.repository.IncidentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the dashboard home page shows, in a fixed number of set-based queries
+ * however many sites the user has: sites from the site cache, 24h uptime from the
+ * rollups, 24h p95 from the latency sketches, the latest result per site (from the
+ * recent check buffer where it covers the site) and active incident counts. Summaries are cached per user for {@code cache-seconds}.
+ */
+@Service
+public class DashboardService {
+    
+    static final String WINDOW = "24h";
+    // Longer than the largest check interval, so every checked site has a latest result
+    static final Duration LATEST_LOOKBACK = Duration.ofDays(2);
+    
+    @Autowired
+    private SiteCache siteCache;
+    
+    @Autowired
+    private UptimeRollupService uptimeRollupService;
+    
+    @Autowired
+    private LatencySketchService latencySketchService;
+    
+    @Autowired
+    private RecentCheckBuffer recentCheckBuffer;
+    
+    @Autowired
+    private CheckResultLatestRepository checkResultLatestRepository;
+    
+    @Autowired
+    private IncidentRepository incidentRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.dashboard.cache-seconds:5}")
+    private long cacheSeconds;
+    
+    @Value("${webchecker.dashboard.cache-size:10000}")
+    private long cacheSize;
+    
+    private Cache<String, DashboardSummaryDto> summaries;
+    
+    @PostConstruct
+    void init() {
+        summaries = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(Duration.ofSeconds(cacheSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, summaries, "dashboard.summaries");
+    }
+    
+    public long getCacheSeconds() {
+        return cacheSeconds;
+    }
+    
+    public DashboardSummaryDto getSummary(String userId) {
+        return summaries.get(userId, this::summarize);
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        summaries.invalidate(event.getSite().getUserId());
+    }
+    
+    private DashboardSummaryDto summarize(String userId) {
+        return meterRegistry.timer("webchecker.query", "query", "dashboard.summary").record(() -> {
+            List<SiteSnapshot> sites = siteCache.getByUser(userId);
+            List<Long> siteIds = sites.stream().map(SiteSnapshot::id).toList();
+            TimeWindow window = TimeWindow.resolve(WINDOW, null, null);
+            
+            Map<Long, UptimeStatsDto> uptime = uptimeRollupService.getStats(siteIds, window);
+            Map<Long, LatencyPercentilesDto> latency = latencySketchService.getPercentiles(siteIds, window);
+            Map<Long, CheckResult> latest = recentCheckBuffer.getLatest(siteIds);
+            List<Long> uncovered = siteIds.stream().filter(id -> !recentCheckBuffer.covers(id)).toList();
+            latest.putAll(checkResultLatestRepository.findLatest(uncovered, window.getUntil().minus(LATEST_LOOKBACK)));
+            Map<Long, Long> incidents = new HashMap<>();
+            for (Object[] row : incidentRepository.countActiveBySite(userId)) {
+                incidents.put((Long) row[0], (Long) row[1]);
+            }
+            
+            DashboardSummaryDto summary = new DashboardSummaryDto();
+            summary.setGeneratedAt(window.getUntil());
+            List<SiteSummaryDto> items = new ArrayList<>(sites.size());
+            long totalChecks = 0;
+            long upChecks = 0;
+            double latencySum = 0;
+            for (SiteSnapshot site : sites) {
+                SiteSummaryDto item = new SiteSummaryDto();
+                item.setSiteId(site.id());
+                item.setName(site.name());
+                item.setUrl(site.url());
+                item.setEnabled(site.enabled());
+                CheckResult last = latest.get(site.id());
+                if (last != null) {
+                    item.setLastStatus(last.getStatus());
+                    item.setLastResponseTime(last.getResponseTime());
+                    item.setLastCheckedAt(last.getTimestamp());
+                }
+                UptimeStatsDto stats = uptime.get(site.id());
+                item.setChecks24h(stats.getTotalChecks());
+                if (stats.getTotalChecks() > 0) {
+                    item.setUptime24h(stats.getUptimePercent());
+                    totalChecks += stats.getTotalChecks();
+                    upChecks += stats.getUpChecks();
+                    latencySum += stats.getAvgLatency() * stats.getTotalChecks();
+                }
+                item.setP95Latency24h(latency.get(site.id()).getP95());
+                item.setActiveIncidents(incidents.getOrDefault(site.id(), 0L));
+                items.add(item);
+            }
+            summary.setSites(items);
+            summary.setTotalSites(sites.size());
+            summary.setActiveSites((int) sites.stream().filter(site -> Boolean.TRUE.equals(site.enabled())).count());
+            summary.setTotalChecks(totalChecks);
+            if (totalChecks > 0) {
+                summary.setUptime(upChecks * 100.0 / totalChecks);
+                summary.setAverageResponseTime(latencySum / totalChecks);
+            }
+            summary.setActiveIncidents(items.stream().mapToLong(SiteSummaryDto::getActiveIncidents).sum());
+            return summary;
+        });
+    }
+}
@@ -0,0 +1,564 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.Incident;
+import com.webchecker.backend.entity.Incident.IncidentType;
+import com.webchecker.backend.entity.Site;
+import com.webchecker.backend.entity.Thresholds;
+import com.webchecker.backend.entity.UptimeRollup;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.event.IncidentChangedEvent;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.IncidentRepository;
+import com.webchecker.backend.repository.SiteRepository;
+import com.webchecker.backend.repository.UptimeRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Opens and resolves incidents from the stream of committed check results. Each
+ * site has a small in-memory state machine (consecutive outcome counters and a
+ * per-minute sliding uptime window) updated in O(1) per result; the database is
+ * only touched on state transitions. State is rebuilt lazily per site from minute
+ * rollups and active incidents the first time a site reports after a restart.
+ * <p>
+ * Committed results are handed to {@code evaluator-threads} lanes, chosen by site id so
+ * each site's results stay in order, and evaluated off the ingest thread. A full lane
+ * holds up ingestion rather than dropping results. Replicas evaluating the same site
+ * share one incident: a partial unique index allows one active incident per site and
+ * type, and a replica whose insert loses the race adopts the existing incident.
+ */
+@Service
+public class IncidentDetectionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IncidentDetectionService.class);
+    
+    private static final long ADVISORY_LOCK_KEY = 0x5173_0003L;
+    private static final Pattern QUOTED_LITERAL = Pattern.compile("'([^']*)'");
+    
+    private static final String INSERT_INCIDENT =
+        "INSERT INTO incidents (site_id, type, status, started_at, message, user_id) " +
+        "VALUES (?, ?, 'ACTIVE', ?, ?, ?) " +
+        "ON CONFLICT (site_id, type) WHERE status = 'ACTIVE' DO NOTHING RETURNING id";
+    
+    @Autowired
+    private SiteRepository siteRepository;
+    
+    @Autowired
+    private IncidentRepository incidentRepository;
+    
+    @Autowired
+    private UptimeRollupRepository uptimeRollupRepository;
+    
+    @Autowired
+    private LatencyBaselineService latencyBaselineService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${webchecker.incidents.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${webchecker.incidents.down-after-failures:2}")
+    private int downAfterFailures;
+    
+    @Value("${webchecker.incidents.recover-after-successes:2}")
+    private int recoverAfterSuccesses;
+    
+    @Value("${webchecker.incidents.slow-after-checks:3}")
+    private int slowAfterChecks;
+    
+    @Value("${webchecker.incidents.seo-after-checks:2}")
+    private int seoAfterChecks;
+    
+    @Value("${webchecker.incidents.anomaly-after-checks:3}")
+    private int anomalyAfterChecks;
+    
+    @Value("${webchecker.incidents.uptime-window-minutes:60}")
+    private int uptimeWindowMinutes;
+    
+    @Value("${webchecker.incidents.uptime-min-checks:5}")
+    private int uptimeMinChecks;
+    
+    @Value("${webchecker.incidents.evaluator-threads:2}")
+    private int evaluatorThreads;
+    
+    @Value("${webchecker.incidents.evaluator-queue-capacity:10000}")
+    private int evaluatorQueueCapacity;
+    
+    private final Map<Long, SiteState> states = new ConcurrentHashMap<>();
+    private final List<BlockingQueue<CheckResult>> lanes = new ArrayList<>();
+    private final List<Thread> evaluators = new ArrayList<>();
+    private volatile boolean running;
+    
+    // Transitions are written after the ingest transaction committed, so they need their own
+    private TransactionTemplate transitionTransaction;
+    
+    @PostConstruct
+    void init() {
+        transitionTransaction = new TransactionTemplate(transactionManager);
+        transitionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        refreshTypeConstraint();
+        createActiveIncidentIndex();
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        int laneCapacity = Math.max(1, evaluatorQueueCapacity / evaluatorThreads);
+        for (int i = 0; i < evaluatorThreads; i++) {
+            BlockingQueue<CheckResult> lane = new ArrayBlockingQueue<>(laneCapacity);
+            Thread evaluator = new Thread(() -> drain(lane), "incident-evaluator-" + (i + 1));
+            evaluator.setDaemon(true);
+            evaluator.start();
+            lanes.add(lane);
+            evaluators.add(evaluator);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread evaluator : evaluators) {
+            evaluator.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+    
+    /**
+     * One active incident per site and type, so replicas evaluating the same site do not
+     * each open their own. Duplicates left from before the index are resolved first.
+     */
+    private void createActiveIncidentIndex() {
+        transitionTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {}, ADVISORY_LOCK_KEY);
+            Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_indexes WHERE indexname = 'uk_incidents_active_site_type'", Integer.class);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            int resolved = jdbcTemplate.update("UPDATE incidents SET status = 'RESOLVED', resolved_at = now() " +
+                "WHERE status = 'ACTIVE' AND id NOT IN " +
+                "(SELECT min(id) FROM incidents WHERE status = 'ACTIVE' GROUP BY site_id, type)");
+            jdbcTemplate.execute("CREATE UNIQUE INDEX uk_incidents_active_site_type ON incidents (site_id, type) " +
+                "WHERE status = 'ACTIVE'");
+            log.info("Created the active incident index after resolving {} duplicate incidents", resolved);
+        });
+    }
+    
+    /**
+     * Hibernate writes the check constraint on incidents.type only when it creates the
+     * table, so an existing table would reject types added since; rewrite it from the enum
+     * when the types it allows differ. An unchanged constraint is left alone, so a normal
+     * boot takes no exclusive lock on incidents.
+     */
+    private void refreshTypeConstraint() {
+        Set<String> types = Arrays.stream(IncidentType.values()).map(Enum::name).collect(Collectors.toSet());
+        transitionTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {}, ADVISORY_LOCK_KEY);
+            List<String> definitions = jdbcTemplate.queryForList("SELECT pg_get_constraintdef(oid) FROM pg_constraint " +
+                "WHERE conrelid = 'incidents'::regclass AND conname = 'incidents_type_check'", String.class);
+            if (!definitions.isEmpty() && types.equals(quotedLiterals(definitions.get(0)))) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE incidents DROP CONSTRAINT IF EXISTS incidents_type_check");
+            jdbcTemplate.execute("ALTER TABLE incidents ADD CONSTRAINT incidents_type_check CHECK (type IN (" +
+                types.stream().sorted().map(type -> "'" + type + "'").collect(Collectors.joining(", ")) + "))");
+            log.info("Rewrote incidents_type_check to allow {}", types);
+        });
+    }
+    
+    // The string literals of a constraint definition, e.g. the values of an IN or ANY list
+    private static Set<String> quotedLiterals(String definition) {
+        Set<String> literals = new HashSet<>();
+        Matcher matcher = QUOTED_LITERAL.matcher(definition);
+        while (matcher.find()) {
+            literals.add(matcher.group(1));
+        }
+        return literals;
+    }
+    
+    @TransactionalEventListener
+    public void onCheckResultsSaved(CheckResultsSavedEvent event) {
+        if (!running) {
+            return;
+        }
+        try {
+            for (CheckResult checkResult : event.getCheckResults()) {
+                lanes.get(Math.floorMod(checkResult.getSiteId().hashCode(), lanes.size())).put(checkResult);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void drain(BlockingQueue<CheckResult> lane) {
+        // Keep evaluating after shutdown starts until the lane is empty
+        while (running || !lane.isEmpty()) {
+            CheckResult checkResult;
+            try {
+                checkResult = lane.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (checkResult == null) {
+                continue;
+            }
+            try {
+                evaluate(checkResult);
+            } catch (RuntimeException e) {
+                log.error("Incident evaluation failed for site {}", checkResult.getSiteId(), e);
+            }
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        Site site = event.getSite();
+        if (event.getChangeType() == SiteChangedEvent.ChangeType.DELETED) {
+            SiteState state = states.remove(site.getId());
+            if (state != null) {
+                state.lock.lock();
+                try {
+                    for (IncidentType type : new ArrayList<>(state.activeIncidents.keySet())) {
+                        resolve(state, type, LocalDateTime.now());
+                    }
+                } finally {
+                    state.lock.unlock();
+                }
+            }
+            return;
+        }
+        SiteState state = states.get(site.getId());
+        if (state != null) {
+            state.lock.lock();
+            try {
+                state.applySite(site);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+    
+    public void evaluate(CheckResult checkResult) {
+        SiteState state = states.get(checkResult.getSiteId());
+        boolean restored = false;
+        if (state == null) {
+            SiteState loaded = loadState(checkResult.getSiteId());
+            if (loaded == null) {
+                return;
+            }
+            state = states.putIfAbsent(checkResult.getSiteId(), loaded);
+            if (state == null) {
+                state = loaded;
+                restored = true;
+            }
+        }
+        // A lock rather than a monitor: transitions do JDBC I/O while holding it,
+        // which would pin the carrier thread when running on virtual threads
+        state.lock.lock();
+        try {
+            // The result's minute rollup was committed with it, so a restored state already counts it
+            if (!restored) {
+                state.record(checkResult);
+            }
+            LocalDateTime at = checkResult.getTimestamp();
+            
+            if (!state.activeIncidents.containsKey(IncidentType.PAGE_DOWN)) {
+                if (state.consecutiveFailures >= downAfterFailures) {
+                    open(state, IncidentType.PAGE_DOWN, at,
+                        "Site is down: " + state.consecutiveFailures + " consecutive failed checks");
+                }
+            } else if (state.consecutiveSuccesses >= recoverAfterSuccesses) {
+                resolve(state, IncidentType.PAGE_DOWN, at);
+            }
+            
+            if (!state.activeIncidents.containsKey(IncidentType.UPTIME_BREACH)) {
+                if (state.uptimeBreached()) {
+                    open(state, IncidentType.UPTIME_BREACH, at, String.format(
+                        "Uptime %.2f%% is below the %d%% target over the last %d minutes",
+                        state.windowUptime(), state.uptimeTarget, uptimeWindowMinutes));
+                }
+            } else if (!state.uptimeBreached()) {
+                resolve(state, IncidentType.UPTIME_BREACH, at);
+            }
+            
+            if (!state.activeIncidents.containsKey(IncidentType.SLOW_4G)) {
+                if (state.consecutiveSlow >= slowAfterChecks) {
+                    open(state, IncidentType.SLOW_4G, at, "Response time " + checkResult.getResponseTime() +
+                        "ms exceeded " + state.maxLatency + "ms for " + state.consecutiveSlow + " consecutive checks");
+                }
+            } else if (state.consecutiveFast >= slowAfterChecks) {
+                resolve(state, IncidentType.SLOW_4G, at);
+            }
+            
+            if (!state.activeIncidents.containsKey(IncidentType.SEO_DROP)) {
+                if (state.consecutiveSeoLow >= seoAfterChecks) {
+                    open(state, IncidentType.SEO_DROP, at, "SEO score " + checkResult.getSeoScore() +
+                        " is below the threshold of " + state.seoTarget);
+                }
+            } else if (state.consecutiveSeoOk >= seoAfterChecks) {
+                resolve(state, IncidentType.SEO_DROP, at);
+            }
+            
+            if (!state.activeIncidents.containsKey(IncidentType.SLOW_ANOMALY)) {
+                if (state.consecutiveAnomalous >= anomalyAfterChecks) {
+                    open(state, IncidentType.SLOW_ANOMALY, at, String.format(
+                        "Response time %dms is %.1f standard deviations above the site's baseline for %d consecutive checks",
+                        checkResult.getResponseTime(), checkResult.getAnomalyScore(), state.consecutiveAnomalous));
+                }
+            } else if (state.consecutiveTypical >= anomalyAfterChecks) {
+                resolve(state, IncidentType.SLOW_ANOMALY, at);
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+    
+    private void open(SiteState state, IncidentType type, LocalDateTime at, String message) {
+        Incident incident = new Incident(state.siteId, type, message, state.userId);
+        incident.setStartedAt(at);
+        Long id = transitionTransaction.execute(status -> {
+            List<Long> inserted = jdbcTemplate.queryForList(INSERT_INCIDENT, Long.class,
+                state.siteId, type.name(), at, message, state.userId);
+            if (!inserted.isEmpty()) {
+                incident.setId(inserted.get(0));
+                return incident.getId();
+            }
+            // Another replica opened it first
+            return incidentRepository.findActiveBySiteId(state.siteId).stream()
+                .filter(active -> active.getType() == type)
+                .map(Incident::getId)
+                .findFirst()
+                .orElse(null);
+        });
+        if (id == null) {
+            return; // opened and resolved again in between; the next result re-evaluates
+        }
+        state.activeIncidents.put(type, id);
+        if (incident.getId() == null) {
+            log.info("Adopted {} incident {} for site {} from another replica", type, id, state.siteId);
+            return;
+        }
+        log.info("Opened {} incident {} for site {}", type, id, state.siteId);
+        eventPublisher.publishEvent(new IncidentChangedEvent(incident));
+    }
+    
+    /**
+     * Resolves the cached incident only if it is still active, so a replica holding a
+     * stale id neither moves resolved_at of an incident another replica resolved nor
+     * announces it twice. The cached id is dropped either way.
+     */
+    private void resolve(SiteState state, IncidentType type, LocalDateTime at) {
+        Long incidentId = state.activeIncidents.remove(type);
+        Incident resolved = transitionTransaction.execute(status -> {
+            int updated = jdbcTemplate.update("UPDATE incidents SET status = 'RESOLVED', resolved_at = ? " +
+                "WHERE id = ? AND status = 'ACTIVE'", at, incidentId);
+            return updated == 0 ? null : incidentRepository.findById(incidentId).orElse(null);
+        });
+        if (resolved == null) {
+            log.info("{} incident {} for site {} was already resolved by another replica", type, incidentId, state.siteId);
+            return;
+        }
+        log.info("Resolved {} incident {} for site {}", type, incidentId, state.siteId);
+        eventPublisher.publishEvent(new IncidentChangedEvent(resolved));
+    }
+    
+    private SiteState loadState(Long siteId) {
+        Site site = siteRepository.findById(siteId).orElse(null);
+        if (site == null) {
+            return null;
+        }
+        SiteState state = new SiteState(siteId, uptimeWindowMinutes, uptimeMinChecks, latencyBaselineService.getThreshold());
+        state.applySite(site);
+        for (Incident incident : incidentRepository.findActiveBySiteId(siteId)) {
+            state.activeIncidents.put(incident.getType(), incident.getId());
+        }
+        
+        List<UptimeRollup> minutes = uptimeRollupRepository
+            .findBySiteIdAndResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+                siteId, UptimeRollup.Resolution.MINUTE, LocalDateTime.now().minusMinutes(uptimeWindowMinutes));
+        for (UptimeRollup minute : minutes) {
+            state.restoreMinute(minute);
+        }
+        return state;
+    }
+    
+    static final class SiteState {
+        
+        final Long siteId;
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<IncidentType, Long> activeIncidents = new EnumMap<>(IncidentType.class);
+        
+        String userId;
+        int uptimeTarget;
+        int maxLatency;
+        int seoTarget;
+        
+        int consecutiveFailures;
+        int consecutiveSuccesses;
+        int consecutiveSlow;
+        int consecutiveFast;
+        int consecutiveSeoLow;
+        int consecutiveSeoOk;
+        int consecutiveAnomalous;
+        int consecutiveTypical;
+        
+        // Ring of per-minute counters covering the uptime window
+        private final long[] slotMinute;
+        private final int[] slotTotal;
+        private final int[] slotUp;
+        private final int minChecks;
+        private final double anomalyThreshold;
+        private long latestMinute = Long.MIN_VALUE;
+        private int windowTotal;
+        private int windowUp;
+        
+        SiteState(Long siteId, int windowMinutes, int minChecks, double anomalyThreshold) {
+            this.siteId = siteId;
+            this.slotMinute = new long[windowMinutes];
+            this.slotTotal = new int[windowMinutes];
+            this.slotUp = new int[windowMinutes];
+            this.minChecks = minChecks;
+            this.anomalyThreshold = anomalyThreshold;
+        }
+        
+        // A threshold left unset disables its check; Hibernate maps all-null thresholds to null
+        void applySite(Site site) {
+            Thresholds thresholds = site.getThresholds();
+            userId = site.getUserId();
+            uptimeTarget = valueOr(thresholds != null ? thresholds.getUptimePercent() : null, 0);
+            maxLatency = valueOr(thresholds != null ? thresholds.getMaxLatency() : null, Integer.MAX_VALUE);
+            seoTarget = valueOr(thresholds != null ? thresholds.getSeoScore() : null, 0);
+        }
+        
+        private static int valueOr(Integer value, int unset) {
+            return value != null ? value : unset;
+        }
+        
+        void record(CheckResult checkResult) {
+            boolean up = checkResult.getStatus() == CheckResult.CheckStatus.UP;
+            if (up) {
+                consecutiveSuccesses++;
+                consecutiveFailures = 0;
+                if (checkResult.getResponseTime() > maxLatency) {
+                    consecutiveSlow++;
+                    consecutiveFast = 0;
+                } else {
+                    consecutiveFast++;
+                    consecutiveSlow = 0;
+                }
+                // Unscored results (baseline still warming up) leave the run as it is
+                if (checkResult.getAnomalyScore() != null) {
+                    if (checkResult.getAnomalyScore() >= anomalyThreshold) {
+                        consecutiveAnomalous++;
+                        consecutiveTypical = 0;
+                    } else {
+                        consecutiveTypical++;
+                        consecutiveAnomalous = 0;
+                    }
+                }
+            } else {
+                consecutiveFailures++;
+                consecutiveSuccesses = 0;
+            }
+            if (checkResult.getSeoScore() != null) {
+                if (checkResult.getSeoScore() < seoTarget) {
+                    consecutiveSeoLow++;
+                    consecutiveSeoOk = 0;
+                } else {
+                    consecutiveSeoOk++;
+                    consecutiveSeoLow = 0;
+                }
+            }
+            addToWindow(toMinute(checkResult.getTimestamp()), 1, up ? 1 : 0);
+        }
+        
+        void restoreMinute(UptimeRollup minute) {
+            addToWindow(toMinute(minute.getBucketStart()), (int) minute.getTotalCount(), (int) minute.getUpCount());
+            if (minute.getUpCount() == 0) {
+                consecutiveFailures += (int) minute.getTotalCount();
+                consecutiveSuccesses = 0;
+            } else {
+                consecutiveFailures = 0;
+                consecutiveSuccesses = 1;
+            }
+        }
+        
+        boolean uptimeBreached() {
+            return windowTotal >= minChecks && windowUptime() < uptimeTarget;
+        }
+        
+        double windowUptime() {
+            return windowTotal == 0 ? 100.0 : (windowUp * 100.0) / windowTotal;
+        }
+        
+        private void addToWindow(long minute, int total, int up) {
+            int size = slotMinute.length;
+            if (minute > latestMinute) {
+                // Expire every slot that falls out of the window; bounded by the window size
+                long firstStale = latestMinute == Long.MIN_VALUE ? minute - size + 1 : Math.max(latestMinute + 1, minute - size + 1);
+                for (long m = firstStale; m <= minute; m++) {
+                    clearSlot((int) Math.floorMod(m, size));
+                }
+                latestMinute = minute;
+            } else if (minute <= latestMinute - size) {
+                return; // older than the window
+            }
+            int slot = (int) Math.floorMod(minute, size);
+            if (slotMinute[slot] != minute) {
+                clearSlot(slot);
+                slotMinute[slot] = minute;
+            }
+            slotTotal[slot] += total;
+            slotUp[slot] += up;
+            windowTotal += total;
+            windowUp += up;
+        }
+        
+        private void clearSlot(int slot) {
+            windowTotal -= slotTotal[slot];
+            windowUp -= slotUp[slot];
+            slotTotal[slot] = 0;
+            slotUp[slot] = 0;
+        }
+        
+        private static long toMinute(LocalDateTime timestamp) {
+            return timestamp.toEpochSecond(ZoneOffset.UTC) / 60;
+        }
+    }
+}
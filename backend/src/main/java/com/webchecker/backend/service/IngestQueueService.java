@@ -0,0 +1,220 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decouples worker ingestion from the database. Requests only enqueue results and
+ * a small pool of writer threads drains the queue, saving whatever has accumulated
+ * (up to {@code batch-size}) in one transaction. The queue is bounded: once full,
+ * offers fail and the API answers 429, so a slow database pushes back on workers
+ * instead of tying up request threads and connections needed by the dashboard.
+ * <p>
+ * Off by default because it changes the worker API (202 without a body, batch items
+ * {@code QUEUED} without ids) and queued results live in memory only, so they are
+ * lost if the process dies before a writer commits them.
+ */
+@Service
+public class IngestQueueService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IngestQueueService.class);
+    
+    @Autowired
+    private CheckResultService checkResultService;
+    
+    @Autowired
+    private ResultSpoolService resultSpool;
+    
+    @Autowired
+    private ResultDeduplicator resultDeduplicator;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.ingest.queue.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${webchecker.ingest.queue.capacity:10000}")
+    private int capacity;
+    
+    @Value("${webchecker.ingest.queue.writer-threads:2}")
+    private int writerThreads;
+    
+    @Value("${webchecker.ingest.queue.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${webchecker.ingest.queue.max-attempts:3}")
+    private int maxAttempts;
+    
+    private final BlockingQueue<QueuedResult> queue = new LinkedBlockingQueue<>();
+    // Counts queued plus in-flight results, so memory stays bounded while writers retry
+    private Semaphore slots;
+    private ExecutorService writers;
+    private volatile boolean running;
+    private Timer queueLatency;
+    private Counter rejectedResults;
+    private Counter droppedResults;
+    
+    private static final class QueuedResult {
+        final CheckResult checkResult;
+        final long enqueuedAt;
+        
+        QueuedResult(CheckResult checkResult, long enqueuedAt) {
+            this.checkResult = checkResult;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(capacity);
+        queueLatency = Timer.builder("webchecker.ingest.queue.latency")
+            .description("Time from enqueue to commit")
+            .register(meterRegistry);
+        rejectedResults = meterRegistry.counter("webchecker.ingest.queue.rejected");
+        droppedResults = meterRegistry.counter("webchecker.ingest.queue.dropped");
+        meterRegistry.gauge("webchecker.ingest.queue.depth", this, service -> service.depth());
+        
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-writer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < writerThreads; i++) {
+            writers.submit(this::drain);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (writers != null) {
+            writers.shutdown();
+            if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Ingest queue shut down with {} results unsaved", depth());
+            }
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int depth() {
+        return slots == null ? 0 : capacity - slots.availablePermits();
+    }
+    
+    /**
+     * Enqueues all results or none of them; returns false when the queue lacks room.
+     */
+    public boolean offerAll(List<CheckResult> checkResults) {
+        if (!running || !slots.tryAcquire(checkResults.size())) {
+            rejectedResults.increment(checkResults.size());
+            return false;
+        }
+        long now = System.nanoTime();
+        for (CheckResult checkResult : checkResults) {
+            queue.add(new QueuedResult(checkResult, now));
+        }
+        return true;
+    }
+    
+    private void drain() {
+        List<QueuedResult> batch = new ArrayList<>(batchSize);
+        // Keep draining after shutdown starts until everything queued is saved
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedResult first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                slots.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+    
+    private void write(List<QueuedResult> batch) throws InterruptedException {
+        List<CheckResult> checkResults = new ArrayList<>(batch.size());
+        for (QueuedResult queued : batch) {
+            checkResults.add(queued.checkResult);
+        }
+        
+        // Spooled results have to commit first, so new ones line up behind them
+        if (resultSpool.hasBacklog() && resultSpool.append(checkResults)) {
+            return;
+        }
+        
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                checkResultService.saveCheckResults(checkResults);
+                recordLatency(batch);
+                return;
+            } catch (RuntimeException e) {
+                // Retrying against a database that is down only fills the queue; spool instead
+                if (ResultSpoolService.isDatabaseUnavailable(e) && resultSpool.append(checkResults)) {
+                    log.warn("Database unavailable; spooled {} queued results", batch.size());
+                    return;
+                }
+                log.warn("Saving {} queued results failed (attempt {}/{})", batch.size(), attempt, maxAttempts, e);
+                // While this writer backs off the queue fills up and the API starts answering 429
+                if (attempt < maxAttempts) {
+                    Thread.sleep(250L << Math.min(attempt, 5));
+                }
+            }
+        }
+        
+        // Isolate the result that keeps failing instead of losing the whole batch
+        for (QueuedResult queued : batch) {
+            try {
+                checkResultService.saveCheckResults(List.of(queued.checkResult));
+                recordLatency(List.of(queued));
+            } catch (RuntimeException e) {
+                if (ResultSpoolService.isDatabaseUnavailable(e) && resultSpool.append(List.of(queued.checkResult))) {
+                    continue;
+                }
+                droppedResults.increment();
+                resultDeduplicator.release(queued.checkResult);
+                log.error("Dropping check result for site {}", queued.checkResult.getSiteId(), e);
+            }
+        }
+    }
+    
+    private void recordLatency(List<QueuedResult> saved) {
+        long now = System.nanoTime();
+        for (QueuedResult queued : saved) {
+            queueLatency.record(now - queued.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
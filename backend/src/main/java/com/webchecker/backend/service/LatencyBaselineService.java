@@ -0,0 +1,267 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.LatencyBaselineDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.CheckResultLatestRepository;
+import com.webchecker.backend.repository.SiteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive response-time baseline per site: an exponentially weighted mean and
+ * variance of successful checks' response times, updated in O(1) per committed
+ * result. Results are scored before they are stored, as their distance from the mean
+ * in standard deviations, so history keeps the score each result had at ingest.
+ * Baselines live in memory and are rebuilt at startup, off the ingest path, by a
+ * warm-up thread that reads the sites' latest results in batches of site ids. Until a
+ * site's baseline is loaded its results are not scored and do not update it; the
+ * warm-up reads them from the database instead. Sites without a baseline after the
+ * warm-up, such as new ones, start an empty one on their first result.
+ */
+@Service
+public class LatencyBaselineService {
+    
+    private static final Logger log = LoggerFactory.getLogger(LatencyBaselineService.class);
+    
+    // Updates are clipped to this many deviations so a single outlier barely moves the baseline
+    static final double CLIP_STDDEVS = 4.0;
+    
+    @Autowired
+    private RecentCheckBuffer recentCheckBuffer;
+    
+    @Autowired
+    private CheckResultLatestRepository checkResultLatestRepository;
+    
+    @Autowired
+    private SiteRepository siteRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.anomaly.enabled:true}")
+    private boolean enabled;
+    
+    // Weight of the newest result; the baseline follows roughly the last 2 / alpha checks
+    @Value("${webchecker.anomaly.alpha:0.05}")
+    private double alpha;
+    
+    @Value("${webchecker.anomaly.warmup-samples:30}")
+    private int warmupSamples;
+    
+    @Value("${webchecker.anomaly.threshold:3.0}")
+    private double threshold;
+    
+    // Lower bounds on the deviation, so very steady sites don't flag a few ms of jitter
+    @Value("${webchecker.anomaly.min-stddev-ms:20}")
+    private double minStddevMs;
+    
+    @Value("${webchecker.anomaly.min-stddev-ratio:0.05}")
+    private double minStddevRatio;
+    
+    @Value("${webchecker.anomaly.warmup-batch-size:500}")
+    private int warmupBatchSize;
+    
+    private final Map<Long, Baseline> baselines = new ConcurrentHashMap<>();
+    private volatile boolean warm;
+    private volatile boolean running;
+    
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("webchecker.anomaly.baselines", baselines, Map::size);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread warmup = new Thread(this::warmUp, "latency-baselines-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+    }
+    
+    public double getThreshold() {
+        return threshold;
+    }
+    
+    /**
+     * Sets the anomaly score of each successful result against its site's current
+     * baseline. Called before the results are inserted; the baselines themselves only
+     * move once the results are committed.
+     */
+    public void score(List<CheckResult> checkResults) {
+        if (!enabled) {
+            return;
+        }
+        for (CheckResult checkResult : checkResults) {
+            Baseline baseline;
+            if (checkResult.getStatus() == CheckResult.CheckStatus.UP
+                && (baseline = baseline(checkResult.getSiteId())) != null) {
+                checkResult.setAnomalyScore(baseline.score(checkResult.getResponseTime()));
+            }
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onCheckResultsSaved(CheckResultsSavedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (CheckResult checkResult : event.getCheckResults()) {
+            Baseline baseline;
+            if (checkResult.getStatus() == CheckResult.CheckStatus.UP
+                && (baseline = baseline(checkResult.getSiteId())) != null) {
+                baseline.update(checkResult);
+            }
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        if (event.getChangeType() == SiteChangedEvent.ChangeType.DELETED) {
+            baselines.remove(event.getSite().getId());
+        }
+    }
+    
+    public LatencyBaselineDto getBaseline(Long siteId) {
+        Baseline baseline = enabled ? baseline(siteId) : null;
+        LatencyBaselineDto dto = baseline != null ? baseline.toDto() : new LatencyBaselineDto();
+        dto.setSiteId(siteId);
+        dto.setThreshold(threshold);
+        return dto;
+    }
+    
+    /**
+     * The site's baseline, or null while the warm-up has not reached it yet.
+     */
+    private Baseline baseline(Long siteId) {
+        Baseline baseline = baselines.get(siteId);
+        if (baseline != null || !warm) {
+            return baseline;
+        }
+        return baselines.computeIfAbsent(siteId, id -> new Baseline());
+    }
+    
+    /**
+     * Builds the baselines of every site from its newest results in batches of site ids,
+     * from the recent check buffer where it covers the site. A result committed between
+     * a batch's read and its baselines being published is left out of them.
+     */
+    private void warmUp() {
+        long started = System.nanoTime();
+        int limit = recentCheckBuffer.getCapacity();
+        LocalDateTime since = LocalDateTime.now().minus(recentCheckBuffer.getLookback());
+        int sites = 0;
+        try {
+            for (int page = 0; running; page++) {
+                List<Long> siteIds = siteRepository.findAllIds(PageRequest.of(page, warmupBatchSize));
+                if (siteIds.isEmpty()) {
+                    break;
+                }
+                Map<Long, Baseline> seeded = new HashMap<>();
+                List<Long> uncovered = new ArrayList<>();
+                for (Long siteId : siteIds) {
+                    seeded.put(siteId, new Baseline());
+                    recentCheckBuffer.getRecent(siteId, limit).ifPresentOrElse(
+                        recent -> recent.forEach(checkResult -> seed(seeded, checkResult)),
+                        () -> uncovered.add(siteId));
+                }
+                for (CheckResult checkResult : checkResultLatestRepository.findRecent(uncovered, since, limit)) {
+                    seed(seeded, checkResult);
+                }
+                // A site deleted meanwhile may get a baseline back; it is never read again
+                baselines.putAll(seeded);
+                sites += siteIds.size();
+            }
+        } catch (RuntimeException e) {
+            log.error("Loading latency baselines failed; sites without one start from scratch", e);
+        }
+        warm = true;
+        log.info("Loaded latency baselines of {} sites in {} ms", sites,
+            Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+    
+    private static void seed(Map<Long, Baseline> seeded, CheckResult checkResult) {
+        if (checkResult.getStatus() == CheckResult.CheckStatus.UP) {
+            seeded.get(checkResult.getSiteId()).update(checkResult);
+        }
+    }
+    
+    private final class Baseline {
+        
+        private long samples;
+        private double mean;
+        private double variance;
+        private Double lastScore;
+        private LocalDateTime updatedAt;
+        
+        synchronized Double score(int responseTime) {
+            if (samples < warmupSamples) {
+                return null;
+            }
+            return (responseTime - mean) / stddev();
+        }
+        
+        synchronized void update(CheckResult checkResult) {
+            double value = checkResult.getResponseTime();
+            if (samples == 0) {
+                mean = value;
+            } else {
+                if (samples >= warmupSamples) {
+                    double limit = CLIP_STDDEVS * stddev();
+                    value = Math.max(mean - limit, Math.min(mean + limit, value));
+                }
+                double diff = value - mean;
+                double increment = alpha * diff;
+                mean += increment;
+                variance = (1 - alpha) * (variance + diff * increment);
+            }
+            samples++;
+            lastScore = checkResult.getAnomalyScore();
+            updatedAt = checkResult.getTimestamp();
+        }
+        
+        synchronized LatencyBaselineDto toDto() {
+            LatencyBaselineDto dto = new LatencyBaselineDto();
+            dto.setSamples(samples);
+            dto.setScoring(samples >= warmupSamples);
+            if (samples > 0) {
+                dto.setMean(mean);
+                dto.setStddev(stddev());
+            }
+            dto.setLastScore(lastScore);
+            dto.setUpdatedAt(updatedAt);
+            return dto;
+        }
+        
+        private double stddev() {
+            return Math.max(Math.sqrt(variance), Math.max(minStddevMs, minStddevRatio * mean));
+        }
+    }
+}
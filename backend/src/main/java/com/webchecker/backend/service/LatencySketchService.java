@@ -0,0 +1,314 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.LatencyPercentilesDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.LatencySketch;
+import com.webchecker.backend.entity.UptimeRollup.Resolution;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.repository.LatencySketchRepository;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+
+/**
+ * Keeps mergeable HdrHistogram sketches of response times per site per hour and
+ * day. Results are recorded into in-memory histograms and periodically merged into
+ * latency_sketches, so percentile queries over any window read a few dozen compact
+ * sketches instead of raw rows.
+ * <p>
+ * Pending histograms have int counts and grow with the largest recorded value, about
+ * 2 KB for response times up to a few seconds. A histogram being flushed stays visible
+ * to queries until its transaction commits; commits and query reads exclude each other,
+ * so a bucket is never counted twice or missed.
+ */
+@Service
+public class LatencySketchService {
+    
+    private static final Logger log = LoggerFactory.getLogger(LatencySketchService.class);
+    
+    // Response times are bounded by the check timeout; an hour leaves ample headroom
+    static final long HIGHEST_TRACKABLE_MS = 3_600_000L;
+    static final int SIGNIFICANT_DIGITS = 2;
+    
+    private static final Resolution[] RESOLUTIONS = { Resolution.HOUR, Resolution.DAY };
+    
+    @Autowired
+    private LatencySketchRepository latencySketchRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${webchecker.rollups.hour-retention-days:90}")
+    private int hourRetentionDays;
+    
+    @Value("${webchecker.sketches.day-retention-days:400}")
+    private int dayRetentionDays;
+    
+    // siteId -> unflushed bucket histograms
+    private final Map<Long, Map<Bucket, IntCountsHistogram>> pending = new ConcurrentHashMap<>();
+    // siteId -> histograms written by a flush that has not committed yet
+    private final Map<Long, Map<Bucket, IntCountsHistogram>> flushing = new ConcurrentHashMap<>();
+    // Readers merge stored sketches with pending data; a flush commits under the write lock
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    
+    @TransactionalEventListener
+    public void onCheckResultsSaved(CheckResultsSavedEvent event) {
+        for (CheckResult checkResult : event.getCheckResults()) {
+            record(checkResult);
+        }
+    }
+    
+    public void record(CheckResult checkResult) {
+        long latency = Math.max(0, Math.min(checkResult.getResponseTime(), HIGHEST_TRACKABLE_MS));
+        Map<Bucket, IntCountsHistogram> siteBuckets = pending.computeIfAbsent(checkResult.getSiteId(), id -> new ConcurrentHashMap<>());
+        for (Resolution resolution : RESOLUTIONS) {
+            Bucket bucket = new Bucket(resolution, resolution.bucketStart(checkResult.getTimestamp()));
+            siteBuckets.compute(bucket, (key, histogram) -> {
+                IntCountsHistogram target = histogram != null ? histogram : newPendingHistogram();
+                target.recordValue(latency);
+                return target;
+            });
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public LatencyPercentilesDto getPercentiles(Long siteId, TimeWindow window) {
+        WindowBounds b = WindowBounds.of(window);
+        Histogram merged = newHistogram();
+        commitLock.readLock().lock();
+        try {
+            for (LatencySketch sketch : latencySketchRepository.findWindow(siteId, b.from(), b.dayFrom(), b.dayTo(), b.to())) {
+                merged.add(decode(sketch.getHistogram()));
+            }
+            addPending(siteId, b, merged);
+        } finally {
+            commitLock.readLock().unlock();
+        }
+        return toDto(siteId, window, merged);
+    }
+    
+    /**
+     * Percentiles for every given site from one sketch query.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, LatencyPercentilesDto> getPercentiles(Collection<Long> siteIds, TimeWindow window) {
+        Map<Long, LatencyPercentilesDto> percentiles = new HashMap<>();
+        if (siteIds.isEmpty()) {
+            return percentiles;
+        }
+        WindowBounds b = WindowBounds.of(window);
+        Map<Long, Histogram> merged = new HashMap<>();
+        commitLock.readLock().lock();
+        try {
+            for (LatencySketch sketch : latencySketchRepository.findWindowForSites(
+                    siteIds, b.from(), b.dayFrom(), b.dayTo(), b.to())) {
+                merged.computeIfAbsent(sketch.getSiteId(), id -> newHistogram()).add(decode(sketch.getHistogram()));
+            }
+            for (Long siteId : siteIds) {
+                addPending(siteId, b, merged.computeIfAbsent(siteId, id -> newHistogram()));
+            }
+        } finally {
+            commitLock.readLock().unlock();
+        }
+        for (Long siteId : siteIds) {
+            percentiles.put(siteId, toDto(siteId, window, merged.get(siteId)));
+        }
+        return percentiles;
+    }
+    
+    private void addPending(Long siteId, WindowBounds b, Histogram merged) {
+        addSelected(pending.get(siteId), b, merged);
+        addSelected(flushing.get(siteId), b, merged);
+    }
+    
+    private static void addSelected(Map<Bucket, IntCountsHistogram> siteBuckets, WindowBounds b, Histogram merged) {
+        if (siteBuckets != null) {
+            for (Bucket bucket : siteBuckets.keySet()) {
+                if (bucket.selectedBy(b.from(), b.dayFrom(), b.dayTo(), b.to())) {
+                    siteBuckets.computeIfPresent(bucket, (key, histogram) -> {
+                        merged.add(histogram);
+                        return histogram;
+                    });
+                }
+            }
+        }
+    }
+    
+    private static LatencyPercentilesDto toDto(Long siteId, TimeWindow window, Histogram merged) {
+        LatencyPercentilesDto dto = new LatencyPercentilesDto();
+        dto.setSiteId(siteId);
+        dto.setSince(window.getSince());
+        dto.setUntil(window.getUntil());
+        dto.setCount(merged.getTotalCount());
+        if (merged.getTotalCount() > 0) {
+            dto.setP50(merged.getValueAtPercentile(50.0));
+            dto.setP90(merged.getValueAtPercentile(90.0));
+            dto.setP95(merged.getValueAtPercentile(95.0));
+            dto.setP99(merged.getValueAtPercentile(99.0));
+            dto.setMax(merged.getMaxValue());
+        }
+        return dto;
+    }
+    
+    @Scheduled(fixedDelayString = "${webchecker.sketches.flush-interval-ms:30000}")
+    public synchronized void flush() {
+        for (Map.Entry<Long, Map<Bucket, IntCountsHistogram>> site : pending.entrySet()) {
+            Long siteId = site.getKey();
+            for (Bucket bucket : site.getValue().keySet()) {
+                IntCountsHistogram histogram = moveToFlushing(siteId, site.getValue(), bucket);
+                if (histogram == null) {
+                    continue;
+                }
+                TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                try {
+                    persist(siteId, bucket, histogram);
+                    commitLock.writeLock().lock();
+                    try {
+                        transactionManager.commit(status);
+                        flushing.get(siteId).remove(bucket);
+                    } finally {
+                        commitLock.writeLock().unlock();
+                    }
+                } catch (RuntimeException e) {
+                    if (!status.isCompleted()) {
+                        transactionManager.rollback(status);
+                    }
+                    // Keep the data in memory and retry on the next flush
+                    commitLock.writeLock().lock();
+                    try {
+                        flushing.get(siteId).remove(bucket);
+                        site.getValue().merge(bucket, histogram, (current, failed) -> {
+                            current.add(failed);
+                            return current;
+                        });
+                    } finally {
+                        commitLock.writeLock().unlock();
+                    }
+                    log.warn("Failed to flush latency sketch for site {}: {}", siteId, e.getMessage());
+                }
+            }
+        }
+        flushing.values().removeIf(Map::isEmpty);
+    }
+    
+    private IntCountsHistogram moveToFlushing(Long siteId, Map<Bucket, IntCountsHistogram> siteBuckets, Bucket bucket) {
+        // Under the lock so no reader sees the histogram in both maps or in neither
+        commitLock.writeLock().lock();
+        try {
+            IntCountsHistogram histogram = siteBuckets.remove(bucket);
+            if (histogram != null) {
+                flushing.computeIfAbsent(siteId, id -> new ConcurrentHashMap<>()).put(bucket, histogram);
+            }
+            return histogram;
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    @Scheduled(cron = "${webchecker.rollups.prune-cron:0 17 * * * *}")
+    @Transactional
+    public void pruneExpiredSketches() {
+        LocalDateTime now = LocalDateTime.now();
+        int hours = latencySketchRepository.deleteOlderThan(Resolution.HOUR, now.minusDays(hourRetentionDays));
+        int days = latencySketchRepository.deleteOlderThan(Resolution.DAY, now.minusDays(dayRetentionDays));
+        log.info("Pruned {} hourly and {} daily latency sketches", hours, days);
+    }
+    
+    private void persist(Long siteId, Bucket bucket, AbstractHistogram histogram) {
+        LatencySketch sketch = latencySketchRepository.findForUpdate(siteId, bucket.resolution(), bucket.bucketStart());
+        AbstractHistogram merged;
+        if (sketch == null) {
+            sketch = new LatencySketch(siteId, bucket.resolution(), bucket.bucketStart());
+            merged = histogram;
+        } else {
+            merged = decode(sketch.getHistogram());
+            merged.add(histogram);
+        }
+        sketch.setHistogram(encode(merged));
+        latencySketchRepository.save(sketch);
+    }
+    
+    static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+    }
+    
+    /**
+     * Auto-resizing, so a site's pending buckets only cover the values it has recorded.
+     */
+    static IntCountsHistogram newPendingHistogram() {
+        return new IntCountsHistogram(SIGNIFICANT_DIGITS);
+    }
+    
+    static byte[] encode(AbstractHistogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+    
+    static Histogram decode(byte[] data) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(data), HIGHEST_TRACKABLE_MS);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt latency sketch", e);
+        }
+    }
+    
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+    
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+    
+    // Hour edges [from, dayFrom) and [dayTo, to) plus whole days [dayFrom, dayTo)
+    private record WindowBounds(LocalDateTime from, LocalDateTime dayFrom, LocalDateTime dayTo, LocalDateTime to) {
+        
+        static WindowBounds of(TimeWindow window) {
+            LocalDateTime from = Resolution.HOUR.bucketStart(window.getSince());
+            LocalDateTime to = Resolution.HOUR.ceil(window.getUntil());
+            LocalDateTime dayFrom = min(Resolution.DAY.ceil(from), to);
+            LocalDateTime dayTo = max(Resolution.DAY.bucketStart(to), dayFrom);
+            return new WindowBounds(from, dayFrom, dayTo, to);
+        }
+    }
+    
+    private record Bucket(Resolution resolution, LocalDateTime bucketStart) {
+        
+        boolean selectedBy(LocalDateTime from, LocalDateTime dayFrom, LocalDateTime dayTo, LocalDateTime to) {
+            if (resolution == Resolution.DAY) {
+                return !bucketStart.isBefore(dayFrom) && bucketStart.isBefore(dayTo);
+            }
+            return (!bucketStart.isBefore(from) && bucketStart.isBefore(dayFrom))
+                || (!bucketStart.isBefore(dayTo) && bucketStart.isBefore(to));
+        }
+    }
+}
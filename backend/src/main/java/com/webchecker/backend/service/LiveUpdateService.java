@@ -0,0 +1,326 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.IncidentDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.Incident;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.event.IncidentChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed check results and incident transitions out to the owning user's
+ * open Server-Sent Event streams. Each connection has a bounded buffer in which
+ * undelivered updates for the same site or incident are coalesced and the oldest
+ * entries are dropped once full, so a slow client never holds back ingestion.
+ * A short per-user replay log lets reconnecting clients resume from Last-Event-ID.
+ * <p>
+ * Sends block on the client's socket, so they run on a dedicated pool of
+ * {@code sender-threads} with a bounded queue rather than a shared executor. A
+ * subscriber whose send has been blocked for {@code slow-subscriber-ms} is
+ * disconnected so it cannot hold a sender thread; the client reconnects and resumes
+ * from the replay log.
+ */
+@Service
+public class LiveUpdateService {
+    
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateService.class);
+    
+    private static final LiveEvent HEARTBEAT = new LiveEvent(0, null, "heartbeat", null);
+    
+    @Autowired
+    private SiteCache siteCache;
+    
+    @Autowired
+    private CheckResultService checkResultService;
+    
+    @Value("${webchecker.stream.buffer-size:256}")
+    private int bufferSize;
+    
+    @Value("${webchecker.stream.replay-size:200}")
+    private int replaySize;
+    
+    @Value("${webchecker.stream.replay-retention-ms:120000}")
+    private long replayRetentionMs;
+    
+    @Value("${webchecker.stream.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+    
+    @Value("${webchecker.stream.sender-threads:4}")
+    private int senderThreads;
+    
+    @Value("${webchecker.stream.sender-queue-capacity:1024}")
+    private int senderQueueCapacity;
+    
+    @Value("${webchecker.stream.slow-subscriber-ms:10000}")
+    private long slowSubscriberMs;
+    
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, UserChannel> channels = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor senders;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(senderQueueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "sse-sender-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+    
+    public SseEmitter subscribe(String userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        UserChannel channel = channels.computeIfAbsent(userId, id -> new UserChannel());
+        
+        emitter.onCompletion(() -> unsubscribe(channel, subscriber));
+        emitter.onTimeout(() -> unsubscribe(channel, subscriber));
+        emitter.onError(e -> unsubscribe(channel, subscriber));
+        
+        synchronized (channel) {
+            if (lastEventId != null) {
+                for (LiveEvent event : channel.replay) {
+                    if (event.id > lastEventId) {
+                        subscriber.offer(event);
+                    }
+                }
+            }
+            channel.subscribers.add(subscriber);
+            channel.lastActivity = System.currentTimeMillis();
+        }
+        drain(channel, subscriber);
+        return emitter;
+    }
+    
+    @TransactionalEventListener
+    public void onCheckResultsSaved(CheckResultsSavedEvent event) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        for (CheckResult checkResult : event.getCheckResults()) {
+            String owner = ownerOf(checkResult.getSiteId());
+            if (owner != null && channels.containsKey(owner)) {
+                publish(owner, "check-result", "check-result:" + checkResult.getSiteId(),
+                    checkResultService.convertToDto(checkResult));
+            }
+        }
+    }
+    
+    @EventListener
+    public void onIncidentChanged(IncidentChangedEvent event) {
+        Incident incident = event.getIncident();
+        if (channels.containsKey(incident.getUserId())) {
+            publish(incident.getUserId(), "incident", "incident:" + incident.getId(), convertToDto(incident));
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${webchecker.stream.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, UserChannel> entry : channels.entrySet()) {
+            UserChannel channel = entry.getValue();
+            List<Subscriber> subscribers;
+            synchronized (channel) {
+                if (channel.subscribers.isEmpty() && now - channel.lastActivity > replayRetentionMs) {
+                    channels.remove(entry.getKey(), channel);
+                    continue;
+                }
+                subscribers = new ArrayList<>(channel.subscribers);
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.blockedFor(now) > slowSubscriberMs) {
+                    log.info("Disconnecting a stream blocked for {} ms", subscriber.blockedFor(now));
+                    unsubscribe(channel, subscriber);
+                    subscriber.emitter.complete();
+                    continue;
+                }
+                subscriber.offer(HEARTBEAT);
+                drain(channel, subscriber);
+            }
+        }
+    }
+    
+    public int getSubscriberCount() {
+        return channels.values().stream().mapToInt(channel -> channel.subscribers.size()).sum();
+    }
+    
+    private void publish(String userId, String name, String key, Object payload) {
+        UserChannel channel = channels.get(userId);
+        if (channel == null) {
+            return;
+        }
+        List<Subscriber> subscribers;
+        synchronized (channel) {
+            LiveEvent event = new LiveEvent(sequence.incrementAndGet(), name, key, payload);
+            channel.replay.addLast(event);
+            if (channel.replay.size() > replaySize) {
+                channel.replay.removeFirst();
+            }
+            channel.lastActivity = System.currentTimeMillis();
+            subscribers = new ArrayList<>(channel.subscribers);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            drain(channel, subscriber);
+        }
+    }
+    
+    private void drain(UserChannel channel, Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                try {
+                    List<LiveEvent> batch;
+                    while (!subscriber.closed && !(batch = subscriber.takeAll()).isEmpty()) {
+                        for (LiveEvent event : batch) {
+                            subscriber.sendingSince = System.currentTimeMillis();
+                            send(subscriber.emitter, event);
+                            subscriber.sendingSince = 0;
+                        }
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the emitter callbacks take care of cleanup
+                    unsubscribe(channel, subscriber);
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.sendingSince = 0;
+                    subscriber.draining.set(false);
+                    if (subscriber.hasPending() && !subscriber.closed) {
+                        drain(channel, subscriber);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Senders are saturated; updates stay buffered and the next publish or heartbeat retries
+            subscriber.draining.set(false);
+        }
+    }
+    
+    private void send(SseEmitter emitter, LiveEvent event) throws IOException {
+        if (event == HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("keepalive"));
+            return;
+        }
+        emitter.send(SseEmitter.event()
+            .id(Long.toString(event.id))
+            .name(event.name)
+            .data(event.payload));
+    }
+    
+    private void unsubscribe(UserChannel channel, Subscriber subscriber) {
+        subscriber.closed = true;
+        synchronized (channel) {
+            channel.subscribers.remove(subscriber);
+            channel.lastActivity = System.currentTimeMillis();
+        }
+        if (subscriber.dropped > 0) {
+            log.debug("Stream closed after dropping {} coalesced updates", subscriber.dropped);
+        }
+    }
+    
+    private String ownerOf(Long siteId) {
+        return siteCache.get(siteId).map(SiteSnapshot::userId).orElse(null);
+    }
+    
+    private IncidentDto convertToDto(Incident incident) {
+        IncidentDto dto = new IncidentDto();
+        dto.setId(incident.getId());
+        dto.setSiteId(incident.getSiteId());
+        dto.setType(incident.getType());
+        dto.setStatus(incident.getStatus());
+        dto.setStartedAt(incident.getStartedAt());
+        dto.setResolvedAt(incident.getResolvedAt());
+        dto.setMessage(incident.getMessage());
+        return dto;
+    }
+    
+    private static final class UserChannel {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final ArrayDeque<LiveEvent> replay = new ArrayDeque<>();
+        volatile long lastActivity = System.currentTimeMillis();
+    }
+    
+    private static final class Subscriber {
+        
+        final SseEmitter emitter;
+        final AtomicBoolean draining = new AtomicBoolean();
+        private final int capacity;
+        // Keyed by site or incident so a newer update replaces an undelivered older one
+        private final LinkedHashMap<String, LiveEvent> pending = new LinkedHashMap<>();
+        volatile boolean closed;
+        // When the send in progress started, or 0 between sends
+        volatile long sendingSince;
+        long dropped;
+        
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+        }
+        
+        synchronized void offer(LiveEvent event) {
+            if (pending.remove(event.key) != null) {
+                dropped++;
+            } else if (pending.size() >= capacity) {
+                Iterator<LiveEvent> eldest = pending.values().iterator();
+                eldest.next();
+                eldest.remove();
+                dropped++;
+            }
+            pending.put(event.key, event);
+        }
+        
+        synchronized List<LiveEvent> takeAll() {
+            List<LiveEvent> events = new ArrayList<>(pending.values());
+            pending.clear();
+            return events;
+        }
+        
+        synchronized boolean hasPending() {
+            return !pending.isEmpty();
+        }
+        
+        long blockedFor(long now) {
+            long since = sendingSince;
+            return since == 0 ? 0 : now - since;
+        }
+    }
+    
+    private record LiveEvent(long id, String name, String key, Object payload) {}
+}
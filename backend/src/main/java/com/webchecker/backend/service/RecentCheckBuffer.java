@@ -0,0 +1,229 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.CheckResultLatestRepository;
+import com.webchecker.backend.repository.SiteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last {@code capacity} results of every site in fixed-size primitive arrays, so
+ * recent checks, sparklines and the dashboard's latest status are read without the
+ * database. Rings are updated from committed results and, at startup, warmed with each
+ * site's newest rows from the last {@code warmup-lookback-hours}; until the warm-up has
+ * finished callers fall back to the database.
+ * <p>
+ * A replica only sees the results it ingests itself, so the buffer is only used with
+ * {@code local-ingest}: set it when every result of a site reaches the same replica,
+ * i.e. with a single ingesting replica. Otherwise all reads go to the database.
+ * <p>
+ * A ring is allocated at full capacity on a site's first result and costs
+ * {@link #BYTES_PER_ENTRY} bytes per slot plus {@link #RING_OVERHEAD_BYTES}, so the
+ * buffer never holds more than {@code max-sites} times {@link #ringBytes()} (about
+ * 180 MB for 100,000 sites of 100 slots). Sites past {@code max-sites} are not buffered
+ * and always read from the database. Ids, errors and job ids are not kept.
+ */
+@Service
+public class RecentCheckBuffer {
+    
+    private static final Logger log = LoggerFactory.getLogger(RecentCheckBuffer.class);
+    
+    // timestamp (8) + status (1) + response time (4) + status code (2) + SEO score (1)
+    static final int BYTES_PER_ENTRY = 16;
+    // Ring object, five array headers and the map entry holding it
+    static final int RING_OVERHEAD_BYTES = 176;
+    
+    @Autowired
+    private SiteRepository siteRepository;
+    
+    @Autowired
+    private CheckResultLatestRepository checkResultLatestRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.recent.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${webchecker.recent.local-ingest:false}")
+    private boolean localIngest;
+    
+    @Value("${webchecker.recent.capacity:100}")
+    private int capacity;
+    
+    @Value("${webchecker.recent.max-sites:100000}")
+    private int maxSites;
+    
+    @Value("${webchecker.recent.warmup-lookback-hours:48}")
+    private long warmupLookbackHours;
+    
+    @Value("${webchecker.recent.warmup-batch-size:500}")
+    private int warmupBatchSize;
+    
+    private final Map<Long, RecentCheckRing> rings = new ConcurrentHashMap<>();
+    private volatile boolean warm;
+    private volatile boolean running;
+    
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("webchecker.recent.sites", rings, Map::size);
+        meterRegistry.gauge("webchecker.recent.bytes", rings, map -> (double) map.size() * ringBytes());
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!localIngest) {
+            log.info("Recent check buffer unused: ingestion is not marked local to this replica");
+            return;
+        }
+        running = true;
+        Thread warmup = new Thread(this::warmUp, "recent-checks-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public Duration getLookback() {
+        return Duration.ofHours(warmupLookbackHours);
+    }
+    
+    public long ringBytes() {
+        return (long) capacity * BYTES_PER_ENTRY + RING_OVERHEAD_BYTES;
+    }
+    
+    /**
+     * Whether the buffer holds everything the database would return for the site: this
+     * replica ingests all results, the buffer is warm and either buffers the site or has
+     * room for it, in which case the site has had no result since the lookback.
+     */
+    public boolean covers(Long siteId) {
+        return enabled && localIngest && warm && (rings.containsKey(siteId) || rings.size() < maxSites);
+    }
+    
+    /**
+     * Up to limit latest results of the site, oldest first, or empty when the site is
+     * not covered. Only timestamp, status, response time, status code and SEO score
+     * are filled in.
+     */
+    public Optional<List<CheckResult>> getRecent(Long siteId, int limit) {
+        if (!covers(siteId)) {
+            return Optional.empty();
+        }
+        RecentCheckRing ring = rings.get(siteId);
+        return Optional.of(ring != null ? ring.copy(siteId, limit) : new ArrayList<>());
+    }
+    
+    /**
+     * Latest result of each covered site that has one, keyed by site id.
+     */
+    public Map<Long, CheckResult> getLatest(Collection<Long> siteIds) {
+        Map<Long, CheckResult> latest = new HashMap<>();
+        for (Long siteId : siteIds) {
+            RecentCheckRing ring = covers(siteId) ? rings.get(siteId) : null;
+            if (ring != null) {
+                List<CheckResult> last = ring.copy(siteId, 1);
+                if (!last.isEmpty()) {
+                    latest.put(siteId, last.get(0));
+                }
+            }
+        }
+        return latest;
+    }
+    
+    @TransactionalEventListener
+    public void onCheckResultsSaved(CheckResultsSavedEvent event) {
+        if (!enabled || !localIngest) {
+            return;
+        }
+        for (CheckResult checkResult : event.getCheckResults()) {
+            record(checkResult);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        if (event.getChangeType() == SiteChangedEvent.ChangeType.DELETED) {
+            rings.remove(event.getSite().getId());
+        }
+    }
+    
+    void record(CheckResult checkResult) {
+        RecentCheckRing ring = rings.get(checkResult.getSiteId());
+        if (ring == null) {
+            // Concurrent first results may overshoot max-sites by a few rings
+            if (rings.size() >= maxSites) {
+                return;
+            }
+            ring = rings.computeIfAbsent(checkResult.getSiteId(), id -> new RecentCheckRing(capacity));
+        }
+        ring.add(checkResult);
+    }
+    
+    /**
+     * Loads the newest rows of every site in batches of site ids. Results committed
+     * meanwhile are recorded as usual; rows seen both ways are dropped as duplicates.
+     */
+    private void warmUp() {
+        long started = System.nanoTime();
+        LocalDateTime since = LocalDateTime.now().minus(getLookback());
+        int sites = 0;
+        long rows = 0;
+        try {
+            for (int page = 0; running && sites < maxSites; page++) {
+                List<Long> siteIds = siteRepository.findAllIds(PageRequest.of(page, warmupBatchSize));
+                if (siteIds.isEmpty()) {
+                    break;
+                }
+                if (sites + siteIds.size() > maxSites) {
+                    siteIds = siteIds.subList(0, maxSites - sites);
+                }
+                for (CheckResult checkResult : checkResultLatestRepository.findRecent(siteIds, since, capacity)) {
+                    record(checkResult);
+                    rows++;
+                }
+                sites += siteIds.size();
+            }
+        } catch (RuntimeException e) {
+            log.error("Warming recent checks failed; reads keep using the database", e);
+            return;
+        }
+        if (running) {
+            warm = true;
+            log.info("Warmed recent checks of {} sites ({} rows) in {} ms", sites, rows,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }
+    }
+}
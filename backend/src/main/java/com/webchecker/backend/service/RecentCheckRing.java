@@ -0,0 +1,121 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.CheckResult.CheckStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One site's results in {@link RecentCheckBuffer}, ordered by timestamp, in parallel
+ * primitive arrays. Logical index 0 is the oldest kept result and {@code next} the slot
+ * the next newest one goes to. Timestamps are kept to the millisecond.
+ */
+final class RecentCheckRing {
+    
+    private static final CheckStatus[] STATUSES = CheckStatus.values();
+    private static final int NONE = -1;
+    
+    private final long[] timestamps;
+    private final byte[] statuses;
+    private final int[] responseTimes;
+    private final short[] statusCodes;
+    private final byte[] seoScores;
+    private int next;
+    private int size;
+    
+    RecentCheckRing(int capacity) {
+        timestamps = new long[capacity];
+        statuses = new byte[capacity];
+        responseTimes = new int[capacity];
+        statusCodes = new short[capacity];
+        seoScores = new byte[capacity];
+    }
+    
+    void add(CheckResult checkResult) {
+        add(toMillis(checkResult.getTimestamp()),
+            (byte) checkResult.getStatus().ordinal(),
+            checkResult.getResponseTime(),
+            (short) (checkResult.getStatusCode() != null ? checkResult.getStatusCode() : NONE),
+            (byte) (checkResult.getSeoScore() != null ? checkResult.getSeoScore() : NONE));
+    }
+    
+    private synchronized void add(long timestamp, byte status, int responseTime, short statusCode, byte seoScore) {
+        int capacity = timestamps.length;
+        // Late results are inserted in order; an identical result is a duplicate
+        int position = size;
+        while (position > 0) {
+            int slot = slot(position - 1);
+            if (timestamps[slot] < timestamp) {
+                break;
+            }
+            if (timestamps[slot] == timestamp && statuses[slot] == status
+                && responseTimes[slot] == responseTime && statusCodes[slot] == statusCode) {
+                return;
+            }
+            position--;
+        }
+        if (size == capacity) {
+            if (position == 0) {
+                return;
+            }
+            // The oldest result's slot is reused
+            size--;
+            position--;
+        }
+        next = (next + 1) % capacity;
+        size++;
+        for (int i = size - 1; i > position; i--) {
+            move(slot(i - 1), slot(i));
+        }
+        int slot = slot(position);
+        timestamps[slot] = timestamp;
+        statuses[slot] = status;
+        responseTimes[slot] = responseTime;
+        statusCodes[slot] = statusCode;
+        seoScores[slot] = seoScore;
+    }
+    
+    /**
+     * The newest limit results, oldest first.
+     */
+    synchronized List<CheckResult> copy(Long siteId, int limit) {
+        int count = Math.min(limit, size);
+        List<CheckResult> results = new ArrayList<>(count);
+        for (int i = size - count; i < size; i++) {
+            int slot = slot(i);
+            CheckResult checkResult = new CheckResult();
+            checkResult.setSiteId(siteId);
+            checkResult.setTimestamp(fromMillis(timestamps[slot]));
+            checkResult.setStatus(STATUSES[statuses[slot]]);
+            checkResult.setResponseTime(responseTimes[slot]);
+            checkResult.setStatusCode(statusCodes[slot] != NONE ? (int) statusCodes[slot] : null);
+            checkResult.setSeoScore(seoScores[slot] != NONE ? (int) seoScores[slot] : null);
+            results.add(checkResult);
+        }
+        return results;
+    }
+    
+    private int slot(int index) {
+        return Math.floorMod(next - size + index, timestamps.length);
+    }
+    
+    private void move(int from, int to) {
+        timestamps[to] = timestamps[from];
+        statuses[to] = statuses[from];
+        responseTimes[to] = responseTimes[from];
+        statusCodes[to] = statusCodes[from];
+        seoScores[to] = seoScores[from];
+    }
+    
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+            (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,87 @@
+package com.webchecker.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Hot-path filter for redelivered worker results. Job ids admitted in the last
+ * {@code ttl-minutes} are remembered in memory, so a retried submission is rejected
+ * without touching the database. The unique index on {@code check_results (job_id,
+ * timestamp)} stays authoritative for resubmissions the set misses (other replicas,
+ * restarts, eviction).
+ * <p>
+ * Ids are claimed when a result is admitted, not when it commits; callers must
+ * {@link #release} them again if the result is given up, or the worker's retry
+ * would be discarded as a duplicate.
+ */
+@Service
+public class ResultDeduplicator {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.ingest.dedup.ttl-minutes:15}")
+    private long ttlMinutes;
+    
+    @Value("${webchecker.ingest.dedup.max-size:200000}")
+    private long maxSize;
+    
+    private Cache<String, Boolean> recentJobIds;
+    private Counter memoryDuplicates;
+    private Counter databaseDuplicates;
+    
+    @PostConstruct
+    void init() {
+        recentJobIds = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .build();
+        memoryDuplicates = meterRegistry.counter("webchecker.ingest.duplicates", "detected_by", "memory");
+        databaseDuplicates = meterRegistry.counter("webchecker.ingest.duplicates", "detected_by", "database");
+        meterRegistry.gauge("webchecker.ingest.dedup.size", this, deduplicator -> deduplicator.recentJobIds.estimatedSize());
+    }
+    
+    /**
+     * Claims the result's job id; false if it was already claimed. Results without a
+     * job id cannot be deduplicated and are always admitted.
+     */
+    public boolean claim(CheckResult checkResult) {
+        String jobId = checkResult.getJobId();
+        if (jobId == null) {
+            return true;
+        }
+        if (recentJobIds.asMap().putIfAbsent(jobId, Boolean.TRUE) != null) {
+            memoryDuplicates.increment();
+            return false;
+        }
+        return true;
+    }
+    
+    public void release(CheckResult checkResult) {
+        if (checkResult.getJobId() != null) {
+            recentJobIds.invalidate(checkResult.getJobId());
+        }
+    }
+    
+    public void releaseAll(List<CheckResult> checkResults) {
+        for (CheckResult checkResult : checkResults) {
+            release(checkResult);
+        }
+    }
+    
+    void recordDatabaseDuplicates(int count) {
+        if (count > 0) {
+            databaseDuplicates.increment(count);
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.webchecker.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead spool for check results that cannot be committed because the database
+ * is unavailable. Results are appended to memory-mapped segment files of
+ * {@code segment-size-mb} each and replayed in append order, {@code replay-batch-size}
+ * at a time, through {@link CheckResultService#saveCheckResults} once the database
+ * answers again. Each record is {@code [length][crc32][json]}; a torn write at the
+ * tail of a segment fails its checksum and ends the segment.
+ * <p>
+ * The replay position is checkpointed after every committed batch, so a crash between
+ * commit and checkpoint replays that batch again (at-least-once). While a backlog
+ * exists, new results are spooled behind it rather than written directly, which keeps
+ * commit order intact for incident detection.
+ */
+@Service
+public class ResultSpoolService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResultSpoolService.class);
+    
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "replay.pos";
+    private static final int HEADER_BYTES = 8;
+    
+    enum FsyncPolicy {
+        ALWAYS, INTERVAL, NEVER
+    }
+    
+    @Autowired
+    private CheckResultService checkResultService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.ingest.spool.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${webchecker.ingest.spool.directory:./spool}")
+    private String directory;
+    
+    @Value("${webchecker.ingest.spool.segment-size-mb:16}")
+    private int segmentSizeMb;
+    
+    @Value("${webchecker.ingest.spool.max-segments:64}")
+    private int maxSegments;
+    
+    @Value("${webchecker.ingest.spool.fsync:interval}")
+    private String fsync;
+    
+    @Value("${webchecker.ingest.spool.replay-batch-size:500}")
+    private int replayBatchSize;
+    
+    @Value("${webchecker.ingest.spool.replay-interval-ms:1000}")
+    private long replayIntervalMs;
+    
+    private Path spoolDir;
+    private int segmentSize;
+    private FsyncPolicy fsyncPolicy;
+    
+    // Writer state, guarded by writeLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final TreeSet<Long> segments = new TreeSet<>();
+    private MappedByteBuffer writeBuffer;
+    private long writeSegment;
+    private int writePosition;
+    private boolean dirty;
+    
+    // Reader state, only touched by the replay thread
+    private MappedByteBuffer readBuffer;
+    private long readSegment;
+    private int readPosition;
+    
+    private final AtomicLong pending = new AtomicLong();
+    private volatile boolean running;
+    private Thread replayer;
+    private Counter appendedResults;
+    private Counter replayedResults;
+    private Counter droppedResults;
+    private Counter failedAppends;
+    private Timer replayBatches;
+    
+    private record SpooledResult(CheckResult checkResult, long segment, int nextPosition) {}
+    
+    @PostConstruct
+    void init() throws IOException {
+        appendedResults = meterRegistry.counter("webchecker.ingest.spool.results", "outcome", "appended");
+        // rate() of the replayed count is the replay throughput in results per second
+        replayedResults = meterRegistry.counter("webchecker.ingest.spool.results", "outcome", "replayed");
+        droppedResults = meterRegistry.counter("webchecker.ingest.spool.results", "outcome", "dropped");
+        failedAppends = meterRegistry.counter("webchecker.ingest.spool.results", "outcome", "append_failed");
+        replayBatches = Timer.builder("webchecker.ingest.spool.replay")
+            .description("Time to commit one batch of spooled results")
+            .register(meterRegistry);
+        meterRegistry.gauge("webchecker.ingest.spool.pending", pending);
+        meterRegistry.gauge("webchecker.ingest.spool.segments", this, service -> service.segmentCount());
+        
+        if (!enabled) {
+            return;
+        }
+        segmentSize = segmentSizeMb * 1024 * 1024;
+        fsyncPolicy = FsyncPolicy.valueOf(fsync.trim().toUpperCase(Locale.ROOT));
+        spoolDir = Paths.get(directory).toAbsolutePath();
+        Files.createDirectories(spoolDir);
+        recover();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        replayer = new Thread(this::replayLoop, "spool-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+        if (pending.get() > 0) {
+            log.info("Replaying {} spooled check results from {}", pending.get(), spoolDir);
+        }
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (replayer != null) {
+            replayer.join(replayIntervalMs + 10000);
+        }
+        if (enabled) {
+            flush(true);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * True while spooled results are waiting to be replayed.
+     */
+    public boolean hasBacklog() {
+        return pending.get() > 0;
+    }
+    
+    /**
+     * Durably appends the results (subject to the fsync policy); returns false when the
+     * spool is disabled, full or cannot be written, in which case nothing was accepted.
+     */
+    public boolean append(List<CheckResult> checkResults) {
+        if (!enabled || checkResults.isEmpty()) {
+            return false;
+        }
+        List<byte[]> payloads = new ArrayList<>(checkResults.size());
+        int bytes = 0;
+        try {
+            for (CheckResult checkResult : checkResults) {
+                byte[] payload = objectMapper.writeValueAsBytes(checkResult);
+                payloads.add(payload);
+                bytes += HEADER_BYTES + payload.length;
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize check results for the spool", e);
+            failedAppends.increment(checkResults.size());
+            return false;
+        }
+        
+        writeLock.lock();
+        try {
+            // Rotate up front so a batch never straddles a failed rotation
+            if (bytes > writeBuffer.remaining()) {
+                if (bytes > segmentSize) {
+                    log.error("Batch of {} bytes does not fit a {} MB spool segment", bytes, segmentSizeMb);
+                    failedAppends.increment(checkResults.size());
+                    return false;
+                }
+                if (segments.size() >= maxSegments) {
+                    log.error("Spool is full ({} segments); rejecting {} results", maxSegments, checkResults.size());
+                    failedAppends.increment(checkResults.size());
+                    return false;
+                }
+                rotate();
+            }
+            CRC32 crc = new CRC32();
+            for (byte[] payload : payloads) {
+                crc.reset();
+                crc.update(payload);
+                writeBuffer.putInt(payload.length);
+                writeBuffer.putInt((int) crc.getValue());
+                writeBuffer.put(payload);
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                writeBuffer.force();
+            } else {
+                dirty = true;
+            }
+            // Published last so the replayer never reads a half-written batch
+            writePosition = writeBuffer.position();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Cannot append {} results to the spool", checkResults.size(), e);
+            failedAppends.increment(checkResults.size());
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+        pending.addAndGet(checkResults.size());
+        appendedResults.increment(checkResults.size());
+        return true;
+    }
+    
+    @Scheduled(fixedDelayString = "${webchecker.ingest.spool.fsync-interval-ms:1000}")
+    public void flushInterval() {
+        if (enabled && fsyncPolicy == FsyncPolicy.INTERVAL) {
+            flush(false);
+        }
+    }
+    
+    private void flush(boolean always) {
+        writeLock.lock();
+        try {
+            if ((dirty || always) && writeBuffer != null) {
+                writeBuffer.force();
+                dirty = false;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Classifies failures that mean the database could not be reached at all, as opposed
+     * to a statement being rejected; only those are worth spooling and replaying. Other
+     * transient errors (deadlocks, lock or query timeouts) concern one statement and are
+     * retried or isolated by the caller instead.
+     */
+    public static boolean isDatabaseUnavailable(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException
+                || t instanceof CannotCreateTransactionException
+                || t instanceof TransientDataAccessResourceException
+                || t instanceof SQLTransientConnectionException
+                || t instanceof SQLNonTransientConnectionException
+                || t instanceof SQLRecoverableException
+                || (t instanceof SQLException sql && isConnectionState(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Class 08 is a connection exception; 57P01-57P03 are PostgreSQL shutting down or starting up
+    private static boolean isConnectionState(String sqlState) {
+        return sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("57P0"));
+    }
+    
+    private int segmentCount() {
+        writeLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    private void replayLoop() {
+        while (running) {
+            try {
+                if (pending.get() > 0) {
+                    replay();
+                }
+                Thread.sleep(replayIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                log.error("Spool replay failed; retrying", e);
+            }
+        }
+    }
+    
+    /**
+     * Replays batches until the spool is drained or the database fails again.
+     */
+    void replay() throws IOException {
+        while (running) {
+            List<SpooledResult> batch = readBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<CheckResult> checkResults = new ArrayList<>(batch.size());
+            for (SpooledResult spooled : batch) {
+                checkResults.add(spooled.checkResult());
+            }
+            
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                checkResultService.saveCheckResults(checkResults);
+                sample.stop(replayBatches);
+            } catch (RuntimeException e) {
+                if (isDatabaseUnavailable(e)) {
+                    log.debug("Database still unavailable; {} results remain spooled", pending.get());
+                    return;
+                }
+                log.warn("Replaying {} spooled results failed; retrying one at a time", batch.size(), e);
+                if (!replayIndividually(batch)) {
+                    return;
+                }
+                continue;
+            }
+            
+            SpooledResult last = batch.get(batch.size() - 1);
+            commit(last.segment(), last.nextPosition());
+            pending.addAndGet(-batch.size());
+            replayedResults.increment(batch.size());
+        }
+    }
+    
+    private boolean replayIndividually(List<SpooledResult> batch) throws IOException {
+        for (SpooledResult spooled : batch) {
+            try {
+                checkResultService.saveCheckResults(List.of(spooled.checkResult()));
+                replayedResults.increment();
+            } catch (RuntimeException e) {
+                if (isDatabaseUnavailable(e)) {
+                    return false;
+                }
+                droppedResults.increment();
+                log.error("Dropping spooled check result for site {}", spooled.checkResult().getSiteId(), e);
+            }
+            // Checkpoint each one so an outage mid-way does not replay the earlier ones
+            commit(spooled.segment(), spooled.nextPosition());
+            pending.decrementAndGet();
+        }
+        return true;
+    }
+    
+    private List<SpooledResult> readBatch() throws IOException {
+        List<SpooledResult> batch = new ArrayList<>(replayBatchSize);
+        long segment = readSegment;
+        int position = readPosition;
+        MappedByteBuffer buffer = readBuffer;
+        
+        while (batch.size() < replayBatchSize) {
+            long activeSegment;
+            int limit;
+            writeLock.lock();
+            try {
+                activeSegment = writeSegment;
+                limit = writePosition;
+            } finally {
+                writeLock.unlock();
+            }
+            if (segment != activeSegment) {
+                limit = segmentSize;
+            }
+            if (buffer == null) {
+                buffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            }
+            
+            byte[] payload = readRecord(buffer, position, limit);
+            if (payload == null) {
+                if (segment == activeSegment) {
+                    break;
+                }
+                // End of a sealed segment: continue with the next one
+                segment = nextSegment(segment);
+                position = 0;
+                buffer = null;
+                continue;
+            }
+            position += HEADER_BYTES + payload.length;
+            batch.add(new SpooledResult(objectMapper.readValue(payload, CheckResult.class), segment, position));
+        }
+        
+        if (batch.isEmpty() && segment != readSegment) {
+            // Only exhausted sealed segments were passed over, so they can go right away
+            commit(segment, position);
+        }
+        if (segment == readSegment) {
+            readBuffer = buffer;
+        }
+        return batch;
+    }
+    
+    private static byte[] readRecord(MappedByteBuffer buffer, int position, int limit) {
+        limit = Math.min(limit, buffer.capacity());
+        if (position + HEADER_BYTES > limit) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_BYTES + length > limit) {
+            return null;
+        }
+        int checksum = buffer.getInt(position + 4);
+        byte[] payload = new byte[length];
+        buffer.get(position + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            log.warn("Spool record at offset {} failed its checksum; treating it as the segment end", position);
+            return null;
+        }
+        return payload;
+    }
+    
+    private long nextSegment(long segment) {
+        writeLock.lock();
+        try {
+            Long next = segments.higher(segment);
+            return next != null ? next : writeSegment;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Moves the replay position and deletes the segments now fully behind it.
+     */
+    private void commit(long segment, int position) throws IOException {
+        if (segment != readSegment) {
+            readBuffer = null;
+        }
+        readSegment = segment;
+        readPosition = position;
+        writeCheckpoint(segment, position);
+        
+        List<Long> consumed = new ArrayList<>();
+        writeLock.lock();
+        try {
+            for (Long older : segments.headSet(segment, false)) {
+                consumed.add(older);
+            }
+            segments.removeAll(consumed);
+        } finally {
+            writeLock.unlock();
+        }
+        for (Long older : consumed) {
+            Files.deleteIfExists(segmentPath(older));
+        }
+    }
+    
+    private void writeCheckpoint(long segment, int position) throws IOException {
+        Path checkpoint = spoolDir.resolve(CHECKPOINT_FILE);
+        Path tmp = spoolDir.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(tmp, segment + " " + position, StandardCharsets.UTF_8);
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Restores the replay position, counts what is left to replay and opens a fresh
+     * segment for appends, so a torn tail from a crash is never written after.
+     */
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                .forEach(segments::add);
+        }
+        
+        long segment = segments.isEmpty() ? 1 : segments.first();
+        int position = 0;
+        try {
+            String[] checkpoint = Files.readString(spoolDir.resolve(CHECKPOINT_FILE), StandardCharsets.UTF_8).trim().split(" ");
+            if (Long.parseLong(checkpoint[0]) >= segment) {
+                segment = Long.parseLong(checkpoint[0]);
+                position = Integer.parseInt(checkpoint[1]);
+            }
+        } catch (NoSuchFileException e) {
+            // First start, or nothing was ever replayed
+        }
+        if (!segments.contains(segment)) {
+            position = 0;
+        }
+        
+        long remaining = 0;
+        for (Long existing : segments.tailSet(segment, true)) {
+            MappedByteBuffer buffer = map(existing, FileChannel.MapMode.READ_ONLY);
+            int offset = existing == segment ? position : 0;
+            byte[] payload;
+            while ((payload = readRecord(buffer, offset, segmentSize)) != null) {
+                offset += HEADER_BYTES + payload.length;
+                remaining++;
+            }
+        }
+        pending.set(remaining);
+        
+        writeSegment = segments.isEmpty() ? segment : Math.max(segment, segments.last() + 1);
+        writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        segments.add(writeSegment);
+        writePosition = 0;
+        if (remaining == 0) {
+            // Drop fully replayed segments left from the previous run
+            segment = writeSegment;
+            position = 0;
+        }
+        readSegment = segment;
+        readPosition = position;
+        commit(segment, position);
+    }
+    
+    private void rotate() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            writeBuffer.force();
+        }
+        long next = writeSegment + 1;
+        MappedByteBuffer buffer = map(next, FileChannel.MapMode.READ_WRITE);
+        segments.add(next);
+        writeBuffer = buffer;
+        writeSegment = next;
+        writePosition = 0;
+        dirty = false;
+    }
+    
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        Path path = segmentPath(segment);
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_WRITE
+            ? new StandardOpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+            : new StandardOpenOption[] {StandardOpenOption.READ};
+        // The mapping stays valid after the channel is closed; mapping read-write grows the file
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            long size = mode == FileChannel.MapMode.READ_WRITE ? segmentSize : Math.min(segmentSize, channel.size());
+            return channel.map(mode, 0, size);
+        }
+    }
+    
+    private Path segmentPath(long segment) {
+        return spoolDir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,344 @@
+package com.webchecker.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Optional ingestion path that reads worker results from a Redis stream instead of
+ * HTTP. Results are read in batches through a consumer group, persisted with
+ * {@link CheckResultService#saveCheckResults} and acknowledged only after that
+ * transaction committed, so a crash leaves them pending. If the batch fails for any
+ * reason other than the database being down, its results are saved one at a time
+ * and only those that still fail go to the {@code dead-letter-key} stream. Entries
+ * left pending by a dead consumer are claimed once they have been idle for
+ * {@code reclaim-idle-ms}; entries still pending after {@code max-deliveries}
+ * attempts are dead-lettered as well. While the last save found the database down,
+ * reclaimed entries keep their delivery count and none are dead-lettered, so an outage
+ * of any length sends nothing to the dead-letter stream.
+ */
+@Service
+public class ResultStreamConsumer {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResultStreamConsumer.class);
+    
+    @Autowired
+    private CheckResultService checkResultService;
+    
+    @Autowired
+    private ResultDeduplicator resultDeduplicator;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.result-stream.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${webchecker.result-stream.stream-key:check_results}")
+    private String streamKey;
+    
+    @Value("${webchecker.result-stream.group:backend}")
+    private String group;
+    
+    @Value("${webchecker.result-stream.consumer:}")
+    private String consumerName;
+    
+    @Value("${webchecker.result-stream.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${webchecker.result-stream.block-ms:2000}")
+    private long blockMs;
+    
+    @Value("${webchecker.result-stream.reclaim-idle-ms:60000}")
+    private long reclaimIdleMs;
+    
+    @Value("${webchecker.result-stream.max-deliveries:5}")
+    private int maxDeliveries;
+    
+    @Value("${webchecker.result-stream.dead-letter-key:check_results_dead}")
+    private String deadLetterKey;
+    
+    private volatile boolean running;
+    // Set by a save that found the database down, cleared by the next one that commits
+    private volatile boolean databaseUnavailable;
+    private boolean groupReady;
+    private Thread worker;
+    private Counter acceptedResults;
+    private Counter rejectedResults;
+    private Counter duplicateResults;
+    private Counter deadLetteredResults;
+    
+    @PostConstruct
+    void init() {
+        if (consumerName == null || consumerName.isBlank()) {
+            consumerName = UUID.randomUUID().toString();
+        }
+        acceptedResults = meterRegistry.counter("webchecker.ingest.stream.results", "outcome", "accepted");
+        rejectedResults = meterRegistry.counter("webchecker.ingest.stream.results", "outcome", "rejected");
+        duplicateResults = meterRegistry.counter("webchecker.ingest.stream.results", "outcome", "duplicate");
+        deadLetteredResults = meterRegistry.counter("webchecker.ingest.stream.results", "outcome", "dead_lettered");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "result-stream-consumer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Consuming check results from stream {} as {}/{}", streamKey, group, consumerName);
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(blockMs + 5000);
+        }
+    }
+    
+    private void run() {
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        long nextReclaim = 0;
+        while (running) {
+            try {
+                ensureGroup(stream);
+                if (System.currentTimeMillis() >= nextReclaim) {
+                    reclaim(stream);
+                    nextReclaim = System.currentTimeMillis() + reclaimIdleMs / 2;
+                }
+                List<MapRecord<String, Object, Object>> records = stream.read(
+                    Consumer.from(group, consumerName),
+                    StreamReadOptions.empty().count(batchSize).block(Duration.ofMillis(blockMs)),
+                    StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+                if (records != null && !records.isEmpty()) {
+                    process(stream, records);
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                log.error("Result stream consumer failed; retrying", e);
+                sleepQuietly(1000);
+            }
+        }
+    }
+    
+    private void ensureGroup(StreamOperations<String, Object, Object> stream) {
+        if (groupReady) {
+            return;
+        }
+        try {
+            stream.createGroup(streamKey, ReadOffset.from("0"), group);
+        } catch (RedisSystemException e) {
+            // BUSYGROUP means the group already exists
+            Throwable cause = e.getMostSpecificCause();
+            if (cause.getMessage() == null || !cause.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+    
+    void process(StreamOperations<String, Object, Object> stream, List<MapRecord<String, Object, Object>> records) {
+        List<RecordId> rejectedIds = new ArrayList<>();
+        List<RecordId> duplicateIds = new ArrayList<>();
+        List<CheckResult> accepted = new ArrayList<>(records.size());
+        List<MapRecord<String, Object, Object>> acceptedRecords = new ArrayList<>(records.size());
+        List<RecordId> acceptedIds = new ArrayList<>(records.size());
+        
+        for (MapRecord<String, Object, Object> record : records) {
+            Object payload = record.getValue().get("result");
+            CheckResult checkResult = null;
+            if (payload != null) {
+                try {
+                    CheckResultDto dto = objectMapper.readValue(payload.toString(), CheckResultDto.class);
+                    checkResult = CheckResultService.fromWorkerResult(dto);
+                } catch (Exception e) {
+                    log.warn("Unreadable check result {}: {}", record.getId(), e.getMessage());
+                }
+            }
+            if (checkResult == null || !validator.validate(checkResult).isEmpty()) {
+                rejectedIds.add(record.getId());
+                continue;
+            }
+            if (!resultDeduplicator.claim(checkResult)) {
+                duplicateIds.add(record.getId());
+                continue;
+            }
+            accepted.add(checkResult);
+            acceptedRecords.add(record);
+            acceptedIds.add(record.getId());
+        }
+        
+        if (!accepted.isEmpty()) {
+            try {
+                checkResultService.saveCheckResults(accepted);
+                databaseUnavailable = false;
+                acceptedResults.increment(accepted.size());
+            } catch (RuntimeException e) {
+                acceptedIds.clear();
+                if (ResultSpoolService.isDatabaseUnavailable(e)) {
+                    // Left pending; reclaim retries them after reclaim-idle-ms
+                    databaseUnavailable = true;
+                    log.error("Failed to persist {} streamed check results", accepted.size(), e);
+                    resultDeduplicator.releaseAll(accepted);
+                } else {
+                    log.warn("Saving {} streamed check results failed; saving them one by one", accepted.size(), e);
+                    acceptedIds.addAll(saveEach(stream, acceptedRecords, accepted));
+                }
+            }
+        }
+        
+        // Rejected entries can never succeed and duplicates were already admitted, so both are acknowledged right away
+        rejectedResults.increment(rejectedIds.size());
+        duplicateResults.increment(duplicateIds.size());
+        acceptedIds.addAll(rejectedIds);
+        acceptedIds.addAll(duplicateIds);
+        if (!acceptedIds.isEmpty()) {
+            stream.acknowledge(streamKey, group, acceptedIds.toArray(new RecordId[0]));
+        }
+    }
+    
+    /**
+     * Isolates the results that fail a batch. Returns the ids to acknowledge: saved
+     * results plus those moved to the dead-letter stream. Results that fail because the
+     * database went away stay pending.
+     */
+    private List<RecordId> saveEach(StreamOperations<String, Object, Object> stream,
+                                    List<MapRecord<String, Object, Object>> records, List<CheckResult> checkResults) {
+        List<RecordId> done = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            MapRecord<String, Object, Object> record = records.get(i);
+            CheckResult checkResult = checkResults.get(i);
+            try {
+                checkResultService.saveCheckResults(List.of(checkResult));
+                databaseUnavailable = false;
+                acceptedResults.increment();
+                done.add(record.getId());
+            } catch (RuntimeException e) {
+                resultDeduplicator.release(checkResult);
+                if (ResultSpoolService.isDatabaseUnavailable(e)) {
+                    databaseUnavailable = true;
+                    continue;
+                }
+                log.error("Dead-lettering check result {} for site {}", record.getId(), checkResult.getSiteId(), e);
+                deadLetter(stream, record, e.getMessage());
+                done.add(record.getId());
+            }
+        }
+        return done;
+    }
+    
+    // The original fields are kept, so an entry can be replayed by adding it back to the stream
+    private void deadLetter(StreamOperations<String, Object, Object> stream, MapRecord<String, Object, Object> record,
+                            String reason) {
+        Map<Object, Object> fields = new LinkedHashMap<>(record.getValue());
+        fields.put("sourceId", record.getId().getValue());
+        fields.put("error", reason != null ? reason : "unknown");
+        stream.add(deadLetterKey, fields);
+        deadLetteredResults.increment();
+    }
+    
+    void reclaim(StreamOperations<String, Object, Object> stream) {
+        Duration minIdle = Duration.ofMillis(reclaimIdleMs);
+        boolean outage = databaseUnavailable;
+        PendingMessages pending = stream.pending(streamKey, group, Range.unbounded(), batchSize);
+        // Grouped by delivery count, which a claim during an outage carries over unchanged
+        Map<Long, List<RecordId>> stale = new TreeMap<>();
+        List<RecordId> exhausted = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) {
+                continue;
+            }
+            if (!outage && message.getTotalDeliveryCount() >= maxDeliveries) {
+                exhausted.add(message.getId());
+            } else {
+                stale.computeIfAbsent(message.getTotalDeliveryCount(), count -> new ArrayList<>()).add(message.getId());
+            }
+        }
+        
+        if (!exhausted.isEmpty()) {
+            List<MapRecord<String, Object, Object>> records = stream.claim(streamKey, group, consumerName,
+                XClaimOptions.minIdle(minIdle).ids(exhausted.toArray(new RecordId[0])));
+            for (MapRecord<String, Object, Object> record : records) {
+                deadLetter(stream, record, "Not saved after " + maxDeliveries + " deliveries");
+            }
+            log.error("Dead-lettered {} check results after {} delivery attempts: {}", records.size(), maxDeliveries, exhausted);
+            // Entries trimmed from the stream cannot be claimed, so acknowledge every exhausted id
+            stream.acknowledge(streamKey, group, exhausted.toArray(new RecordId[0]));
+        }
+        if (!stale.isEmpty()) {
+            // XCLAIM re-checks the idle time, so two nodes cannot both take an entry
+            List<MapRecord<String, Object, Object>> claimed = new ArrayList<>();
+            for (Map.Entry<Long, List<RecordId>> entry : stale.entrySet()) {
+                XClaimOptions options = XClaimOptions.minIdle(minIdle).ids(entry.getValue().toArray(new RecordId[0]));
+                if (outage) {
+                    // RETRYCOUNT sets the count instead of incrementing it, so this attempt is not counted
+                    options = options.retryCount(entry.getKey());
+                }
+                claimed.addAll(stream.claim(streamKey, group, consumerName, options));
+            }
+            if (!claimed.isEmpty()) {
+                // Back in stream order, which the claims per delivery count broke up
+                claimed.sort(Comparator.comparing((MapRecord<String, Object, Object> record) -> record.getId().getTimestamp())
+                    .thenComparing(record -> record.getId().getSequence()));
+                log.info("Reclaimed {} pending check results", claimed.size());
+                process(stream, claimed);
+            }
+        }
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
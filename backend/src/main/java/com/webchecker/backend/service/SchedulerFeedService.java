@@ -0,0 +1,72 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.SchedulerSiteDto;
+import com.webchecker.backend.dto.SiteFeedDto;
+import com.webchecker.backend.entity.SiteTombstone;
+import com.webchecker.backend.repository.SiteRepository;
+import com.webchecker.backend.repository.SiteTombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves the scheduler's site list as a change feed ordered by change version. A
+ * caller starts at version 0 (a full sync of enabled sites) and afterwards only
+ * receives sites written or deleted since the version it last saw.
+ */
+@Service
+public class SchedulerFeedService {
+    
+    static final int MAX_LIMIT = 5000;
+    
+    @Autowired
+    private SiteRepository siteRepository;
+    
+    @Autowired
+    private SiteTombstoneRepository siteTombstoneRepository;
+    
+    // Both reads must come from one snapshot, otherwise a write landing between
+    // them could be skipped by the returned version
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SiteFeedDto getChangesSince(long since, int limit) {
+        if (since < 0 || limit < 1) {
+            throw new IllegalArgumentException("since must be >= 0 and limit >= 1");
+        }
+        int pageSize = Math.min(limit, MAX_LIMIT);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<SchedulerSiteDto> changed = siteRepository.findChangedSince(since, page);
+        List<SiteTombstone> tombstones = since == 0
+            ? List.of()
+            : siteTombstoneRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(since, page);
+            
+        List<SchedulerSiteDto> sites = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        long version = since;
+        int i = 0;
+        int j = 0;
+        while (sites.size() + removed.size() < pageSize && (i < changed.size() || j < tombstones.size())) {
+            boolean takeSite = j >= tombstones.size()
+                || (i < changed.size() && changed.get(i).getChangeVersion() < tombstones.get(j).getChangeVersion());
+            if (takeSite) {
+                SchedulerSiteDto site = changed.get(i++);
+                if (Boolean.TRUE.equals(site.getEnabled())) {
+                    sites.add(site);
+                } else if (since > 0) {
+                    removed.add(site.getId());
+                }
+                version = site.getChangeVersion();
+            } else {
+                SiteTombstone tombstone = tombstones.get(j++);
+                removed.add(tombstone.getSiteId());
+                version = tombstone.getChangeVersion();
+            }
+        }
+        boolean hasMore = i < changed.size() || j < tombstones.size();
+        return new SiteFeedDto(version, sites, removed, hasMore);
+    }
+}
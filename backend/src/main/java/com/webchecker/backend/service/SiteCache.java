@@ -0,0 +1,198 @@
+package com.webchecker.backend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.webchecker.backend.dto.QueryParamDto;
+import com.webchecker.backend.entity.Site;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.SiteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache of site configuration, keyed by site id and by owner. Entries
+ * are dropped after every committed create, update or delete on this replica and,
+ * with {@code invalidation.enabled}, on every other replica through a Redis pub/sub
+ * channel. Messages lost while Redis is unreachable are covered by {@code ttl-seconds},
+ * which bounds how stale another replica's entry can get. Invalidation is on by default;
+ * turn it off only with a single replica.
+ * <p>
+ * Entries are loaded as projections with the query params of all loaded sites in one
+ * more query, never as entities, so a load needs no transaction.
+ */
+@Service
+public class SiteCache {
+    
+    private static final Logger log = LoggerFactory.getLogger(SiteCache.class);
+    
+    @Autowired
+    private SiteRepository siteRepository;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.site-cache.enabled:true}")
+    private boolean enabled;
+    
+    // Bounds both caches in sites; a user's entry weighs as many sites as they own
+    @Value("${webchecker.site-cache.max-sites:50000}")
+    private long maxSites;
+    
+    @Value("${webchecker.site-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    @Value("${webchecker.site-cache.invalidation.enabled:true}")
+    private boolean broadcast;
+    
+    @Value("${webchecker.site-cache.invalidation.channel:site_changes}")
+    private String channel;
+    
+    // Empty for ids without a site, so probes for unknown ids are cached too
+    private LoadingCache<Long, Optional<SiteSnapshot>> byId;
+    private LoadingCache<String, List<SiteSnapshot>> byUser;
+    private RedisMessageListenerContainer listenerContainer;
+    private Counter localInvalidations;
+    private Counter remoteInvalidations;
+    
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder()
+            .maximumSize(maxSites)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build(this::load);
+        byUser = Caffeine.newBuilder()
+            .maximumWeight(maxSites)
+            .<String, List<SiteSnapshot>>weigher((userId, sites) -> Math.max(1, sites.size()))
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build(this::loadUser);
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "sites.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, byUser, "sites.by-user");
+        localInvalidations = meterRegistry.counter("webchecker.site-cache.invalidations", "source", "local");
+        remoteInvalidations = meterRegistry.counter("webchecker.site-cache.invalidations", "source", "remote");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!enabled || !broadcast) {
+            return;
+        }
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.addMessageListener((message, pattern) ->
+            onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(channel));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        log.info("Listening for site changes on channel {}", channel);
+    }
+    
+    @PreDestroy
+    void unsubscribe() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public Optional<SiteSnapshot> get(Long siteId) {
+        return enabled ? byId.get(siteId) : load(siteId);
+    }
+    
+    public Optional<SiteSnapshot> getOwned(String userId, Long siteId) {
+        return get(siteId).filter(site -> site.userId().equals(userId));
+    }
+    
+    /**
+     * All of the user's sites, newest first.
+     */
+    public List<SiteSnapshot> getByUser(String userId) {
+        return enabled ? byUser.get(userId) : loadUser(userId);
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        Site site = event.getSite();
+        invalidate(site.getId(), site.getUserId());
+        localInvalidations.increment();
+        if (enabled && broadcast) {
+            try {
+                redisTemplate.convertAndSend(channel, site.getId() + ":" + site.getUserId());
+            } catch (RuntimeException e) {
+                log.warn("Could not broadcast change of site {}; other replicas catch up within {}s",
+                    site.getId(), ttlSeconds, e);
+            }
+        }
+    }
+    
+    private void onRemoteChange(String message) {
+        int separator = message.indexOf(':');
+        try {
+            invalidate(Long.parseLong(message.substring(0, separator)), message.substring(separator + 1));
+            remoteInvalidations.increment();
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed site change message {}", message);
+        }
+    }
+    
+    private void invalidate(Long siteId, String userId) {
+        byId.invalidate(siteId);
+        byUser.invalidate(userId);
+    }
+    
+    private Optional<SiteSnapshot> load(Long siteId) {
+        return withQueryParams(siteRepository.findSnapshotById(siteId)).stream().findFirst();
+    }
+    
+    private List<SiteSnapshot> loadUser(String userId) {
+        return withQueryParams(siteRepository.findSnapshotsByUserId(userId));
+    }
+    
+    private List<SiteSnapshot> withQueryParams(List<SiteSnapshot> sites) {
+        if (sites.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<QueryParamDto>> paramsBySite = new HashMap<>();
+        for (SiteSnapshot site : sites) {
+            paramsBySite.put(site.id(), new ArrayList<>());
+        }
+        for (Object[] row : siteRepository.findQueryParamsBySiteIds(paramsBySite.keySet())) {
+            paramsBySite.get(((Number) row[0]).longValue()).add(new QueryParamDto((String) row[1], (String) row[2]));
+        }
+        return sites.stream()
+            .map(site -> site.withQueryParams(paramsBySite.get(site.id())))
+            .toList();
+    }
+}
@@ -1,45 +1,90 @@
 package com.webchecker.backend.service;
 
 import com.webchecker.backend.dto.SiteDto;
+import com.webchecker.backend.dto.SitePageDto;
 import com.webchecker.backend.dto.ThresholdsDto;
 import com.webchecker.backend.dto.QueryParamDto;
 import com.webchecker.backend.entity.Site;
 import com.webchecker.backend.entity.Thresholds;
 import com.webchecker.backend.entity.QueryParam;
+import com.webchecker.backend.entity.SiteTombstone;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.SiteChangeVersionRepository;
 import com.webchecker.backend.repository.SiteRepository;
+import com.webchecker.backend.repository.SiteTombstoneRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class SiteService {
 
+    static final int MAX_PAGE_SIZE = 500;
+    private static final Set<String> SORTABLE = Set.of("createdAt", "name", "url", "checkInterval");
+
     @Autowired
     private SiteRepository siteRepository;
 
-    public List<SiteDto> getSitesByUserId(String userId) {
-        return siteRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private SiteCache siteCache;
+
+    @Autowired
+    private SiteTombstoneRepository siteTombstoneRepository;
+
+    @Autowired
+    private SiteChangeVersionRepository siteChangeVersionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * One page of the user's sites in two queries regardless of page size: the sites as a
+     * projection, then the query params of all of them. Loading entities instead would
+     * initialize each site's query params collection separately. The database sorts and
+     * pages on its index, so the listing does not go through the site cache.
+     */
+    @Transactional(readOnly = true)
+    public SitePageDto getSitesByUserId(String userId, int page, int size, String sort, String direction) {
+        if (page < 0 || !SORTABLE.contains(sort)) {
+            throw new IllegalArgumentException("Invalid page or sort");
+        }
+        Sort.Direction order = Sort.Direction.fromString(direction);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Id breaks ties so that pages stay disjoint
+        Pageable pageable = PageRequest.of(page, pageSize, Sort.by(order, sort).and(Sort.by(order, "id")));
+
+        List<SiteDto> sites = siteRepository.findPageByUserId(userId, pageable);
+        attachQueryParams(sites);
+        long total = page == 0 && sites.size() < pageSize
+                ? sites.size()
+                : siteRepository.countByUserId(userId);
+        return new SitePageDto(sites, page, pageSize, total);
     }
 
     public SiteDto getSiteById(Long siteId, String userId) {
-        Site site = siteRepository.findByUserIdAndId(userId, siteId);
-        if (site == null) {
-            throw new RuntimeException("Site not found");
-        }
-        return convertToDto(site);
+        return siteCache.getOwned(userId, siteId)
+                .map(SiteSnapshot::toDto)
+                .orElseThrow(() -> new RuntimeException("Site not found"));
     }
 
     public SiteDto createSite(SiteDto siteDto, String userId) {
         Site site = convertToEntity(siteDto);
         site.setUserId(userId);
+        site.setChangeVersion(siteChangeVersionRepository.nextVersion());
         Site savedSite = siteRepository.save(site);
+        eventPublisher.publishEvent(new SiteChangedEvent(savedSite, SiteChangedEvent.ChangeType.CREATED));
         return convertToDto(savedSite);
     }
 
@@ -50,7 +95,9 @@ public class SiteService {
         }
 
         updateEntityFromDto(existingSite, siteDto);
+        existingSite.setChangeVersion(siteChangeVersionRepository.nextVersion());
         Site savedSite = siteRepository.save(existingSite);
+        eventPublisher.publishEvent(new SiteChangedEvent(savedSite, SiteChangedEvent.ChangeType.UPDATED));
         return convertToDto(savedSite);
     }
 
@@ -60,13 +107,32 @@ public class SiteService {
             throw new RuntimeException("Site not found");
         }
         siteRepository.delete(site);
+        siteTombstoneRepository.save(new SiteTombstone(site.getId(), siteChangeVersionRepository.nextVersion()));
+        eventPublisher.publishEvent(new SiteChangedEvent(site, SiteChangedEvent.ChangeType.DELETED));
     }
 
     public Long getSiteCountByUserId(String userId) {
+        if (siteCache.isEnabled()) {
+            return (long) siteCache.getByUser(userId).size();
+        }
         return siteRepository.countByUserId(userId);
     }
 
-    private SiteDto convertToDto(Site site) {
+    private void attachQueryParams(List<SiteDto> sites) {
+        if (sites.isEmpty()) {
+            return;
+        }
+        Map<Long, List<QueryParamDto>> paramsBySite = new HashMap<>();
+        for (SiteDto site : sites) {
+            site.setQueryParams(new ArrayList<>());
+            paramsBySite.put(site.getId(), site.getQueryParams());
+        }
+        for (Object[] row : siteRepository.findQueryParamsBySiteIds(paramsBySite.keySet())) {
+            paramsBySite.get(((Number) row[0]).longValue()).add(new QueryParamDto((String) row[1], (String) row[2]));
+        }
+    }
+
+    SiteDto convertToDto(Site site) {
         SiteDto dto = new SiteDto();
         dto.setId(site.getId());
         dto.setName(site.getName());
@@ -0,0 +1,39 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.QueryParamDto;
+import com.webchecker.backend.dto.SiteDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable copy of a site's configuration as held by {@link SiteCache}. Query params
+ * are copied on the way in and out, so cached snapshots are never shared with callers.
+ */
+public record SiteSnapshot(Long id, String userId, String name, String url, Integer checkInterval, Integer timeout,
+                           String healthEndpoint, Boolean enabled, Integer uptimePercent, Integer maxLatency,
+                           Integer seoScore, List<QueryParamDto> queryParams, LocalDateTime createdAt) {
+    
+    // Constructor projection of SiteRepository; query params are added with withQueryParams
+    public SiteSnapshot(Long id, String userId, String name, String url, Integer checkInterval, Integer timeout,
+                        String healthEndpoint, Boolean enabled, Integer uptimePercent, Integer maxLatency,
+                        Integer seoScore, LocalDateTime createdAt) {
+        this(id, userId, name, url, checkInterval, timeout, healthEndpoint, enabled, uptimePercent, maxLatency,
+            seoScore, List.of(), createdAt);
+    }
+    
+    SiteSnapshot withQueryParams(List<QueryParamDto> params) {
+        return new SiteSnapshot(id, userId, name, url, checkInterval, timeout, healthEndpoint, enabled,
+            uptimePercent, maxLatency, seoScore, List.copyOf(params), createdAt);
+    }
+    
+    SiteDto toDto() {
+        SiteDto dto = new SiteDto(id, name, url, checkInterval, timeout, healthEndpoint, enabled,
+            uptimePercent, maxLatency, seoScore);
+        dto.setQueryParams(queryParams.stream()
+            .map(qp -> new QueryParamDto(qp.getKey(), qp.getValue()))
+            .collect(Collectors.toList()));
+        return dto;
+    }
+}
@@ -0,0 +1,450 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.SloStatusDto;
+import com.webchecker.backend.dto.SloWindowDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.UptimeRollup;
+import com.webchecker.backend.entity.UptimeRollup.Resolution;
+import com.webchecker.backend.event.CheckResultsSavedEvent;
+import com.webchecker.backend.event.SiteChangedEvent;
+import com.webchecker.backend.repository.UptimeRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates each site's availability SLO, taking thresholds.uptimePercent as the
+ * target over a rolling {@code period-days}. Per site, rings of check and failure
+ * counters at minute, hour and day granularity are updated in O(1) per committed
+ * result, so the error budget and the burn rate of every window are sums over at most
+ * a few dozen buckets. Rings are rebuilt from uptime_rollups the first time a site is
+ * seen after a restart.
+ * <p>
+ * A replica only sees the results it ingests, so rings are only counted in memory with
+ * {@code webchecker.recent.local-ingest}, like the recent check buffer. Otherwise every
+ * scheduled evaluation rebuilds them from uptime_rollups, which holds every replica's
+ * results, so all replicas report the same budgets and alerts at the cost of reading
+ * each site's recent buckets once per evaluation.
+ * <p>
+ * Alerts use multiple windows and burn rates: one fires while both its long and its
+ * short window spend the budget at least {@code rate} times faster than the period
+ * allows. Windows are aligned to their bucket size. A scheduled evaluation counts the
+ * sites in each alert for the {@code webchecker.slo.burning.sites} gauges; per-site
+ * figures are on the API only, since site tags would explode metric cardinality.
+ */
+@Service
+public class SloService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SloService.class);
+    
+    private static final int MINUTE_SLOTS = 60;
+    private static final int HOUR_SLOTS = 72;
+    private static final int DEFAULT_TARGET = 99;
+    
+    public enum Window {
+        M5("5m", Resolution.MINUTE, 5),
+        M30("30m", Resolution.MINUTE, 30),
+        H1("1h", Resolution.MINUTE, 60),
+        H6("6h", Resolution.HOUR, 6),
+        D3("3d", Resolution.HOUR, 72);
+        
+        private final String label;
+        private final Resolution resolution;
+        private final int buckets;
+        
+        Window(String label, Resolution resolution, int buckets) {
+            this.label = label;
+            this.resolution = resolution;
+            this.buckets = buckets;
+        }
+    }
+    
+    // Spending 2%, 5% and 10% of a 30 day budget within the long window
+    public enum Alert {
+        FAST(Window.H1, Window.M5, 14.4),
+        MEDIUM(Window.H6, Window.M30, 6.0),
+        SLOW(Window.D3, Window.H6, 1.0);
+        
+        private final Window longWindow;
+        private final Window shortWindow;
+        private final double rate;
+        
+        Alert(Window longWindow, Window shortWindow, double rate) {
+            this.longWindow = longWindow;
+            this.shortWindow = shortWindow;
+            this.rate = rate;
+        }
+    }
+    
+    @Autowired
+    private UptimeRollupRepository uptimeRollupRepository;
+    
+    @Autowired
+    private SiteCache siteCache;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${webchecker.slo.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${webchecker.slo.period-days:30}")
+    private int periodDays;
+    
+    @Value("${webchecker.recent.local-ingest:false}")
+    private boolean localIngest;
+    
+    private final Map<Long, SiteSlo> states = new ConcurrentHashMap<>();
+    private final Map<Alert, AtomicInteger> burning = new EnumMap<>(Alert.class);
+    private final AtomicInteger exhausted = new AtomicInteger();
+    
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("webchecker.slo.sites", states, Map::size);
+        meterRegistry.gauge("webchecker.slo.exhausted.sites", exhausted);
+        for (Alert alert : Alert.values()) {
+            burning.put(alert, meterRegistry.gauge("webchecker.slo.burning.sites",
+                Tags.of("alert", alert.name().toLowerCase(Locale.ROOT)), new AtomicInteger()));
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onCheckResultsSaved(CheckResultsSavedEvent event) {
+        if (!enabled || !localIngest) {
+            return;
+        }
+        Set<Long> restored = new HashSet<>();
+        for (CheckResult checkResult : event.getCheckResults()) {
+            Long siteId = checkResult.getSiteId();
+            if (restored.contains(siteId)) {
+                continue;
+            }
+            SiteSlo slo = states.get(siteId);
+            if (slo == null) {
+                // The batch's rollups were committed with it, so a restored site already counts it
+                try {
+                    state(siteId);
+                } catch (RuntimeException e) {
+                    log.error("Restoring SLO counters failed for site {}", siteId, e);
+                }
+                restored.add(siteId);
+                continue;
+            }
+            slo.record(toEpochSecond(checkResult.getTimestamp()), 1,
+                checkResult.getStatus() == CheckResult.CheckStatus.UP ? 0 : 1);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onSiteChanged(SiteChangedEvent event) {
+        if (event.getChangeType() == SiteChangedEvent.ChangeType.DELETED) {
+            states.remove(event.getSite().getId());
+            return;
+        }
+        SiteSlo slo = states.get(event.getSite().getId());
+        if (slo != null) {
+            slo.target = target(event.getSite().getThresholds().getUptimePercent());
+        }
+    }
+    
+    /**
+     * The site's budget and burn rates right now, or null for an unknown site.
+     */
+    public SloStatusDto getStatus(Long siteId) {
+        SiteSlo slo = enabled ? state(siteId) : null;
+        if (slo == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Evaluation evaluation = slo.evaluate(toEpochSecond(now));
+        SloStatusDto dto = new SloStatusDto();
+        dto.setSiteId(siteId);
+        dto.setTargetPercent(evaluation.target());
+        dto.setPeriodDays(periodDays);
+        dto.setTotalChecks(evaluation.period().checks());
+        dto.setFailedChecks(evaluation.period().failures());
+        if (evaluation.period().checks() > 0) {
+            dto.setUptimePercent(100.0 * (evaluation.period().checks() - evaluation.period().failures())
+                / evaluation.period().checks());
+        }
+        dto.setBudgetRemaining(evaluation.budgetRemaining());
+        List<SloWindowDto> windows = new ArrayList<>();
+        for (Window window : Window.values()) {
+            Count count = evaluation.windows().get(window);
+            windows.add(new SloWindowDto(window.label, count.checks(), count.failures(), evaluation.burnRate(window)));
+        }
+        dto.setWindows(windows);
+        dto.setAlerts(evaluation.alerts().stream().map(Alert::name).toList());
+        dto.setEvaluatedAt(now);
+        return dto;
+    }
+    
+    @Scheduled(fixedDelayString = "${webchecker.slo.evaluation-interval-ms:30000}")
+    public void evaluateAll() {
+        if (!enabled) {
+            return;
+        }
+        if (!localIngest) {
+            resync();
+        }
+        long now = toEpochSecond(LocalDateTime.now());
+        Map<Alert, Integer> counts = new EnumMap<>(Alert.class);
+        int budgetExhausted = 0;
+        for (SiteSlo slo : states.values()) {
+            Evaluation evaluation = slo.evaluate(now);
+            for (Alert alert : evaluation.alerts()) {
+                counts.merge(alert, 1, Integer::sum);
+            }
+            if (evaluation.budgetRemaining() != null && evaluation.budgetRemaining() <= 0) {
+                budgetExhausted++;
+            }
+            Set<Alert> started = EnumSet.noneOf(Alert.class);
+            started.addAll(evaluation.alerts());
+            started.removeAll(slo.firing);
+            if (!started.isEmpty()) {
+                log.info("Site {} is burning its error budget: {}", slo.siteId, started);
+            }
+            slo.firing = evaluation.alerts();
+        }
+        for (Alert alert : Alert.values()) {
+            burning.get(alert).set(counts.getOrDefault(alert, 0));
+        }
+        exhausted.set(budgetExhausted);
+    }
+    
+    private SiteSlo state(Long siteId) {
+        SiteSlo slo = states.get(siteId);
+        if (slo != null) {
+            return slo;
+        }
+        SiteSlo loaded = load(siteId);
+        if (loaded == null) {
+            return null;
+        }
+        slo = states.putIfAbsent(siteId, loaded);
+        return slo != null ? slo : loaded;
+    }
+    
+    private SiteSlo load(Long siteId) {
+        SiteSlo slo = newState(siteId);
+        if (slo == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        restore(slo, Resolution.MINUTE, now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(MINUTE_SLOTS - 1));
+        restore(slo, Resolution.HOUR, now.truncatedTo(ChronoUnit.HOURS).minusHours(HOUR_SLOTS - 1));
+        restore(slo, Resolution.DAY, now.truncatedTo(ChronoUnit.DAYS).minusDays(periodDays - 1));
+        return slo;
+    }
+    
+    private SiteSlo newState(Long siteId) {
+        return siteCache.get(siteId)
+            .map(site -> new SiteSlo(siteId, target(site.uptimePercent()), periodDays))
+            .orElse(null);
+    }
+    
+    /**
+     * Replaces every site's rings with ones rebuilt from uptime_rollups, one query per
+     * resolution. Sites without buckets in the period are dropped; alerts already firing
+     * carry over so they are not logged again.
+     */
+    private void resync() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, SiteSlo> synced = new HashMap<>();
+        resync(synced, Resolution.MINUTE, now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(MINUTE_SLOTS - 1));
+        resync(synced, Resolution.HOUR, now.truncatedTo(ChronoUnit.HOURS).minusHours(HOUR_SLOTS - 1));
+        resync(synced, Resolution.DAY, now.truncatedTo(ChronoUnit.DAYS).minusDays(periodDays - 1));
+        states.keySet().retainAll(synced.keySet());
+        for (SiteSlo slo : synced.values()) {
+            SiteSlo previous = states.put(slo.siteId, slo);
+            if (previous != null) {
+                slo.firing = previous.firing;
+            }
+        }
+    }
+    
+    private void resync(Map<Long, SiteSlo> synced, Resolution resolution, LocalDateTime from) {
+        for (UptimeRollupRepository.SiteBucket bucket : uptimeRollupRepository.findBuckets(resolution, from)) {
+            SiteSlo slo = synced.computeIfAbsent(bucket.getSiteId(), this::newState);
+            if (slo != null) {
+                slo.counters(resolution).add(toEpochSecond(bucket.getBucketStart()),
+                    (int) bucket.getTotalCount(), (int) (bucket.getTotalCount() - bucket.getUpCount()));
+            }
+        }
+    }
+    
+    private void restore(SiteSlo slo, Resolution resolution, LocalDateTime from) {
+        for (UptimeRollup bucket : uptimeRollupRepository
+                .findBySiteIdAndResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(slo.siteId, resolution, from)) {
+            slo.counters(resolution).add(toEpochSecond(bucket.getBucketStart()),
+                (int) bucket.getTotalCount(), (int) (bucket.getTotalCount() - bucket.getUpCount()));
+        }
+    }
+    
+    private static int target(Integer uptimePercent) {
+        return uptimePercent != null ? uptimePercent : DEFAULT_TARGET;
+    }
+    
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private record Count(long checks, long failures) {}
+    
+    private record Evaluation(int target, Count period, Map<Window, Count> windows, Set<Alert> alerts) {
+        
+        // Share of failures the target allows; zero for a 100% target, which has no budget
+        double budget() {
+            return (100 - target) / 100.0;
+        }
+        
+        Double burnRate(Window window) {
+            Count count = windows.get(window);
+            if (budget() <= 0) {
+                return null;
+            }
+            return count.checks() == 0 ? 0.0 : (double) count.failures() / count.checks() / budget();
+        }
+        
+        Double budgetRemaining() {
+            if (budget() <= 0) {
+                return null;
+            }
+            return period.checks() == 0 ? 1.0 : 1.0 - period.failures() / (budget() * period.checks());
+        }
+    }
+    
+    private static final class SiteSlo {
+        
+        final Long siteId;
+        volatile int target;
+        // Alerts firing at the last scheduled evaluation; only touched by the evaluator
+        Set<Alert> firing = EnumSet.noneOf(Alert.class);
+        
+        private final Counters minutes = new Counters(MINUTE_SLOTS, 60);
+        private final Counters hours = new Counters(HOUR_SLOTS, 3600);
+        private final Counters days;
+        
+        SiteSlo(Long siteId, int target, int periodDays) {
+            this.siteId = siteId;
+            this.target = target;
+            this.days = new Counters(periodDays, 86400);
+        }
+        
+        Counters counters(Resolution resolution) {
+            return switch (resolution) {
+                case MINUTE -> minutes;
+                case HOUR -> hours;
+                case DAY -> days;
+            };
+        }
+        
+        synchronized void record(long epochSecond, int checks, int failures) {
+            minutes.add(epochSecond, checks, failures);
+            hours.add(epochSecond, checks, failures);
+            days.add(epochSecond, checks, failures);
+        }
+        
+        synchronized Evaluation evaluate(long now) {
+            Map<Window, Count> windows = new EnumMap<>(Window.class);
+            for (Window window : Window.values()) {
+                windows.put(window, counters(window.resolution).sum(now, window.buckets));
+            }
+            Evaluation evaluation = new Evaluation(target, days.sum(now, days.size()), windows,
+                EnumSet.noneOf(Alert.class));
+            for (Alert alert : Alert.values()) {
+                Double longRate = evaluation.burnRate(alert.longWindow);
+                Double shortRate = evaluation.burnRate(alert.shortWindow);
+                if (longRate != null && longRate >= alert.rate && shortRate >= alert.rate) {
+                    evaluation.alerts().add(alert);
+                }
+            }
+            return evaluation;
+        }
+    }
+    
+    /**
+     * Check and failure counts in a ring of fixed-length time slots. Slots are cleared
+     * as time moves past them, so a slot within the ring always belongs to the latest
+     * period that maps to it.
+     */
+    private static final class Counters {
+        
+        private final int[] checks;
+        private final int[] failures;
+        private final long slotSeconds;
+        private long latest = Long.MIN_VALUE;
+        
+        Counters(int slots, long slotSeconds) {
+            this.checks = new int[slots];
+            this.failures = new int[slots];
+            this.slotSeconds = slotSeconds;
+        }
+        
+        int size() {
+            return checks.length;
+        }
+        
+        void add(long epochSecond, int checkCount, int failureCount) {
+            long slot = Math.floorDiv(epochSecond, slotSeconds);
+            int size = checks.length;
+            if (slot > latest) {
+                // Bounded by the ring size however long the site was quiet
+                long firstStale = latest == Long.MIN_VALUE ? slot - size + 1 : Math.max(latest + 1, slot - size + 1);
+                for (long s = firstStale; s <= slot; s++) {
+                    int index = (int) Math.floorMod(s, size);
+                    checks[index] = 0;
+                    failures[index] = 0;
+                }
+                latest = slot;
+            } else if (slot <= latest - size) {
+                return; // older than the ring
+            }
+            int index = (int) Math.floorMod(slot, size);
+            checks[index] += checkCount;
+            failures[index] += failureCount;
+        }
+        
+        /**
+         * Totals of the last {@code slots} slots up to the one containing now.
+         */
+        Count sum(long now, int slots) {
+            if (latest == Long.MIN_VALUE) {
+                return new Count(0, 0);
+            }
+            long nowSlot = Math.floorDiv(now, slotSeconds);
+            long from = Math.max(nowSlot - slots + 1, latest - checks.length + 1);
+            long to = Math.min(nowSlot, latest);
+            long checkTotal = 0;
+            long failureTotal = 0;
+            for (long s = from; s <= to; s++) {
+                int index = (int) Math.floorMod(s, checks.length);
+                checkTotal += checks[index];
+                failureTotal += failures[index];
+            }
+            return new Count(checkTotal, failureTotal);
+        }
+    }
+}
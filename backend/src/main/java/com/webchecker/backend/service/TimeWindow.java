@@ -0,0 +1,55 @@
+package com.webchecker.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A [since, until) range resolved from either a shorthand window such as "24h",
+ * "7d" or "30m", or explicit bounds.
+ */
+public class TimeWindow {
+    
+    private final LocalDateTime since;
+    private final LocalDateTime until;
+    
+    private TimeWindow(LocalDateTime since, LocalDateTime until) {
+        if (!since.isBefore(until)) {
+            throw new IllegalArgumentException("Window start must be before its end");
+        }
+        this.since = since;
+        this.until = until;
+    }
+    
+    public static TimeWindow resolve(String window, LocalDateTime since, LocalDateTime until) {
+        LocalDateTime end = until != null ? until : LocalDateTime.now();
+        if (since != null) {
+            return new TimeWindow(since, end);
+        }
+        return new TimeWindow(end.minus(parseDuration(window != null ? window : "24h")), end);
+    }
+    
+    public static Duration parseDuration(String window) {
+        if (window == null || window.length() < 2) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(window.substring(0, window.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid window: " + window, e);
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+        return switch (window.charAt(window.length() - 1)) {
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException("Invalid window: " + window);
+        };
+    }
+    
+    public LocalDateTime getSince() { return since; }
+    
+    public LocalDateTime getUntil() { return until; }
+}
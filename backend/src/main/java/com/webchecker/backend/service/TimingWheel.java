@@ -0,0 +1,123 @@
+package com.webchecker.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel with one-second ticks: four levels of 64 slots cover
+ * deadlines up to 2^24 seconds ahead. Scheduling is O(1) and each tick only touches
+ * the entries that are due plus the occasional cascade from a coarser level, no
+ * matter how many entries are waiting. Not thread-safe; callers serialize access.
+ */
+final class TimingWheel<T> {
+    
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    static final long MAX_DELAY = 1L << (SLOT_BITS * LEVELS);
+    
+    private final List<ArrayDeque<Entry<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private long currentTick;
+    private int size;
+    
+    static final class Entry<T> {
+        final T value;
+        final long deadline;
+        boolean cancelled;
+        
+        Entry(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+    
+    TimingWheel(long startTick) {
+        this.currentTick = startTick;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+    }
+    
+    long currentTick() {
+        return currentTick;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Deadlines at or before the current tick fire on the next tick.
+     */
+    Entry<T> schedule(T value, long deadline) {
+        long clamped = Math.min(Math.max(deadline, currentTick + 1), currentTick + MAX_DELAY - 1);
+        Entry<T> entry = new Entry<>(value, clamped);
+        place(entry);
+        size++;
+        return entry;
+    }
+    
+    /**
+     * Cancelled entries stay in their slot and are discarded when it is reached.
+     */
+    void cancel(Entry<T> entry) {
+        if (!entry.cancelled) {
+            entry.cancelled = true;
+            size--;
+        }
+    }
+    
+    /**
+     * Moves the wheel forward to the given tick, handing every expired entry to the
+     * consumer in deadline order. Missed ticks are replayed, so a late call catches up.
+     */
+    void advanceTo(long tick, Consumer<T> expired) {
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            ArrayDeque<Entry<T>> due = slot(0, currentTick);
+            Entry<T> entry;
+            while ((entry = due.poll()) != null) {
+                if (!entry.cancelled) {
+                    entry.cancelled = true;
+                    size--;
+                    expired.accept(entry.value);
+                }
+            }
+        }
+    }
+    
+    private void cascade(int level) {
+        ArrayDeque<Entry<T>> bucket = slot(level, currentTick);
+        List<Entry<T>> moved = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<T> entry : moved) {
+            if (!entry.cancelled) {
+                place(entry);
+            }
+        }
+    }
+    
+    // An entry lives on the lowest level whose parent slot it shares with the current
+    // tick, so the slot is guaranteed to be reached before the deadline passes
+    private void place(Entry<T> entry) {
+        for (int level = 0; level < LEVELS - 1; level++) {
+            if (((entry.deadline ^ currentTick) >>> (SLOT_BITS * (level + 1))) == 0) {
+                slot(level, entry.deadline).add(entry);
+                return;
+            }
+        }
+        slot(LEVELS - 1, entry.deadline).add(entry);
+    }
+    
+    private ArrayDeque<Entry<T>> slot(int level, long tick) {
+        int index = (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        return slots.get(level * SLOTS + index);
+    }
+}
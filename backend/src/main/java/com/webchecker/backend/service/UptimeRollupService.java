@@ -0,0 +1,277 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.UptimeStatsDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.entity.UptimeRollup;
+import com.webchecker.backend.entity.UptimeRollup.Resolution;
+import com.webchecker.backend.repository.CheckResultPartitionRepository;
+import com.webchecker.backend.repository.UptimeRollupBatchRepository;
+import com.webchecker.backend.repository.UptimeRollupBatchRepository.Backfill;
+import com.webchecker.backend.repository.UptimeRollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintains per-site minute/hour/day check counters at ingest time so uptime
+ * queries cost O(buckets) instead of scanning check_results.
+ */
+@Service
+@Transactional
+public class UptimeRollupService {
+    
+    private static final Logger log = LoggerFactory.getLogger(UptimeRollupService.class);
+    
+    private static final Comparator<UptimeRollup> BUCKET_ORDER = Comparator
+        .comparing(UptimeRollup::getSiteId)
+        .thenComparing(UptimeRollup::getResolution)
+        .thenComparing(UptimeRollup::getBucketStart);
+    
+    @Autowired
+    private UptimeRollupRepository uptimeRollupRepository;
+    
+    @Autowired
+    private UptimeRollupBatchRepository uptimeRollupBatchRepository;
+    
+    @Autowired
+    private CheckResultPartitionRepository partitionRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${webchecker.rollups.minute-retention-days:3}")
+    private int minuteRetentionDays;
+    
+    @Value("${webchecker.rollups.hour-retention-days:90}")
+    private int hourRetentionDays;
+    
+    @Value("${webchecker.rollups.backfill-enabled:true}")
+    private boolean backfillEnabled;
+    
+    private volatile boolean running;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!backfillEnabled) {
+            return;
+        }
+        running = true;
+        Thread backfill = new Thread(this::backfill, "uptime-rollups-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+    
+    @PreDestroy
+    void stopBackfill() {
+        running = false;
+    }
+    
+    public void record(List<CheckResult> checkResults) {
+        List<UptimeRollup> buckets = aggregate(checkResults);
+        if (!buckets.isEmpty()) {
+            uptimeRollupBatchRepository.upsertAll(buckets);
+        }
+    }
+    
+    /**
+     * Folds results into partial buckets for every resolution, in a stable order.
+     */
+    static List<UptimeRollup> aggregate(List<CheckResult> checkResults) {
+        Map<BucketKey, UptimeRollup> buckets = new HashMap<>();
+        for (CheckResult checkResult : checkResults) {
+            for (Resolution resolution : Resolution.values()) {
+                LocalDateTime bucketStart = resolution.bucketStart(checkResult.getTimestamp());
+                buckets.computeIfAbsent(new BucketKey(checkResult.getSiteId(), resolution, bucketStart),
+                        key -> new UptimeRollup(key.siteId(), key.resolution(), key.bucketStart()))
+                    .add(checkResult);
+            }
+        }
+        List<UptimeRollup> ordered = new ArrayList<>(buckets.values());
+        ordered.sort(BUCKET_ORDER);
+        return ordered;
+    }
+    
+    @Transactional(readOnly = true)
+    public UptimeStatsDto getStats(Long siteId, TimeWindow window) {
+        WindowBounds b = bounds(window);
+        return toDto(siteId, window,
+            uptimeRollupRepository.sumWindow(siteId, b.from(), b.hourFrom(), b.dayFrom(), b.dayTo(), b.hourTo(), b.to()));
+    }
+    
+    /**
+     * Stats for every given site in one query; sites without checks in the window get
+     * an empty entry.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, UptimeStatsDto> getStats(Collection<Long> siteIds, TimeWindow window) {
+        Map<Long, UptimeStatsDto> stats = new HashMap<>();
+        if (siteIds.isEmpty()) {
+            return stats;
+        }
+        WindowBounds b = bounds(window);
+        for (UptimeRollupRepository.SiteTotals totals : uptimeRollupRepository.sumWindowBySite(
+                siteIds, b.from(), b.hourFrom(), b.dayFrom(), b.dayTo(), b.hourTo(), b.to())) {
+            stats.put(totals.getSiteId(), toDto(totals.getSiteId(), window, totals));
+        }
+        for (Long siteId : siteIds) {
+            stats.computeIfAbsent(siteId, id -> toDto(id, window, null));
+        }
+        return stats;
+    }
+    
+    private WindowBounds bounds(TimeWindow window) {
+        LocalDateTime now = LocalDateTime.now();
+        return WindowBounds.of(window, now.minusDays(minuteRetentionDays), now.minusDays(hourRetentionDays));
+    }
+    
+    private static UptimeStatsDto toDto(Long siteId, TimeWindow window, UptimeRollupRepository.Totals totals) {
+        UptimeStatsDto dto = new UptimeStatsDto();
+        dto.setSiteId(siteId);
+        dto.setSince(window.getSince());
+        dto.setUntil(window.getUntil());
+        if (totals == null) {
+            return dto;
+        }
+        long total = valueOf(totals.getTotalCount());
+        dto.setTotalChecks(total);
+        dto.setUpChecks(valueOf(totals.getUpCount()));
+        dto.setDownChecks(valueOf(totals.getDownCount()));
+        dto.setTimeoutChecks(valueOf(totals.getTimeoutCount()));
+        dto.setMinLatency(totals.getLatencyMin());
+        dto.setMaxLatency(totals.getLatencyMax());
+        if (total > 0) {
+            dto.setUptimePercent((dto.getUpChecks() / (double) total) * 100.0);
+            dto.setAvgLatency(valueOf(totals.getLatencySum()) / (double) total);
+        }
+        return dto;
+    }
+    
+    @Scheduled(cron = "${webchecker.rollups.prune-cron:0 17 * * * *}")
+    public void pruneExpiredBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+        int minutes = uptimeRollupRepository.deleteOlderThan(Resolution.MINUTE, now.minusDays(minuteRetentionDays));
+        int hours = uptimeRollupRepository.deleteOlderThan(Resolution.HOUR, now.minusDays(hourRetentionDays));
+        log.info("Pruned {} minute and {} hour uptime rollups", minutes, hours);
+    }
+    
+    /**
+     * Builds rollups for check results stored before ingest kept them, one source table
+     * per transaction, once the old unpartitioned table has been moved into partitions.
+     * Tables that fail, e.g. because they were retired meanwhile, are retried on the
+     * next start; the backfill is marked finished only once every table is done.
+     */
+    void backfill() {
+        try {
+            while (running && partitionRepository.isMigrating()) {
+                Thread.sleep(30_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!running) {
+            return;
+        }
+        try {
+            backfillTables();
+        } catch (RuntimeException e) {
+            log.error("Backfilling uptime rollups failed; retrying on the next start", e);
+        }
+    }
+    
+    private void backfillTables() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime minuteHorizon = now.minusDays(minuteRetentionDays);
+        LocalDateTime hourHorizon = now.minusDays(hourRetentionDays);
+        Optional<Backfill> started = uptimeRollupBatchRepository.beginBackfill(minuteHorizon);
+        if (started.isEmpty()) {
+            return;
+        }
+        Backfill backfill = started.get();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int filled = 0;
+        boolean complete = true;
+        for (String table : partitionRepository.listTablesBefore(backfill.cutoff())) {
+            if (!running) {
+                return;
+            }
+            try {
+                if (Boolean.TRUE.equals(transaction.execute(status -> uptimeRollupBatchRepository.backfillSource(
+                        table, backfill, minuteHorizon, hourHorizon)))) {
+                    filled++;
+                }
+            } catch (RuntimeException e) {
+                complete = false;
+                log.warn("Backfilling uptime rollups from {} failed; retrying on the next start", table, e);
+            }
+        }
+        if (complete) {
+            uptimeRollupBatchRepository.finishBackfill();
+        }
+        log.info("Backfilled uptime rollups before {} from {} tables", backfill.cutoff(), filled);
+    }
+    
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+    
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+    
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+    
+    private record BucketKey(Long siteId, Resolution resolution, LocalDateTime bucketStart) {}
+    
+    /**
+     * A window decomposed into minute edges, hour edges and whole days. Minute precision
+     * is the finest we keep, so the window is widened to whole minutes. An edge reaching
+     * back past a resolution's retention horizon, where its buckets may already be
+     * pruned, is widened to the next coarser resolution instead.
+     */
+    private record WindowBounds(LocalDateTime from, LocalDateTime hourFrom, LocalDateTime dayFrom,
+                                LocalDateTime dayTo, LocalDateTime hourTo, LocalDateTime to) {
+        
+        static WindowBounds of(TimeWindow window, LocalDateTime minuteHorizon, LocalDateTime hourHorizon) {
+            LocalDateTime from = Resolution.MINUTE.bucketStart(window.getSince());
+            LocalDateTime to = Resolution.MINUTE.ceil(window.getUntil());
+            if (from.isBefore(minuteHorizon)) {
+                from = Resolution.HOUR.bucketStart(from);
+            }
+            if (Resolution.HOUR.bucketStart(to).isBefore(minuteHorizon)) {
+                to = Resolution.HOUR.ceil(to);
+            }
+            if (from.isBefore(hourHorizon)) {
+                from = Resolution.DAY.bucketStart(from);
+            }
+            if (Resolution.DAY.bucketStart(to).isBefore(hourHorizon)) {
+                to = Resolution.DAY.ceil(to);
+            }
+            LocalDateTime hourFrom = min(Resolution.HOUR.ceil(from), to);
+            LocalDateTime hourTo = max(Resolution.HOUR.bucketStart(to), hourFrom);
+            LocalDateTime dayFrom = min(Resolution.DAY.ceil(hourFrom), hourTo);
+            LocalDateTime dayTo = max(Resolution.DAY.bucketStart(hourTo), dayFrom);
+            return new WindowBounds(from, hourFrom, dayFrom, dayTo, hourTo, to);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.webchecker.backend.repository;
+
+import com.webchecker.backend.entity.CheckResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveBlockCodecTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 0, 0);
+    
+    @Test
+    void regularChecksRoundTrip() {
+        List<CheckResult> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean down = i % 50 == 7;
+            rows.add(row(1000 + i, START.plusMinutes(i), down ? CheckResult.CheckStatus.DOWN : CheckResult.CheckStatus.UP,
+                120 + i % 13, down ? 503 : 200, down ? "Service Unavailable" : null, 90, "user-a"));
+        }
+        
+        assertRoundTrip(rows);
+    }
+    
+    @Test
+    void irregularRowsRoundTrip() {
+        List<CheckResult> rows = List.of(
+            // Ids out of order, sub-second timestamps, repeated timestamps and a gap of days
+            row(50, START.plusNanos(123_456_000), CheckResult.CheckStatus.UP, 0, null, null, null, null),
+            row(7, START.plusNanos(123_456_000), CheckResult.CheckStatus.TIMEOUT, Integer.MAX_VALUE, null,
+                "Read timed out after 30000 ms", null, "user-a"),
+            row(Long.MAX_VALUE - 1, START.plusDays(3), CheckResult.CheckStatus.DOWN, 1, 0, "", 0, "user-b"),
+            row(51, START.plusDays(3).plusSeconds(1), CheckResult.CheckStatus.UP, 65_535, 301,
+                "Zeit\u00fcberschreitung \u2615", 100, "user-b"),
+            // Before 1970, so epoch micros are negative
+            row(52, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000), CheckResult.CheckStatus.UP, 42, 200,
+                null, 77, "user-a"));
+        
+        assertRoundTrip(rows);
+    }
+    
+    @Test
+    void singleRowAndEmptyBlockRoundTrip() {
+        assertRoundTrip(List.of(row(1, START, CheckResult.CheckStatus.UP, 100, 200, null, 95, "user-a")));
+        assertRoundTrip(List.of());
+    }
+    
+    @Test
+    void decodingReadsOnlyItsOwnBlock() {
+        List<CheckResult> first = List.of(row(1, START, CheckResult.CheckStatus.UP, 100, 200, null, 95, "user-a"));
+        List<CheckResult> second = List.of(row(2, START.plusMinutes(1), CheckResult.CheckStatus.DOWN, 300, 500,
+            "Internal Server Error", null, "user-a"));
+        byte[] a = ArchiveBlockCodec.encode(first);
+        byte[] b = ArchiveBlockCodec.encode(second);
+        ByteBuffer file = ByteBuffer.allocate(a.length + b.length).put(a).put(b);
+        
+        assertThat(fields(ArchiveBlockCodec.decode(file.slice(a.length, b.length), 42L))).isEqualTo(fields(second));
+        assertThat(fields(ArchiveBlockCodec.decode(file.slice(0, a.length), 42L))).isEqualTo(fields(first));
+    }
+    
+    @Test
+    void microsConversionRoundTrips() {
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000);
+        for (LocalDateTime timestamp : List.of(START, START.plusNanos(1_000), beforeEpoch)) {
+            assertThat(ArchiveBlockCodec.fromMicros(ArchiveBlockCodec.toMicros(timestamp))).isEqualTo(timestamp);
+        }
+    }
+    
+    private static void assertRoundTrip(List<CheckResult> rows) {
+        List<CheckResult> decoded = ArchiveBlockCodec.decode(ByteBuffer.wrap(ArchiveBlockCodec.encode(rows)), 42L);
+        assertThat(fields(decoded)).isEqualTo(fields(rows));
+    }
+    
+    // Job ids and anomaly scores are not archived
+    private static List<List<Object>> fields(List<CheckResult> rows) {
+        List<List<Object>> fields = new ArrayList<>();
+        for (CheckResult row : rows) {
+            fields.add(Arrays.asList(row.getId(), row.getSiteId(), row.getTimestamp(), row.getStatus(),
+                row.getResponseTime(), row.getStatusCode(), row.getError(), row.getSeoScore(), row.getUserId()));
+        }
+        return fields;
+    }
+    
+    private static CheckResult row(long id, LocalDateTime timestamp, CheckResult.CheckStatus status, int responseTime,
+                                   Integer statusCode, String error, Integer seoScore, String userId) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setId(id);
+        checkResult.setSiteId(42L);
+        checkResult.setTimestamp(timestamp);
+        checkResult.setStatus(status);
+        checkResult.setResponseTime(responseTime);
+        checkResult.setStatusCode(statusCode);
+        checkResult.setError(error);
+        checkResult.setSeoScore(seoScore);
+        checkResult.setUserId(userId);
+        checkResult.setJobId("1700000000000-" + id);
+        return checkResult;
+    }
+}
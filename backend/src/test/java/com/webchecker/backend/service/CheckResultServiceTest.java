@@ -0,0 +1,95 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.dto.CheckResultDto;
+import com.webchecker.backend.dto.CheckResultPageDto;
+import com.webchecker.backend.entity.CheckResult;
+import com.webchecker.backend.repository.CheckResultArchiveRepository;
+import com.webchecker.backend.repository.CheckResultPartitionRepository;
+import com.webchecker.backend.repository.CheckResultPartitionRepository.Partition;
+import com.webchecker.backend.repository.CheckResultRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CheckResultServiceTest {
+    
+    private static final LocalDateTime MARCH = LocalDateTime.of(2026, 3, 1, 0, 0);
+    
+    @TempDir
+    Path archiveDir;
+    
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+    private final SiteCache siteCache = mock(SiteCache.class);
+    private CheckResultArchiveRepository archiveRepository;
+    private CheckResultService service;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        archiveRepository = new CheckResultArchiveRepository();
+        ReflectionTestUtils.setField(archiveRepository, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(archiveRepository, "partitionRepository", mock(CheckResultPartitionRepository.class));
+        ReflectionTestUtils.setField(archiveRepository, "enabled", true);
+        ReflectionTestUtils.setField(archiveRepository, "directory", archiveDir.toString());
+        ReflectionTestUtils.invokeMethod(archiveRepository, "init");
+        
+        service = new CheckResultService();
+        ReflectionTestUtils.setField(service, "checkResultRepository", checkResultRepository);
+        ReflectionTestUtils.setField(service, "archiveRepository", archiveRepository);
+        ReflectionTestUtils.setField(service, "siteCache", siteCache);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        
+        SiteSnapshot site = new SiteSnapshot(7L, "alice", "Shop", "https://shop.example", 60, 30, null, true,
+            null, null, null, MARCH.minusMonths(1));
+        when(siteCache.getOwned("alice", 7L)).thenReturn(Optional.of(site));
+        when(siteCache.getByUser("alice")).thenReturn(List.of(site));
+    }
+    
+    @Test
+    void historyContinuesIntoArchivedWorkerResults() throws Exception {
+        // The live partitions are empty for March; the worker's results were archived
+        try (CheckResultArchiveRepository.Writer writer = archiveRepository.openWriter(
+            new Partition("check_results_p20260301", MARCH, MARCH.plusDays(1)))) {
+            for (int minute = 0; minute < 3; minute++) {
+                writer.accept(workerResult(100 + minute, MARCH.plusMinutes(minute)));
+            }
+            writer.finish();
+        }
+        
+        CheckResultPageDto first = service.getChecksBySiteId(7L, "alice", MARCH, MARCH.plusDays(1), null, 2);
+        assertThat(first.getItems()).extracting(CheckResultDto::getId).containsExactly(102L, 101L);
+        assertThat(first.getItems()).allSatisfy(item -> assertThat(item.getSiteId()).isEqualTo(7L));
+        assertThat(first.getNextCursor()).isNotNull();
+        
+        CheckResultPageDto second = service.getChecksBySiteId(7L, "alice", MARCH, MARCH.plusDays(1),
+            first.getNextCursor(), 2);
+        assertThat(second.getItems()).extracting(CheckResultDto::getId).containsExactly(100L);
+        assertThat(second.getNextCursor()).isNull();
+        
+        CheckResultPageDto all = service.getRecentChecksByUserId("alice", MARCH, MARCH.plusDays(1), null, 10);
+        assertThat(all.getItems()).extracting(CheckResultDto::getId).containsExactly(102L, 101L, 100L);
+    }
+    
+    private static CheckResult workerResult(long id, LocalDateTime timestamp) {
+        CheckResultDto dto = new CheckResultDto();
+        dto.setSiteId(7L);
+        dto.setTimestamp(timestamp);
+        dto.setStatus(CheckResult.CheckStatus.UP);
+        dto.setResponseTime(120);
+        dto.setStatusCode(200);
+        CheckResult checkResult = CheckResultService.fromWorkerResult(dto);
+        checkResult.setId(id);
+        return checkResult;
+    }
+}
@@ -0,0 +1,111 @@
+package com.webchecker.backend.service;
+
+import com.webchecker.backend.entity.CheckResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentCheckRingTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2026, 5, 1, 12, 0);
+    
+    @Test
+    void keepsTheNewestResultsOldestFirst() {
+        RecentCheckRing ring = new RecentCheckRing(4);
+        for (int minute = 0; minute < 3; minute++) {
+            ring.add(result(minute, 100 + minute));
+        }
+        
+        assertThat(minutes(ring.copy(7L, 10))).containsExactly(0, 1, 2);
+        assertThat(minutes(ring.copy(7L, 2))).containsExactly(1, 2);
+        assertThat(ring.copy(7L, 0)).isEmpty();
+        assertThat(new RecentCheckRing(4).copy(7L, 10)).isEmpty();
+    }
+    
+    @Test
+    void wrapsAroundAndEvictsTheOldest() {
+        RecentCheckRing ring = new RecentCheckRing(3);
+        for (int minute = 0; minute < 10; minute++) {
+            ring.add(result(minute, 100 + minute));
+        }
+        
+        List<CheckResult> recent = ring.copy(7L, 10);
+        assertThat(minutes(recent)).containsExactly(7, 8, 9);
+        assertThat(recent.get(0).getResponseTime()).isEqualTo(107);
+        assertThat(recent.get(2).getResponseTime()).isEqualTo(109);
+    }
+    
+    @Test
+    void insertsLateResultsInOrder() {
+        RecentCheckRing ring = new RecentCheckRing(4);
+        ring.add(result(0, 100));
+        ring.add(result(2, 102));
+        ring.add(result(3, 103));
+        ring.add(result(1, 101));
+        
+        assertThat(minutes(ring.copy(7L, 10))).containsExactly(0, 1, 2, 3);
+        
+        // Full: a late result displaces the oldest, one older than everything is dropped
+        ring.add(result(5, 105));
+        ring.add(result(4, 104));
+        assertThat(minutes(ring.copy(7L, 10))).containsExactly(2, 3, 4, 5);
+        ring.add(result(1, 101));
+        assertThat(minutes(ring.copy(7L, 10))).containsExactly(2, 3, 4, 5);
+    }
+    
+    @Test
+    void dropsIdenticalResultsButKeepsDistinctOnesAtTheSameTime() {
+        RecentCheckRing ring = new RecentCheckRing(4);
+        ring.add(result(0, 100));
+        ring.add(result(0, 100));
+        ring.add(result(0, 250));
+        
+        assertThat(ring.copy(7L, 10)).hasSize(2);
+    }
+    
+    @Test
+    void roundTripsFieldsAndNulls() {
+        RecentCheckRing ring = new RecentCheckRing(2);
+        CheckResult down = result(0, 30000);
+        down.setStatus(CheckResult.CheckStatus.TIMEOUT);
+        down.setStatusCode(null);
+        down.setSeoScore(null);
+        down.setTimestamp(START.plusNanos(123_000_000));
+        ring.add(down);
+        ring.add(result(1, 120));
+        
+        List<CheckResult> recent = ring.copy(7L, 2);
+        CheckResult first = recent.get(0);
+        assertThat(first.getSiteId()).isEqualTo(7L);
+        assertThat(first.getTimestamp()).isEqualTo(START.plusNanos(123_000_000));
+        assertThat(first.getStatus()).isEqualTo(CheckResult.CheckStatus.TIMEOUT);
+        assertThat(first.getResponseTime()).isEqualTo(30000);
+        assertThat(first.getStatusCode()).isNull();
+        assertThat(first.getSeoScore()).isNull();
+        CheckResult second = recent.get(1);
+        assertThat(second.getStatus()).isEqualTo(CheckResult.CheckStatus.UP);
+        assertThat(second.getStatusCode()).isEqualTo(200);
+        assertThat(second.getSeoScore()).isEqualTo(90);
+    }
+    
+    private static List<Integer> minutes(List<CheckResult> results) {
+        return results.stream()
+            .map(checkResult -> (int) Duration.between(START, checkResult.getTimestamp()).toMinutes())
+            .toList();
+    }
+    
+    private static CheckResult result(int minute, int responseTime) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setSiteId(7L);
+        checkResult.setTimestamp(START.plusMinutes(minute));
+        checkResult.setStatus(CheckResult.CheckStatus.UP);
+        checkResult.setResponseTime(responseTime);
+        checkResult.setStatusCode(200);
+        checkResult.setSeoScore(90);
+        return checkResult;
+    }
+}
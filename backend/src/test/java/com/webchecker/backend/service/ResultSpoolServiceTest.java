@@ -0,0 +1,166 @@
+package com.webchecker.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ResultSpoolServiceTest {
+    
+    @TempDir
+    Path spoolDir;
+    
+    private final CheckResultService checkResultService = mock(CheckResultService.class);
+    private final List<Long> saved = new ArrayList<>();
+    
+    @BeforeEach
+    void recordSaves() {
+        doAnswer(invocation -> {
+            List<CheckResult> batch = invocation.getArgument(0);
+            batch.forEach(checkResult -> saved.add(checkResult.getSiteId()));
+            return List.of();
+        }).when(checkResultService).saveCheckResults(any());
+    }
+    
+    @Test
+    void recoveryStopsAtATornRecordAndKeepsTheWholeOnes() throws Exception {
+        ResultSpoolService before = spool(500);
+        for (long siteId = 1; siteId <= 3; siteId++) {
+            assertThat(before.append(List.of(result(siteId)))).isTrue();
+        }
+        before.stop();
+        appendTornRecord(firstSegment());
+        
+        ResultSpoolService after = spool(500);
+        assertThat(after.hasBacklog()).isTrue();
+        after.replay();
+        
+        assertThat(saved).containsExactly(1L, 2L, 3L);
+        assertThat(after.hasBacklog()).isFalse();
+        
+        // New appends go to a fresh segment, never after the torn tail
+        assertThat(after.append(List.of(result(4)))).isTrue();
+        after.replay();
+        assertThat(saved).containsExactly(1L, 2L, 3L, 4L);
+    }
+    
+    @Test
+    void recoveryResumesFromTheCheckpointOfAPartialReplay() throws Exception {
+        ResultSpoolService before = spool(2);
+        for (long siteId = 1; siteId <= 5; siteId++) {
+            assertThat(before.append(List.of(result(siteId)))).isTrue();
+        }
+        // The first batch commits, then the database goes away again
+        doAnswer(invocation -> {
+            List<CheckResult> batch = invocation.getArgument(0);
+            if (!saved.isEmpty()) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            batch.forEach(checkResult -> saved.add(checkResult.getSiteId()));
+            return List.of();
+        }).when(checkResultService).saveCheckResults(any());
+        before.replay();
+        before.stop();
+        assertThat(saved).containsExactly(1L, 2L);
+        
+        recordSaves();
+        ResultSpoolService after = spool(2);
+        after.replay();
+        
+        assertThat(saved).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(after.hasBacklog()).isFalse();
+    }
+    
+    @Test
+    void onlyConnectionFailuresCountAsAnOutage() {
+        assertThat(ResultSpoolService.isDatabaseUnavailable(new DataAccessResourceFailureException("refused"))).isTrue();
+        assertThat(ResultSpoolService.isDatabaseUnavailable(
+            new UncategorizedSQLException("insert", "INSERT", new SQLException("terminating connection", "57P01")))).isTrue();
+        assertThat(ResultSpoolService.isDatabaseUnavailable(
+            new UncategorizedSQLException("insert", "INSERT", new SQLException("I/O error", "08006")))).isTrue();
+        
+        assertThat(ResultSpoolService.isDatabaseUnavailable(new CannotAcquireLockException("deadlock detected"))).isFalse();
+        assertThat(ResultSpoolService.isDatabaseUnavailable(new QueryTimeoutException("statement timeout"))).isFalse();
+        assertThat(ResultSpoolService.isDatabaseUnavailable(
+            new UncategorizedSQLException("insert", "INSERT", new SQLException("deadlock", "40P01")))).isFalse();
+    }
+    
+    private ResultSpoolService spool(int replayBatchSize) throws IOException {
+        ResultSpoolService spool = new ResultSpoolService();
+        ReflectionTestUtils.setField(spool, "checkResultService", checkResultService);
+        ReflectionTestUtils.setField(spool, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(spool, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(spool, "enabled", true);
+        ReflectionTestUtils.setField(spool, "directory", spoolDir.toString());
+        ReflectionTestUtils.setField(spool, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(spool, "maxSegments", 8);
+        ReflectionTestUtils.setField(spool, "fsync", "always");
+        ReflectionTestUtils.setField(spool, "replayBatchSize", replayBatchSize);
+        ReflectionTestUtils.setField(spool, "replayIntervalMs", 10L);
+        spool.init();
+        // replay() runs while the service is started; skip the background thread
+        ReflectionTestUtils.setField(spool, "running", true);
+        return spool;
+    }
+    
+    private Path firstSegment() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).sorted().findFirst().orElseThrow();
+        }
+    }
+    
+    // Simulates a crash mid-append: a header promising more bytes than were written
+    private static void appendTornRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            long position = 0;
+            while (true) {
+                header.clear();
+                channel.read(header, position);
+                int length = header.getInt(0);
+                if (length <= 0) {
+                    break;
+                }
+                position += 8 + length;
+            }
+            ByteBuffer torn = ByteBuffer.allocate(8 + 10);
+            torn.putInt(200).putInt(0x1234_5678).put(new byte[10]).flip();
+            channel.write(torn, position);
+        }
+    }
+    
+    private static CheckResult result(long siteId) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setSiteId(siteId);
+        checkResult.setUserId("worker");
+        checkResult.setTimestamp(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(siteId));
+        checkResult.setStatus(CheckResult.CheckStatus.UP);
+        checkResult.setResponseTime(100);
+        checkResult.setStatusCode(200);
+        return checkResult;
+    }
+}
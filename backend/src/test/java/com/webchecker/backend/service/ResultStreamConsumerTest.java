@@ -0,0 +1,178 @@
+package com.webchecker.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webchecker.backend.entity.CheckResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResultStreamConsumerTest {
+    
+    private final CheckResultService checkResultService = mock(CheckResultService.class);
+    private final ResultDeduplicator resultDeduplicator = mock(ResultDeduplicator.class);
+    private final Validator validator = mock(Validator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> acknowledged = new ArrayList<>();
+    private final List<Map<?, ?>> deadLettered = new ArrayList<>();
+    private final List<XClaimOptions> claims = new ArrayList<>();
+    private List<PendingMessage> pending = List.of();
+    private StreamOperations<String, Object, Object> stream;
+    private ResultStreamConsumer consumer;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Records XACK, XADD and XCLAIM calls and answers XPENDING; other stream commands are unused here
+        stream = mock(StreamOperations.class, invocation -> {
+            Object[] args = invocation.getRawArguments();
+            switch (invocation.getMethod().getName()) {
+                case "acknowledge" -> Arrays.stream((RecordId[]) args[2]).forEach(id -> acknowledged.add(id.getValue()));
+                case "add" -> deadLettered.add((Map<?, ?>) args[1]);
+                case "pending" -> {
+                    return new PendingMessages("backend", pending);
+                }
+                case "claim" -> {
+                    XClaimOptions options = (XClaimOptions) args[3];
+                    claims.add(options);
+                    return options.getIds().stream()
+                        .map(id -> record(id.getValue(), id.getTimestamp()))
+                        .toList();
+                }
+                default -> { }
+            }
+            return null;
+        });
+        when(resultDeduplicator.claim(any())).thenReturn(true);
+        when(validator.validate(any(CheckResult.class))).thenReturn(Set.of());
+        
+        consumer = new ResultStreamConsumer();
+        ReflectionTestUtils.setField(consumer, "checkResultService", checkResultService);
+        ReflectionTestUtils.setField(consumer, "resultDeduplicator", resultDeduplicator);
+        ReflectionTestUtils.setField(consumer, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(consumer, "validator", validator);
+        ReflectionTestUtils.setField(consumer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(consumer, "streamKey", "check_results");
+        ReflectionTestUtils.setField(consumer, "group", "backend");
+        ReflectionTestUtils.setField(consumer, "deadLetterKey", "check_results_dead");
+        ReflectionTestUtils.setField(consumer, "consumerName", "test");
+        ReflectionTestUtils.setField(consumer, "batchSize", 500);
+        ReflectionTestUtils.setField(consumer, "reclaimIdleMs", 60000L);
+        ReflectionTestUtils.setField(consumer, "maxDeliveries", 5);
+        consumer.init();
+    }
+    
+    @Test
+    void failedBatchFallsBackToRowsAndDeadLettersOnlyTheFailingOne() {
+        when(checkResultService.saveCheckResults(any())).thenAnswer(invocation -> {
+            List<CheckResult> batch = invocation.getArgument(0);
+            if (batch.size() > 1 || batch.get(0).getSiteId() == 2L) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            return List.of();
+        });
+        
+        consumer.process(stream, List.of(record("1-0", 1), record("2-0", 2), record("3-0", 3)));
+        
+        assertThat(acknowledged).containsExactlyInAnyOrder("1-0", "2-0", "3-0");
+        assertThat(deadLettered).hasSize(1);
+        assertThat(deadLettered.get(0).get("sourceId")).isEqualTo("2-0");
+        assertThat(deadLettered.get(0).get("result")).isEqualTo(payload(2));
+        assertThat(count("accepted")).isEqualTo(2.0);
+        assertThat(count("dead_lettered")).isEqualTo(1.0);
+        verify(resultDeduplicator).release(any());
+    }
+    
+    @Test
+    void databaseOutageLeavesTheBatchPending() {
+        when(checkResultService.saveCheckResults(any()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        
+        consumer.process(stream, List.of(record("1-0", 1), record("2-0", 2)));
+        
+        assertThat(acknowledged).isEmpty();
+        assertThat(deadLettered).isEmpty();
+        verify(resultDeduplicator).releaseAll(any());
+        verify(resultDeduplicator, never()).release(any());
+    }
+    
+    @Test
+    void reclaimDuringAnOutageDoesNotCountDeliveriesOrDeadLetter() {
+        when(checkResultService.saveCheckResults(any()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        consumer.process(stream, List.of(record("1-0", 1), record("2-0", 2)));
+        pending = List.of(pendingMessage("1-0", 5), pendingMessage("2-0", 2));
+        
+        consumer.reclaim(stream);
+        
+        assertThat(deadLettered).isEmpty();
+        assertThat(acknowledged).isEmpty();
+        assertThat(claims).extracting(XClaimOptions::getRetryCount).containsExactly(2L, 5L);
+        
+        // Once the database is back, reclaimed entries save and deliveries count again
+        doReturn(List.of()).when(checkResultService).saveCheckResults(any());
+        consumer.reclaim(stream);
+        assertThat(acknowledged).containsExactlyInAnyOrder("1-0", "2-0");
+        
+        claims.clear();
+        acknowledged.clear();
+        consumer.reclaim(stream);
+        assertThat(deadLettered).hasSize(1);
+        assertThat(deadLettered.get(0).get("sourceId")).isEqualTo("1-0");
+        assertThat(claims).extracting(XClaimOptions::getRetryCount).containsOnlyNulls();
+    }
+    
+    @Test
+    void invalidEntriesAreAcknowledgedWithoutSaving() {
+        consumer.process(stream, List.of(
+            StreamRecords.newRecord().in("check_results").withId(RecordId.of("4-0"))
+                .ofMap(Map.<Object, Object>of("result", "{not json"))));
+        
+        assertThat(acknowledged).containsExactly("4-0");
+        assertThat(count("rejected")).isEqualTo(1.0);
+        verify(checkResultService, never()).saveCheckResults(any());
+    }
+    
+    private double count(String outcome) {
+        return meterRegistry.counter("webchecker.ingest.stream.results", "outcome", outcome).count();
+    }
+    
+    private static PendingMessage pendingMessage(String id, long deliveries) {
+        return new PendingMessage(RecordId.of(id), Consumer.from("backend", "gone"), Duration.ofMinutes(2), deliveries);
+    }
+    
+    private static MapRecord<String, Object, Object> record(String id, long siteId) {
+        return StreamRecords.newRecord().in("check_results").withId(RecordId.of(id))
+            .ofMap(Map.<Object, Object>of("result", payload(siteId)));
+    }
+    
+    private static String payload(long siteId) {
+        return "{\"siteId\":" + siteId + ",\"status\":\"UP\",\"responseTime\":120,\"statusCode\":200}";
+    }
+}
@@ -0,0 +1,117 @@
+package com.webchecker.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+    
+    private static final long START = 1_000_000;
+    
+    @Test
+    void firesEntryAtItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.schedule("a", START + 5);
+        List<String> fired = new ArrayList<>();
+        
+        wheel.advanceTo(START + 4, fired::add);
+        assertThat(fired).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        
+        wheel.advanceTo(START + 5, fired::add);
+        assertThat(fired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.schedule("late", START - 30);
+        List<String> fired = new ArrayList<>();
+        
+        wheel.advanceTo(START + 1, fired::add);
+        
+        assertThat(fired).containsExactly("late");
+    }
+    
+    @Test
+    void firesInDeadlineOrderAcrossTicks() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.schedule("third", START + 30);
+        wheel.schedule("first", START + 2);
+        wheel.schedule("second", START + 9);
+        List<String> fired = new ArrayList<>();
+        
+        wheel.advanceTo(START + 60, fired::add);
+        
+        assertThat(fired).containsExactly("first", "second", "third");
+    }
+    
+    @Test
+    void cascadesFarDeadlinesDownToTheExactTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(START);
+        // One deadline per level: within 64 s, 64^2 s, 64^3 s and beyond
+        long[] deadlines = {START + 63, START + 64 * 64 - 7, START + 64L * 64 * 64 + 11, START + 64L * 64 * 64 * 3 + 5};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> firedAt = new ArrayList<>();
+        
+        for (long tick = START + 1; tick <= deadlines[deadlines.length - 1]; tick++) {
+            long current = tick;
+            wheel.advanceTo(tick, deadline -> {
+                assertThat(current).isEqualTo(deadline);
+                firedAt.add(current);
+            });
+        }
+        
+        assertThat(firedAt).containsExactly(deadlines[0], deadlines[1], deadlines[2], deadlines[3]);
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    void clampsDeadlinesBeyondTheWheelSpan() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        TimingWheel.Entry<String> entry = wheel.schedule("far", START + TimingWheel.MAX_DELAY * 2);
+        
+        assertThat(entry.deadline).isEqualTo(START + TimingWheel.MAX_DELAY - 1);
+    }
+    
+    @Test
+    void cancelledEntryNeverFires() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        TimingWheel.Entry<String> cancelled = wheel.schedule("cancelled", START + 3);
+        wheel.schedule("kept", START + 3);
+        TimingWheel.Entry<String> cascaded = wheel.schedule("cancelled-far", START + 64 * 64 + 1);
+        
+        wheel.cancel(cancelled);
+        wheel.cancel(cascaded);
+        wheel.cancel(cascaded);
+        assertThat(wheel.size()).isEqualTo(1);
+        
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(START + 64 * 64 + 10, fired::add);
+        
+        assertThat(fired).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    void reschedulingFromTheCallbackFiresAgainLater() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.schedule("site", START + 10);
+        List<Long> firedAt = new ArrayList<>();
+        
+        for (long tick = START + 1; tick <= START + 40; tick++) {
+            wheel.advanceTo(tick, site -> {
+                firedAt.add(wheel.currentTick());
+                wheel.schedule(site, wheel.currentTick() + 10);
+            });
+        }
+        
+        assertThat(firedAt).containsExactly(START + 10, START + 20, START + 30, START + 40);
+    }
+}
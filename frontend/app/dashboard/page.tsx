@@ -85,7 +85,7 @@ interface Site {
   }>;
   enabled: boolean;
   lastCheck?: {
-    status: "UP" | "DOWN";
+    status: "UP" | "DOWN" | "TIMEOUT";
     responseTime: number;
     timestamp: string;
   };
@@ -95,8 +95,14 @@ interface DashboardStats {
   totalSites: number;
   activeSites: number;
   totalChecks: number;
-  averageResponseTime: number;
-  uptime: number;
+  averageResponseTime: number | null;
+  uptime: number | null;
+  sites: Array<{
+    siteId: number;
+    lastStatus: "UP" | "DOWN" | "TIMEOUT" | null;
+    lastResponseTime: number | null;
+    lastCheckedAt: string | null;
+  }>;
 }
 
 export default function DashboardPage() {
@@ -141,8 +147,14 @@ export default function DashboardPage() {
 
   const fetchSites = async () => {
     try {
-      const response = await api.get("/api/sites");
-      setSites(response.data);
+      const size = 500;
+      const loaded: Site[] = [];
+      for (let page = 0; ; page++) {
+        const response = await api.get("/api/sites", { params: { page, size } });
+        loaded.push(...response.data.items);
+        if ((page + 1) * size >= response.data.totalElements) break;
+      }
+      setSites(loaded);
     } catch (error) {
       notifications.show({
         title: "Error",
@@ -154,7 +166,7 @@ export default function DashboardPage() {
 
   const fetchStats = async () => {
     try {
-      const response = await api.get("/api/sites/stats");
+      const response = await api.get("/api/dashboard/summary");
       setStats(response.data);
     } catch (error) {
       notifications.show({
@@ -260,6 +272,21 @@ export default function DashboardPage() {
     return <LoadingOverlay visible />;
   }
 
+  const lastChecks = new Map<string, NonNullable<Site["lastCheck"]>>();
+  for (const summary of stats?.sites ?? []) {
+    if (summary.lastStatus && summary.lastCheckedAt) {
+      lastChecks.set(String(summary.siteId), {
+        status: summary.lastStatus,
+        responseTime: summary.lastResponseTime ?? 0,
+        timestamp: summary.lastCheckedAt,
+      });
+    }
+  }
+  const sitesWithChecks = sites.map((site) => ({
+    ...site,
+    lastCheck: lastChecks.get(String(site.id)),
+  }));
+
   return (
     <ProtectedLayout>
       <Container size="xl" py="md">
@@ -339,7 +366,9 @@ export default function DashboardPage() {
                         Avg Response Time
                       </Text>
                       <Text size="2rem" fw={700}>
-                        {stats.averageResponseTime}ms
+                        {stats.averageResponseTime != null
+                          ? `${Math.round(stats.averageResponseTime)}ms`
+                          : "-"}
                       </Text>
                     </div>
                     <ThemeIcon
@@ -362,7 +391,9 @@ export default function DashboardPage() {
                         Uptime
                       </Text>
                       <Text size="2rem" fw={700}>
-                        {stats.uptime}%
+                        {stats.uptime != null
+                          ? `${stats.uptime.toFixed(2)}%`
+                          : "-"}
                       </Text>
                     </div>
                     <ThemeIcon
@@ -410,7 +441,7 @@ export default function DashboardPage() {
                   </Table.Tr>
                 </Table.Thead>
                 <Table.Tbody>
-                  {sites.map((site) => (
+                  {sitesWithChecks.map((site) => (
                     <Table.Tr key={site.id}>
                       <Table.Td>
                         <Stack gap={4}>
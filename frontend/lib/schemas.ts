@@ -28,12 +28,13 @@ export const CheckResultSchema = z.object({
   statusCode: z.number().optional(),
   error: z.string().optional(),
   seoScore: z.number().optional(),
+  anomalyScore: z.number().nullable().optional(),
 })
 
 export const IncidentSchema = z.object({
   id: z.string(),
   siteId: z.string(),
-  type: z.enum(['PAGE_DOWN', 'HEALTH_FAIL', '3G_SLOW', '4G_SLOW', 'SEO_DROP']),
+  type: z.enum(['PAGE_DOWN', 'HEALTH_FAIL', '3G_SLOW', '4G_SLOW', 'SEO_DROP', 'SLOW_ANOMALY', 'UPTIME_BREACH']),
   status: z.enum(['ACTIVE', 'RESOLVED']),
   startedAt: z.string(),
   resolvedAt: z.string().optional(),
@@ -43,7 +44,7 @@ export const IncidentSchema = z.object({
 export const NotificationRuleSchema = z.object({
   id: z.string().optional(),
   siteId: z.string().optional(),
-  type: z.enum(['PAGE_DOWN', 'HEALTH_FAIL', '3G_SLOW', '4G_SLOW', 'SEO_DROP']),
+  type: z.enum(['PAGE_DOWN', 'HEALTH_FAIL', '3G_SLOW', '4G_SLOW', 'SEO_DROP', 'SLOW_ANOMALY', 'UPTIME_BREACH']),
   enabled: z.boolean().default(true),
   channels: z.array(z.enum(['EMAIL', 'SLACK', 'WEBHOOK'])),
   webhookUrl: z.string().url().optional(),
@@ -5,6 +5,8 @@ import (
 	"encoding/json"
 	"fmt"
 	"log"
+	"net/http"
+	"net/url"
 	"os"
 	"strconv"
 	"time"
@@ -31,10 +33,22 @@ type CheckJob struct {
 	Timeout int    `json:"timeout"`
 }
 
+type SiteFeed struct {
+	Version int64   `json:"version"`
+	Sites   []Site  `json:"sites"`
+	Removed []int64 `json:"removed"`
+	HasMore bool    `json:"hasMore"`
+}
+
 type Scheduler struct {
-	redisClient *redis.Client
-	ctx         context.Context
-	logger      *logrus.Logger
+	redisClient  *redis.Client
+	httpClient   *http.Client
+	ctx          context.Context
+	logger       *logrus.Logger
+	backendURL   string
+	backendToken string
+	sites        map[int64]Site
+	siteVersion  int64
 }
 
 func NewScheduler() *Scheduler {
@@ -69,10 +83,20 @@ func NewScheduler() *Scheduler {
 
 	logger.Info("Connected to Redis successfully")
 
+	// Get backend URL
+	backendURL := os.Getenv("BACKEND_URL")
+	if backendURL == "" {
+		backendURL = "http://localhost:8080"
+	}
+
 	return &Scheduler{
-		redisClient: redisClient,
-		ctx:         ctx,
-		logger:      logger,
+		redisClient:  redisClient,
+		httpClient:   &http.Client{Timeout: 30 * time.Second},
+		ctx:          ctx,
+		logger:       logger,
+		backendURL:   backendURL,
+		backendToken: os.Getenv("BACKEND_TOKEN"),
+		sites:        make(map[int64]Site),
 	}
 }
 
@@ -142,33 +166,70 @@ func (s *Scheduler) processDueChecks() {
 	}
 }
 
+// getAllSites syncs the local site cache with the backend's change feed. After the
+// first full sync each tick only transfers sites changed since the last version.
 func (s *Scheduler) getAllSites() ([]Site, error) {
-	// In a real implementation, this would fetch from the database
-	// For now, we'll simulate with some test data
-	sites := []Site{
-		{
-			ID:            1,
-			Name:          "Example Site",
-			URL:           "https://example.com",
-			CheckInterval: 300, // 5 minutes
-			Timeout:       10,
-			Enabled:       true,
-			UserID:        "user123",
-		},
-		{
-			ID:            2,
-			Name:          "Test Site",
-			URL:           "https://httpbin.org/status/200",
-			CheckInterval: 180, // 3 minutes
-			Timeout:       5,
-			Enabled:       true,
-			UserID:        "user456",
-		},
+	for {
+		feed, err := s.fetchSiteFeed(s.siteVersion)
+		if err != nil {
+			if s.siteVersion == 0 {
+				return nil, err
+			}
+			// Keep scheduling from the cached sites and catch up next tick
+			s.logger.Warnf("Failed to sync sites, using cached list: %v", err)
+			break
+		}
+
+		for _, site := range feed.Sites {
+			s.sites[site.ID] = site
+		}
+		for _, id := range feed.Removed {
+			delete(s.sites, id)
+		}
+		s.siteVersion = feed.Version
+
+		if !feed.HasMore {
+			break
+		}
 	}
 
+	sites := make([]Site, 0, len(s.sites))
+	for _, site := range s.sites {
+		sites = append(sites, site)
+	}
 	return sites, nil
 }
 
+func (s *Scheduler) fetchSiteFeed(since int64) (*SiteFeed, error) {
+	query := url.Values{}
+	query.Set("since", strconv.FormatInt(since, 10))
+	query.Set("limit", "1000")
+
+	req, err := http.NewRequestWithContext(s.ctx, "GET", s.backendURL+"/api/scheduler/sites?"+query.Encode(), nil)
+	if err != nil {
+		return nil, fmt.Errorf("failed to create request: %w", err)
+	}
+	if s.backendToken != "" {
+		req.Header.Set("Authorization", "Bearer "+s.backendToken)
+	}
+
+	resp, err := s.httpClient.Do(req)
+	if err != nil {
+		return nil, fmt.Errorf("failed to fetch sites: %w", err)
+	}
+	defer resp.Body.Close()
+
+	if resp.StatusCode >= 400 {
+		return nil, fmt.Errorf("backend returned error status: %d", resp.StatusCode)
+	}
+
+	var feed SiteFeed
+	if err := json.NewDecoder(resp.Body).Decode(&feed); err != nil {
+		return nil, fmt.Errorf("failed to decode site feed: %w", err)
+	}
+	return &feed, nil
+}
+
 func (s *Scheduler) scheduleCheck(site Site) {
 	s.logger.Infof("Scheduling check for site %d (%s)", site.ID, site.Name)
 
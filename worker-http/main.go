@@ -16,6 +16,8 @@ import (
 	"github.com/sirupsen/logrus"
 )
 
+const submitAttempts = 3
+
 type CheckJob struct {
 	SiteID  int64  `json:"siteId"`
 	UserID  string `json:"userId"`
@@ -31,14 +33,17 @@ type CheckResult struct {
 	StatusCode   int    `json:"statusCode,omitempty"`
 	Error        string `json:"error,omitempty"`
 	SeoScore     int    `json:"seoScore,omitempty"`
+	// Stream id of the job; the backend drops results for a job id it already stored
+	JobID        string `json:"jobId,omitempty"`
 }
 
 type Worker struct {
-	redisClient *redis.Client
-	httpClient  *http.Client
-	ctx         context.Context
-	logger      *logrus.Logger
-	backendURL  string
+	redisClient  *redis.Client
+	httpClient   *http.Client
+	ctx          context.Context
+	logger       *logrus.Logger
+	backendURL   string
+	resultStream string
 }
 
 func NewWorker() *Worker {
@@ -82,14 +87,18 @@ func NewWorker() *Worker {
 		backendURL = "http://localhost:8080"
 	}
 
+	// When set, results go to this Redis stream instead of the backend HTTP API
+	resultStream := os.Getenv("RESULT_STREAM")
+
 	logger.Info("Worker initialized successfully")
 
 	return &Worker{
-		redisClient: redisClient,
-		httpClient:  httpClient,
-		ctx:         ctx,
-		logger:      logger,
-		backendURL:  backendURL,
+		redisClient:  redisClient,
+		httpClient:   httpClient,
+		ctx:          ctx,
+		logger:       logger,
+		backendURL:   backendURL,
+		resultStream: resultStream,
 	}
 }
 
@@ -160,6 +169,7 @@ func (w *Worker) processJob(message redis.XMessage) {
 
 	// Perform HTTP check
 	result := w.performCheck(job)
+	result.JobID = message.ID
 
 	// Submit result to backend
 	w.submitResult(result)
@@ -282,21 +292,44 @@ func (w *Worker) submitResult(result CheckResult) {
 		return
 	}
 
-	// Submit to backend
-	url := fmt.Sprintf("%s/api/worker/check-result", w.backendURL)
-	resp, err := w.httpClient.Post(url, "application/json", bytes.NewBuffer(resultData))
-	if err != nil {
-		w.logger.Errorf("Failed to submit result: %v", err)
+	if w.resultStream != "" {
+		err = w.redisClient.XAdd(w.ctx, &redis.XAddArgs{
+			Stream: w.resultStream,
+			Values: map[string]interface{}{
+				"result": string(resultData),
+			},
+		}).Err()
+		if err != nil {
+			w.logger.Errorf("Failed to add result to stream: %v", err)
+			return
+		}
+		w.logger.Infof("Successfully queued result for site %d", result.SiteID)
 		return
 	}
-	defer resp.Body.Close()
 
-	if resp.StatusCode >= 400 {
-		w.logger.Errorf("Backend returned error status: %d", resp.StatusCode)
-		return
+	// Submit to backend; resending is safe because the backend deduplicates by job id
+	url := fmt.Sprintf("%s/api/worker/check-result", w.backendURL)
+	for attempt := 1; attempt <= submitAttempts; attempt++ {
+		resp, err := w.httpClient.Post(url, "application/json", bytes.NewBuffer(resultData))
+		if err != nil {
+			w.logger.Warnf("Failed to submit result (attempt %d/%d): %v", attempt, submitAttempts, err)
+		} else {
+			resp.Body.Close()
+			if resp.StatusCode < 400 {
+				w.logger.Infof("Successfully submitted result for site %d", result.SiteID)
+				return
+			}
+			if resp.StatusCode != http.StatusTooManyRequests && resp.StatusCode < 500 {
+				w.logger.Errorf("Backend returned error status: %d", resp.StatusCode)
+				return
+			}
+			w.logger.Warnf("Backend returned status %d (attempt %d/%d)", resp.StatusCode, attempt, submitAttempts)
+		}
+		if attempt < submitAttempts {
+			time.Sleep(time.Duration(attempt) * time.Second)
+		}
 	}
-
-	w.logger.Infof("Successfully submitted result for site %d", result.SiteID)
+	w.logger.Errorf("Giving up on result for site %d", result.SiteID)
 }
 
 func (w *Worker) Stop() {